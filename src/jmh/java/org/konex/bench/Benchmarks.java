@@ -0,0 +1,37 @@
+package org.konex.bench;
+
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.StoreType;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persiapan bersama semua benchmark: log dibuat sepi dan storage memakai backend memori.
+ */
+public final class Benchmarks {
+    // disimpan di field supaya level-nya tidak hilang saat logger dibersihkan GC
+    private static final Logger KONEX_LOGGER = Logger.getLogger("org.konex");
+
+    private Benchmarks() {
+        // Utility class
+    }
+
+    /**
+     * Log INFO per pesan akan mendominasi hasil; yang diukur adalah jalur kodenya sendiri.
+     */
+    public static void quietLogging() {
+        KONEX_LOGGER.setLevel(Level.WARNING);
+    }
+
+    public static void useMemoryStore() {
+        try {
+            StoreProvider.init(StoreType.MEMORY);
+        } catch (IllegalStateException e) {
+            // benchmark lain di JVM yang sama (-f 0) sudah memilih backend
+            if (StoreProvider.getInstance().getType() != StoreType.MEMORY) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.konex.common.model;
+
+import org.konex.common.constants.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Biaya serialisasi {@code Response<Message>} seperti yang dikirim server untuk setiap pesan baru.
+ * <ul>
+ *     <li>{@code roundTrip}: tulis lalu baca dengan stream baru, seperti client yang baru tersambung.</li>
+ *     <li>{@code writeSessionStream}: tulis ke stream sesi yang hidup lama lalu {@code reset()}, sama dengan
+ *     {@code ClientHandler.sendResponse}.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * {@code image-ref}: gambar yang sudah diunggah bertahap (hanya mediaId); {@code image}: thumbnail 64 KB
+     * ikut di dalam pesan, seperti riwayat yang dikirim dari store.
+     */
+    @Param({"text", "image-ref", "image"})
+    public String kind;
+
+    private Response<Message> response;
+    private ObjectOutputStream sessionStream;
+
+    @Setup
+    public void setUp() throws IOException {
+        User sender = new UserBuilder().setName("Budi Santoso").setPhone("081234567890").build();
+        Message msg = switch (kind) {
+            case "text" -> MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, sender,
+                    "Halo semua, rapat hari ini dipindah ke jam tiga sore di ruang 2B ya.");
+            case "image-ref" -> {
+                ImageMessage img = (ImageMessage) MessageFactory.createMessage(
+                        Constants.GLOBAL_ROOM_CHAT_ID, sender, "Foto whiteboard", null);
+                img.setMediaId("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+                yield img;
+            }
+            case "image" -> {
+                byte[] thumbnail = new byte[64 * 1024];
+                new Random(42).nextBytes(thumbnail);
+                yield MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, sender, "Foto whiteboard",
+                        thumbnail);
+            }
+            default -> throw new IllegalArgumentException(kind);
+        };
+        msg.setSeq(1234);
+        response = Response.success(Constants.CMD_NEW_MESSAGE, msg);
+
+        sessionStream = new ObjectOutputStream(OutputStream.nullOutputStream());
+        sessionStream.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sessionStream.close();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(response);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public void writeSessionStream() throws IOException {
+        sessionStream.writeObject(response);
+        sessionStream.flush();
+        sessionStream.reset();
+    }
+}
@@ -0,0 +1,167 @@
+package org.konex.server.core;
+
+import org.konex.bench.Benchmarks;
+import org.konex.common.constants.Constants;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.TextMessage;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+import org.konex.server.entity.GroupChat;
+import org.konex.server.service.ChatRoomService;
+import org.konex.server.store.StoreProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jalur server untuk satu pesan grup dengan sesi palsu di memori (tanpa jaringan): dispatch, simpan ke store
+ * memori, ACK, lalu fan-out ke semua sesi online yang diserialisasi ke stream kosong.
+ * <p>
+ * {@code viewing=false} berarti anggota sedang membuka private chat, sehingga mereka hanya menerima jumlah belum
+ * dibaca untuk pesan global.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientHandlerBenchmark {
+    private static final String PASSWORD = "benchmark";
+    private static final String TEXT = "Halo semua, rapat hari ini dipindah ke jam tiga sore.";
+
+    @Param({"10", "1000"})
+    public int sessions;
+
+    @Param({"true", "false"})
+    public boolean viewing;
+
+    private User senderUser;
+    private ClientHandler sender;
+    private GroupChat globalRoom;
+    private Message storedMessage;
+    private String idPrefix;
+    private long counter;
+
+    /**
+     * Socket tanpa koneksi: input hanya berisi header stream objek, output dibuang.
+     */
+    private static final class FakeSocket extends Socket {
+        private static final byte[] STREAM_HEADER = streamHeader();
+
+        private static byte[] streamHeader() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(STREAM_HEADER);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        Benchmarks.quietLogging();
+        Benchmarks.useMemoryStore();
+
+        senderUser = user(0);
+        sender = session(senderUser);
+
+        for (int i = 1; i < sessions; i++) {
+            User member = user(i);
+            ClientHandler handler = session(member);
+            if (!viewing) {
+                handler.dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, member,
+                        "REQ_PRIVATE:" + senderUser.getPhoneNumber()));
+                String privateId = ChatRoomService.getInstance().getOrCreatePrivateChat(member, senderUser).getId();
+                handler.dispatch(MessageFactory.createMessage(privateId, member, "JOINED"));
+            }
+        }
+
+        globalRoom = (GroupChat) ChatRoomService.getInstance().getRoom(Constants.GLOBAL_ROOM_CHAT_ID);
+        storedMessage = MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, senderUser, TEXT);
+        storedMessage.setSeq(1);
+        // unik per trial supaya tidak dianggap kiriman ulang jika beberapa trial berbagi JVM (-f 0)
+        idPrefix = "bench-" + System.nanoTime() + "-";
+    }
+
+    private static User user(int i) {
+        return new UserBuilder().setName("User " + i).setPhone(String.format("08%010d", i)).build();
+    }
+
+    /**
+     * Sesi yang sudah login (user didaftarkan otomatis) dan sedang membuka global room.
+     */
+    private static ClientHandler session(User user) throws IOException {
+        ClientHandler handler = new ClientHandler(new FakeSocket());
+        handler.open();
+        handler.dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, user, "AUTH_REQUEST:" + PASSWORD));
+        handler.dispatch(MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, user, "JOINED"));
+        return handler;
+    }
+
+    /**
+     * Pesan yang tersimpan tidak ikut menumpuk antar iterasi.
+     */
+    @TearDown(Level.Iteration)
+    public void trimHistory() {
+        StoreProvider.getInstance().getMessageStore().deleteExpired(Constants.GLOBAL_ROOM_CHAT_ID,
+                new Date(System.currentTimeMillis() + 1), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Seluruh jalur pesan masuk: cek anggota, dedup, simpan, index, ACK, dan fan-out.
+     */
+    @Benchmark
+    public void dispatchGroupMessage() {
+        // pesan dibuat tanpa UUID acak; ID-nya memang dibuat di client
+        TextMessage msg = new TextMessage();
+        msg.setChatId(Constants.GLOBAL_ROOM_CHAT_ID);
+        msg.setSender(senderUser);
+        msg.setContent(TEXT);
+        msg.setDate(new Date());
+        msg.setMessageId(idPrefix + counter++);
+        sender.dispatch(msg);
+    }
+
+    /**
+     * Hanya fan-out ke sesi online untuk pesan yang sudah tersimpan.
+     */
+    @Benchmark
+    public void fanOut() {
+        sender.sendToMembers(globalRoom, storedMessage);
+    }
+}
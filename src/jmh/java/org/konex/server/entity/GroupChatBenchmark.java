@@ -0,0 +1,97 @@
+package org.konex.server.entity;
+
+import org.konex.bench.Benchmarks;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cek dan perubahan keanggotaan grup pada berbagai ukuran grup. Keduanya dipanggil untuk setiap pesan grup
+ * (cek pengirim, fan-out ke sesi online) dan setiap join/invite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupChatBenchmark {
+    // pangkat dua supaya indeks bisa diputar dengan mask
+    private static final int PROBES = 1024;
+
+    @Param({"10", "1000", "100000"})
+    public int members;
+
+    private GroupChat group;
+    private User[] existing;
+    private User[] outsiders;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.quietLogging();
+        group = new GroupChat("group_bench", "Benchmark", user(0));
+        for (int i = 1; i < members; i++) {
+            group.addMemberPhone(phone(i));
+        }
+
+        existing = new User[PROBES];
+        outsiders = new User[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            existing[i] = user((int) ((long) i * members / PROBES));
+            outsiders[i] = user(members + i);
+        }
+    }
+
+    private static String phone(int i) {
+        return String.format("08%010d", i);
+    }
+
+    private static User user(int i) {
+        return new UserBuilder().setName("User " + i).setPhone(phone(i)).build();
+    }
+
+    private int next() {
+        return cursor++ & (PROBES - 1);
+    }
+
+    @Benchmark
+    public boolean isMemberHit() {
+        return group.isMember(existing[next()]);
+    }
+
+    @Benchmark
+    public boolean isMemberMiss() {
+        return group.isMember(outsiders[next()]);
+    }
+
+    /**
+     * Join ulang ke global room: anggota yang sudah ada diundang lagi.
+     */
+    @Benchmark
+    public void inviteExisting() {
+        group.inviteMember(existing[next()]);
+    }
+
+    /**
+     * Undang anggota baru lalu keluarkan lagi, supaya ukuran grup tetap sesuai parameter.
+     */
+    @Benchmark
+    public void inviteThenKick() {
+        User user = outsiders[next()];
+        group.inviteMember(user);
+        group.kickMember(user, existing[0]);
+    }
+}
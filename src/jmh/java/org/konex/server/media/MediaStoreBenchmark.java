@@ -0,0 +1,113 @@
+package org.konex.server.media;
+
+import org.konex.bench.Benchmarks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Menyimpan dan membaca gambar lewat {@link MediaStore} dibandingkan dengan cara lama: gambar di-encode Base64
+ * dan disimpan langsung di isi pesan, lalu di-decode lagi saat ditampilkan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MediaStoreBenchmark {
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    @Param({"16", "256"})
+    public int sizeKb;
+
+    private Path directory;
+    private MediaStore store;
+    private byte[] payload;
+    private String storedHash;
+    private String encoded;
+    private long counter;
+    private final List<String> written = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        Benchmarks.quietLogging();
+        directory = Files.createTempDirectory("konex-media-bench");
+        store = new MediaStore(directory, SEGMENT_SIZE);
+
+        payload = new byte[sizeKb * 1024];
+        new Random(42).nextBytes(payload);
+        storedHash = store.put(payload.clone());
+        encoded = Base64.getEncoder().encodeToString(payload);
+    }
+
+    /**
+     * Blob yang ditulis selama satu iterasi dihapus dan segment-nya dipadatkan, supaya disk tidak terus membesar.
+     */
+    @TearDown(Level.Iteration)
+    public void reclaim() throws IOException {
+        for (String hash : written) {
+            store.delete(hash);
+        }
+        written.clear();
+        store.compact();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Upload gambar baru: isinya diubah tiap pemanggilan supaya tidak jatuh ke jalur deduplikasi.
+     */
+    @Benchmark
+    public String storePut() throws IOException {
+        ByteBuffer.wrap(payload).putLong(0, ++counter);
+        String hash = store.put(payload);
+        written.add(hash);
+        return hash;
+    }
+
+    @Benchmark
+    public byte[] storeRead() throws IOException {
+        return store.read(storedHash);
+    }
+
+    @Benchmark
+    public String inlineEncode() {
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    @Benchmark
+    public byte[] inlineDecode() {
+        return Base64.getDecoder().decode(encoded);
+    }
+}
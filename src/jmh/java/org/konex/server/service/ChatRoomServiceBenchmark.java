@@ -0,0 +1,95 @@
+package org.konex.server.service;
+
+import org.konex.bench.Benchmarks;
+import org.konex.common.interfaces.ChatRoom;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+import org.konex.server.entity.GroupChat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup room yang terjadi di setiap pesan, join, dan permintaan daftar room. Setiap user ikut tiga grup dan dua
+ * private chat, berapa pun jumlah room di server.
+ * <p>
+ * {@code ChatRoomService} adalah singleton, jadi setiap nilai {@code rooms} butuh fork sendiri (default).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatRoomServiceBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"100", "10000"})
+    public int rooms;
+
+    private ChatRoomService service;
+    private User[] users;
+    private ChatRoom[] groups;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Benchmarks.quietLogging();
+        Benchmarks.useMemoryStore();
+        service = ChatRoomService.getInstance();
+
+        users = new User[rooms];
+        for (int i = 0; i < rooms; i++) {
+            users[i] = new UserBuilder().setName("User " + i).setPhone(String.format("08%010d", i)).build();
+        }
+        groups = new ChatRoom[rooms];
+        for (int i = 0; i < rooms; i++) {
+            GroupChat group = new GroupChat("group_bench_" + i, "Grup " + i, users[i]);
+            group.inviteMember(users[(i + 1) % rooms]);
+            group.inviteMember(users[(i + 2) % rooms]);
+            service.saveGroup(group);
+            groups[i] = group;
+            service.getOrCreatePrivateChat(users[i], users[(i + 1) % rooms]);
+        }
+    }
+
+    private int next() {
+        return (int) ((long) (cursor++ & (PROBES - 1)) * rooms / PROBES);
+    }
+
+    @Benchmark
+    public ChatRoom getRoom() {
+        return service.getRoom(groups[next()].getId());
+    }
+
+    @Benchmark
+    public boolean canAccess() {
+        int i = next();
+        return service.canAccess(groups[i], users[(i + 1) % rooms]);
+    }
+
+    /**
+     * Dasar daftar room di sidebar dan jumlah belum dibaca saat login.
+     */
+    @Benchmark
+    public List<ChatRoom> getRoomsOf() {
+        return service.getRoomsOf(users[next()].getPhoneNumber());
+    }
+
+    @Benchmark
+    public ChatRoom getExistingPrivateChat() {
+        int i = next();
+        return service.getOrCreatePrivateChat(users[(i + 1) % rooms], users[i]);
+    }
+}
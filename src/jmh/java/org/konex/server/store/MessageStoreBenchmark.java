@@ -0,0 +1,132 @@
+package org.konex.server.store;
+
+import org.konex.bench.Benchmarks;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latensi operasi {@link MessageStore} yang ada di jalur pesan dan riwayat, dibandingkan antar backend.
+ * <p>
+ * Mongo tidak ikut secara default karena butuh server database; jalankan dengan {@code -p backend=mongo} dan
+ * konfigurasi koneksi di {@code .env}. Room benchmark dihapus lagi setelah selesai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageStoreBenchmark {
+    private static final int HISTORY = 10_000;
+    private static final int PAGE = 50;
+    private static final String TEXT = "Halo semua, rapat hari ini dipindah ke jam tiga sore.";
+
+    @Param({"memory", "embedded"})
+    public String backend;
+
+    private MessageStore store;
+    private Path directory;
+    private User sender;
+    private String readRoom;
+    private String writeRoom;
+    private long lastSeq;
+    private long cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Benchmarks.quietLogging();
+        store = switch (StoreType.fromString(backend)) {
+            case MEMORY -> new InMemoryStore();
+            case EMBEDDED -> {
+                directory = Files.createTempDirectory("konex-store-bench");
+                yield new EmbeddedStore(directory);
+            }
+            case MONGO -> new MongoStore();
+        };
+
+        sender = new UserBuilder().setName("Bench").setPhone("080000000000").build();
+        // unik per trial supaya data lama di Mongo tidak ikut terbaca
+        String suffix = Long.toString(System.nanoTime());
+        readRoom = "bench_read_" + suffix;
+        writeRoom = "bench_write_" + suffix;
+        for (int i = 0; i < HISTORY; i++) {
+            store.save(MessageFactory.createMessage(readRoom, sender, TEXT + " #" + i));
+        }
+        lastSeq = store.findLastSeq(readRoom);
+    }
+
+    /**
+     * Pesan yang ditulis benchmark {@link #save()} tidak ikut menumpuk antar iterasi.
+     */
+    @TearDown(Level.Iteration)
+    public void trimWrites() {
+        deleteRoom(writeRoom);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        deleteRoom(readRoom);
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void deleteRoom(String chatId) {
+        store.deleteExpired(chatId, new Date(System.currentTimeMillis() + 1), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Pesan teks baru: seq dibagikan lalu pesan ditulis ke backend.
+     */
+    @Benchmark
+    public Message save() {
+        Message msg = MessageFactory.createMessage(writeRoom, sender, TEXT);
+        store.save(msg);
+        return msg;
+    }
+
+    /**
+     * Riwayat awal saat room dibuka tanpa cache lokal.
+     */
+    @Benchmark
+    public List<Message> findRecent() {
+        return store.findRecent(readRoom, PAGE);
+    }
+
+    /**
+     * Client yang tertinggal mengejar satu halaman pesan; posisinya berpindah-pindah di seluruh riwayat.
+     */
+    @Benchmark
+    public List<Message> findAfter() {
+        long afterSeq = (cursor++ * 7919) % (lastSeq - PAGE);
+        return store.findAfter(readRoom, afterSeq, PAGE);
+    }
+}
@@ -13,6 +13,7 @@ module org.konex.konex {
     requires com.fasterxml.jackson.databind;
     requires java.dotenv;
     requires java.logging;
+    requires java.desktop;
     requires annotations;
 
     opens org.konex to javafx.fxml;
@@ -21,4 +22,6 @@ module org.konex.konex {
     opens org.konex.client to javafx.fxml;
     exports org.konex.client.controller;
     opens org.konex.client.controller to javafx.fxml;
+    opens org.konex.common.model to com.fasterxml.jackson.databind;
+    opens org.konex.server.store to com.fasterxml.jackson.databind;
 }
\ No newline at end of file
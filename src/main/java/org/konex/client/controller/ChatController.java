@@ -1,5 +1,6 @@
 package org.konex.client.controller;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -12,6 +13,8 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -20,6 +23,9 @@ import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.konex.client.ClientApp;
+import org.konex.client.service.AvatarCache;
+import org.konex.client.service.ImageCache;
+import org.konex.client.service.LocalMessageCache;
 import org.konex.client.service.SocketClient;
 import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatObserver;
@@ -29,50 +35,67 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class ChatController implements ChatObserver {
 
     @FXML
     private ListView<String> chatList;
     @FXML
-    private VBox messageContainer;
+    private ListView<Message> messageList;
     @FXML
     private TextArea messageInput;
     @FXML
     private Label headerLabel;
-    @FXML
-    private ScrollPane mainScrollPane;
 
     private SocketClient client;
     private User currentUser;
+    private LocalMessageCache messageCache;
 
     private String currentChatId = Constants.GLOBAL_ROOM_CHAT_ID;
     private String currentChatName = "Global Chat";
 
     private static final String ERROR = "Error";
+    private static final double BUBBLE_IMAGE_WIDTH = 220;
 
     private final Map<String, String> roomMap = new HashMap<>();
+    // Key: ChatID, Value: nama di sidebar
+    private final Map<String, String> roomNames = new HashMap<>();
+    private long roomListVersion = -1;
+    private boolean roomListResyncing;
+    // Key: ChatID, Value: jumlah pesan belum dibaca
+    private final Map<String, Integer> unreadCounts = new HashMap<>();
 
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
 
+    // respons dari thread jaringan, diproses sekaligus sekali per pulse JavaFX
+    private static final int MAX_RESPONSES_PER_PULSE = 2000;
+    private final Queue<Response<?>> pendingResponses = new ConcurrentLinkedQueue<>();
+    private final AnimationTimer responsePump = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drainResponses();
+        }
+    };
+
     public void initialize() {
         this.client = SocketClient.getInstance();
         this.currentUser = client.getCurrentUser();
+        this.messageCache = new LocalMessageCache(Path.of(System.getProperty("user.home"), ".konex", "cache",
+                currentUser.getPhoneNumber().replaceAll("[^0-9A-Za-z+_-]", "_")), LocalMessageCache.DEFAULT_CAPACITY);
         client.addObserver(this);
 
         setupListView();
-
-        messageContainer.heightProperty().addListener((_, _, _) -> {
-            if (mainScrollPane != null) mainScrollPane.setVvalue(1.0);
-        });
-
-        mainScrollPane.setStyle("-fx-background: #e5ddd5; -fx-background-color: #e5ddd5;");
-        messageContainer.setStyle("-fx-background-color: #e5ddd5;");
+        setupMessageList();
+        responsePump.start();
 
         joinRoom(currentChatId, currentChatName);
         requestRoomList();
@@ -91,6 +114,14 @@ public class ChatController implements ChatObserver {
         setupListViewStyle();
     }
 
+    /**
+     * Timeline pesan memakai ListView supaya hanya baris yang terlihat yang punya node; sel-selnya dipakai ulang
+     * saat di-scroll sehingga memori tidak bertambah mengikuti panjang riwayat.
+     */
+    private void setupMessageList() {
+        messageList.setCellFactory(_ -> new MessageCell());
+    }
+
     private void setupListViewStyle() {
         chatList.setCellFactory(_ -> new ListCell<>() {
             @Override
@@ -113,6 +144,16 @@ public class ChatController implements ChatObserver {
 
                     cellLayout.getChildren().addAll(avatar, nameLabel);
 
+                    int unread = unreadCounts.getOrDefault(roomMap.get(item), 0);
+                    if (unread > 0) {
+                        Region spacer = new Region();
+                        HBox.setHgrow(spacer, Priority.ALWAYS);
+                        Label badge = new Label(unread > 99 ? "99+" : String.valueOf(unread));
+                        badge.setStyle("-fx-background-color: #25D366; -fx-text-fill: white; -fx-font-size: 11px; "
+                                + "-fx-font-weight: bold; -fx-padding: 2 7 2 7; -fx-background-radius: 10;");
+                        cellLayout.getChildren().addAll(spacer, badge);
+                    }
+
                     setGraphic(cellLayout);
                     setText(null);
 
@@ -147,21 +188,76 @@ public class ChatController implements ChatObserver {
 
         Platform.runLater(() -> {
             headerLabel.setText(chatName);
-            messageContainer.getChildren().clear();
+            messageList.getItems().clear();
+            if (unreadCounts.remove(chatId) != null) {
+                chatList.refresh();
+            }
         });
 
-        Message joinMsg = MessageFactory.createMessage(chatId, currentUser, "JOINED");
+        messageCache.open(chatId).thenRun(() -> Platform.runLater(() -> showCachedHistory(chatId)));
+    }
+
+    /**
+     * Menampilkan riwayat dari cache lokal, lalu meminta server hanya mengirim pesan yang lebih baru.
+     */
+    private void showCachedHistory(String chatId) {
+        if (!chatId.equals(currentChatId)) {
+            // user sudah pindah room lagi sebelum cache selesai dimuat
+            return;
+        }
+        messageList.getItems().setAll(messageCache.snapshot(chatId));
+        if (!messageList.getItems().isEmpty()) {
+            messageList.scrollTo(messageList.getItems().size() - 1);
+        }
+
+        Message joinMsg = MessageFactory.createMessage(chatId, currentUser, "JOINED:" + messageCache.lastSeq(chatId));
         client.sendMessage(joinMsg);
     }
 
     private void requestRoomList() {
+        roomListResyncing = true;
         Message reqMsg = MessageFactory.createMessage(Constants.SYSTEM_SENDER, currentUser, "REQ_ROOMS");
         client.sendMessage(reqMsg);
     }
 
     @Override
     public void onResponseReceived(Response<?> response) {
-        Platform.runLater(() -> handleUIResponse(response));
+        if (response != null) {
+            pendingResponses.offer(response);
+        }
+    }
+
+    /**
+     * Memproses respons yang menumpuk sejak pulse sebelumnya. Pesan baru yang berurutan ditambahkan ke timeline
+     * dalam satu batch sehingga riwayat ribuan pesan hanya memicu satu layout dan satu scroll.
+     */
+    private void drainResponses() {
+        List<Message> batch = new ArrayList<>();
+        Response<?> response;
+        int processed = 0;
+        while (processed++ < MAX_RESPONSES_PER_PULSE && (response = pendingResponses.poll()) != null) {
+            if (response.isSuccess() && Constants.CMD_NEW_MESSAGE.equals(response.getCommand())
+                    && response.getData() instanceof Message msg) {
+                if (msg.getChatId().equals(currentChatId)) {
+                    batch.add(msg);
+                }
+            } else {
+                // urutan tetap dijaga: pesan sebelumnya ditampilkan dulu sebelum respons lain diproses
+                appendMessages(batch);
+                batch.clear();
+                handleUIResponse(response);
+            }
+        }
+        appendMessages(batch);
+    }
+
+    private void appendMessages(List<Message> messages) {
+        if (messages.isEmpty()) return;
+        // pesan yang sudah tampil dari cache tidak ditambahkan lagi
+        List<Message> fresh = messageCache.merge(currentChatId, messages);
+        if (fresh.isEmpty()) return;
+        messageList.getItems().addAll(fresh);
+        messageList.scrollTo(messageList.getItems().size() - 1);
     }
 
     private void handleUIResponse(Response<?> response) {
@@ -190,11 +286,15 @@ public class ChatController implements ChatObserver {
 
     private void handleSuccessCommand(String command, Object data) {
         if (Constants.CMD_ROOMLIST.equals(command)) {
-            updateSidebar((String) data);
-        } else if (Constants.CMD_NEW_MESSAGE.equals(command)) {
-            processIncomingMessage((Message) data);
+            updateSidebar((RoomListUpdate) data);
         } else if (Constants.CMD_KICKED.equals(command)) {
             handleKickedEvent((String) data);
+        } else if (Constants.CMD_SEARCH_RESULT.equals(command)) {
+            showSearchResult((SearchResult) data);
+        } else if (Constants.CMD_MEMBERS.equals(command)) {
+            showMemberPage((MemberPage) data);
+        } else if (Constants.CMD_UNREAD.equals(command)) {
+            updateUnreadBadges((UnreadUpdate) data);
         } else if (Constants.SYSTEM_SENDER.equals(command)) {
             handleSystemCommand((String) data);
         }
@@ -212,69 +312,67 @@ public class ChatController implements ChatObserver {
             String[] parts = payload.split(":");
             if (parts.length >= 3) {
                 joinRoom(parts[1], parts[2]);
-                requestRoomList();
             }
         }
     }
 
-    private void processIncomingMessage(Message msg) {
-        if (msg == null) return;
-
-        String content = msg.getContent();
-
-        if (!msg.getChatId().equals(currentChatId)) {
+    /**
+     * Menerapkan daftar room lengkap atau delta-nya. Delta yang tidak menyambung dengan versi terakhir berarti ada
+     * perubahan yang terlewat (mis. setelah reconnect), jadi daftar lengkap diminta ulang.
+     */
+    private void updateSidebar(RoomListUpdate update) {
+        if (update.isSnapshot()) {
+            chatList.getItems().clear();
+            roomMap.clear();
+            roomNames.clear();
+            roomListResyncing = false;
+        } else if (update.getBaseVersion() != roomListVersion) {
+            if (!roomListResyncing) {
+                requestRoomList();
+            }
             return;
         }
+        roomListVersion = update.getVersion();
 
-        if ("JOINED".equals(content)) {
-            addSystemLabel(msg.getSender().getName() + " bergabung.");
-            return;
+        for (String id : update.getRemoved()) {
+            String name = roomNames.remove(id);
+            if (name != null) {
+                roomMap.remove(name);
+                chatList.getItems().remove(name);
+            }
         }
-        if ("LEFT".equals(content)) {
-            addSystemLabel(msg.getSender().getName() + " keluar.");
-            return;
+        for (Map.Entry<String, String> room : update.getUpserts().entrySet()) {
+            String id = room.getKey();
+            String name = room.getValue();
+            String oldName = roomNames.put(id, name);
+            if (oldName == null) {
+                chatList.getItems().add(name);
+            } else if (!oldName.equals(name)) {
+                roomMap.remove(oldName);
+                chatList.getItems().set(chatList.getItems().indexOf(oldName), name);
+            }
+            roomMap.put(name, id);
         }
-
-        boolean isSelf = msg.getSender().getPhoneNumber().equals(currentUser.getPhoneNumber());
-        addBubbleChat(msg, isSelf);
     }
 
-    private void updateSidebar(String rawData) {
-        if (rawData == null || rawData.isEmpty()) return;
-
-        String prefix = "ROOMLIST:";
-        if (rawData.length() <= prefix.length()) return;
-
-        // Format data: "ROOMLIST:id1:name1,id2:name2"
-        String payload = rawData.substring(prefix.length());
-        String[] rooms = payload.split(",");
-
-        chatList.getItems().clear();
-        roomMap.clear();
-
-        for (String roomStr : rooms) {
-            String[] parts = roomStr.split(":");
-            if (parts.length >= 2) {
-                String id = parts[0];
-                String name = parts[1];
-
-                roomMap.put(name, id);
-                chatList.getItems().add(name);
+    private void updateUnreadBadges(UnreadUpdate update) {
+        for (Map.Entry<String, Integer> entry : update.getCounts().entrySet()) {
+            if (!entry.getKey().equals(currentChatId)) {
+                unreadCounts.put(entry.getKey(), entry.getValue());
             }
         }
+        chatList.refresh();
     }
 
     private void handleKickedEvent(String kickedChatId) {
         if (currentChatId.equals(kickedChatId)) {
-            messageContainer.getChildren().clear();
+            messageList.getItems().clear();
             headerLabel.setText("Global Chat Room");
             currentChatId = "global_room";
             joinRoom("global_room", "Global Chat");
 
             showAlert("Info", "Anda telah dikeluarkan dari grup ini.");
         }
-
-        requestRoomList();
     }
 
     @FXML
@@ -302,8 +400,25 @@ public class ChatController implements ChatObserver {
         String text = messageInput.getText();
         if (text.isEmpty()) return;
 
+        if (text.startsWith("/search ")) {
+            requestSearch(text.substring("/search ".length()).trim(), 0);
+            messageInput.clear();
+            return;
+        }
+
+        if ("/members".equals(text.trim())) {
+            requestMembers(currentChatId, "");
+            messageInput.clear();
+            return;
+        }
+
         Message msg = MessageFactory.createMessage(currentChatId, currentUser, text);
-        client.sendMessage(msg);
+        if (text.startsWith("/")) {
+            // perintah seperti /kick tidak dibalas ACK
+            client.sendMessage(msg);
+        } else {
+            client.sendChatMessage(msg);
+        }
         messageInput.clear();
     }
 
@@ -330,20 +445,26 @@ public class ChatController implements ChatObserver {
 
             if (caption.isEmpty()) caption = "";
 
-            try {
-                byte[] fileContent = Files.readAllBytes(file.toPath());
-                String base64Image = Base64.getEncoder().encodeToString(fileContent);
-
-                Message msg = MessageFactory.createMessage(currentChatId, currentUser, caption, base64Image);
-                client.sendMessage(msg);
-            } catch (IOException _) {
-                showAlert(ERROR, "Gagal membaca file gambar.");
-            }
+            // file diunggah bertahap dulu; pesan gambarnya cukup menyebut mediaId hasil upload
+            String chatId = currentChatId;
+            String finalCaption = caption;
+            client.uploadMedia(file.toPath()).whenComplete((mediaId, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    showAlert(ERROR, "Gagal mengunggah gambar: " + rootMessage(error));
+                    return;
+                }
+                ImageMessage msg = (ImageMessage) MessageFactory.createMessage(chatId, currentUser, finalCaption, null);
+                msg.setMediaId(mediaId);
+                client.sendChatMessage(msg);
+            }));
         }
     }
 
     @FXML
     protected void onLogoutClick() {
+        responsePump.stop();
+        client.removeObserver(this);
+        messageCache.close();
         try {
             javafx.fxml.FXMLLoader fxmlLoader = new javafx.fxml.FXMLLoader(ClientApp.class.getResource("login-view.fxml"));
             javafx.scene.Scene scene = new javafx.scene.Scene(fxmlLoader.load());
@@ -355,45 +476,71 @@ public class ChatController implements ChatObserver {
         }
     }
 
-    private void addSystemLabel(String text) {
-        Label label = new Label(text);
-        label.setStyle("-fx-text-fill: gray; -fx-font-size: 10px;");
-        label.setMaxWidth(Double.MAX_VALUE);
-        label.setAlignment(Pos.CENTER);
-        messageContainer.getChildren().add(label);
-    }
+    /**
+     * Satu baris timeline. Kerangka bubble dibuat sekali per sel; yang diganti saat sel dipakai untuk pesan lain
+     * hanya isi, avatar, dan teksnya.
+     */
+    private final class MessageCell extends ListCell<Message> {
+        private final HBox row = new HBox();
+        private final VBox bubble = new VBox();
+        private final Label nameLabel = new Label();
+        private final Label timeLabel = new Label();
+        private final HBox timeBox = new HBox(timeLabel);
+        private final Label systemLabel = new Label();
+
+        private MessageCell() {
+            row.setPadding(new Insets(5, 0, 5, 0));
+            row.setSpacing(10);
+
+            bubble.setPadding(new Insets(8, 12, 8, 12));
+            bubble.setMaxWidth(350);
 
-    private void addBubbleChat(Message msg, boolean isSelf) {
-        HBox row = new HBox();
-        row.setPadding(new Insets(5, 0, 5, 0));
-        row.setSpacing(10);
+            nameLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 12px; -fx-text-fill: #E53935;");
+            nameLabel.setPadding(new Insets(0, 0, 3, 0));
 
-        Node contentNode = createMessageContent(msg);
+            timeLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: #757575;");
+            timeLabel.setPadding(new Insets(4, 0, 0, 0));
+            timeBox.setAlignment(Pos.BOTTOM_RIGHT);
 
-        VBox bubble = new VBox();
-        bubble.setPadding(new Insets(8, 12, 8, 12));
-        bubble.setMaxWidth(350);
+            systemLabel.setStyle("-fx-text-fill: gray; -fx-font-size: 10px;");
+            systemLabel.setMaxWidth(Double.MAX_VALUE);
+            systemLabel.setAlignment(Pos.CENTER);
 
-        if (!isSelf) {
-            Label nameLabel = new Label(msg.getSender().getName());
-            nameLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 12px; -fx-text-fill: #E53935;");
-            nameLabel.setPadding(new Insets(0, 0, 3, 0));
-            bubble.getChildren().add(nameLabel);
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+            // lebar sel mengikuti ListView supaya teks panjang dibungkus, bukan memunculkan scroll horizontal
+            setPrefWidth(0);
         }
 
-        bubble.getChildren().add(contentNode);
-
-        Label timeLabel = new Label(timeFormat.format(msg.getDate()));
-        timeLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: #757575;");
-        timeLabel.setPadding(new Insets(4, 0, 0, 0));
+        @Override
+        protected void updateItem(Message msg, boolean empty) {
+            super.updateItem(msg, empty);
+            setText(null);
+            if (empty || msg == null) {
+                setGraphic(null);
+                return;
+            }
 
-        HBox timeBox = new HBox(timeLabel);
-        timeBox.setAlignment(Pos.BOTTOM_RIGHT);
-        bubble.getChildren().add(timeBox);
+            String content = msg.getContent();
+            if ("JOINED".equals(content) || "LEFT".equals(content)) {
+                systemLabel.setText(msg.getSender().getName() + ("JOINED".equals(content) ? " bergabung." : " keluar."));
+                setGraphic(systemLabel);
+                return;
+            }
 
-        configureBubbleStyle(row, bubble, msg, isSelf);
+            boolean isSelf = msg.getSender().getPhoneNumber().equals(currentUser.getPhoneNumber());
+            bubble.getChildren().clear();
+            if (!isSelf) {
+                nameLabel.setText(msg.getSender().getName());
+                bubble.getChildren().add(nameLabel);
+            }
+            bubble.getChildren().add(createMessageContent(msg));
+            timeLabel.setText(timeFormat.format(msg.getDate()));
+            bubble.getChildren().add(timeBox);
 
-        messageContainer.getChildren().add(row);
+            row.getChildren().clear();
+            configureBubbleStyle(row, bubble, msg, isSelf);
+            setGraphic(row);
+        }
     }
 
     private Node createMessageContent(Message msg) {
@@ -409,36 +556,78 @@ public class ChatController implements ChatObserver {
     }
 
     private Node createImageNode(ImageMessage imgMsg) {
+        if (imgMsg.getImageData() == null && imgMsg.getMediaId() != null && imgMsg.getSeq() > 0) {
+            // server tidak bisa membuat pratinjau dan gambarnya terlalu besar untuk dikirim utuh
+            Label download = imageLabel(imgMsg, "🖼️ Klik untuk mengunduh gambar");
+            download.setCursor(Cursor.HAND);
+            download.setOnMouseClicked(_ -> requestFullImage(imgMsg));
+            return download;
+        }
+        if (imgMsg.getImageData() == null) {
+            // gambar lama sudah dibuang oleh kebijakan retensi server
+            return imageLabel(imgMsg, "🖼️ Gambar sudah tidak tersedia");
+        }
         try {
-            byte[] imageBytes = Base64.getDecoder().decode(imgMsg.getBase64Data());
-            Image img = new Image(new ByteArrayInputStream(imageBytes));
-            ImageView imageView = new ImageView(img);
-            imageView.setFitWidth(220);
+            ImageView imageView = new ImageView();
+            imageView.setFitWidth(BUBBLE_IMAGE_WIDTH);
             imageView.setPreserveRatio(true);
             imageView.setCursor(Cursor.HAND);
 
             // Logic clip rounded corner
             imageView.imageProperty().addListener((_, _, newImg) -> {
                 if (newImg != null) {
-                    double h = newImg.getHeight() * (220 / newImg.getWidth());
-                    javafx.scene.shape.Rectangle dynClip = new javafx.scene.shape.Rectangle(220, h);
+                    double h = newImg.getHeight() * (BUBBLE_IMAGE_WIDTH / newImg.getWidth());
+                    javafx.scene.shape.Rectangle dynClip = new javafx.scene.shape.Rectangle(BUBBLE_IMAGE_WIDTH, h);
                     dynClip.setArcWidth(15);
                     dynClip.setArcHeight(15);
                     imageView.setClip(dynClip);
                 }
             });
 
-            imageView.setOnMouseClicked(event -> showFullscreenImage(img));
+            imageView.setOnMouseClicked(_ -> {
+                if (imgMsg.getMediaId() != null && imgMsg.getSeq() > 0) {
+                    // yang tampil hanya thumbnail; gambar asli diminta ke server
+                    requestFullImage(imgMsg);
+                } else {
+                    showFullscreenImage(new Image(new ByteArrayInputStream(imgMsg.getImageData())));
+                }
+            });
+
+            // decode di thread latar; selama itu bubble menampilkan placeholder seukuran gambar
+            Label placeholder = new Label("🖼️");
+            placeholder.setMinSize(BUBBLE_IMAGE_WIDTH, 140);
+            placeholder.setAlignment(Pos.CENTER);
+            placeholder.setStyle("-fx-background-color: #e0e0e0; -fx-background-radius: 15; -fx-text-fill: gray;");
+            StackPane imageBox = new StackPane(imageView, placeholder);
+
+            ImageCache cache = ImageCache.getInstance();
+            Image cached = cache.get(imgMsg.getMediaId(), BUBBLE_IMAGE_WIDTH);
+            if (cached != null) {
+                imageView.setImage(cached);
+                placeholder.setVisible(false);
+                placeholder.setManaged(false);
+            } else {
+                cache.decode(imgMsg.getMediaId(), imgMsg.getImageData(), BUBBLE_IMAGE_WIDTH,
+                        img -> Platform.runLater(() -> {
+                            if (img != null) {
+                                imageView.setImage(img);
+                                placeholder.setVisible(false);
+                                placeholder.setManaged(false);
+                            } else {
+                                placeholder.setText("⚠️ Gambar Rusak");
+                            }
+                        }));
+            }
 
             String captionText = imgMsg.getContent();
             if (captionText != null && !captionText.isEmpty()) {
                 Label captionLabel = new Label(captionText);
                 captionLabel.setWrapText(true);
-                captionLabel.setMaxWidth(220);
+                captionLabel.setMaxWidth(BUBBLE_IMAGE_WIDTH);
                 captionLabel.setStyle("-fx-font-size: 14px; -fx-padding: 5 0 0 0;");
-                return new VBox(imageView, captionLabel);
+                return new VBox(imageBox, captionLabel);
             } else {
-                return imageView;
+                return imageBox;
             }
         } catch (Exception _) {
             return new Label("⚠️ Gambar Rusak");
@@ -481,31 +670,80 @@ public class ChatController implements ChatObserver {
     private Node createAvatar(User user) {
         double size = 35.0;
 
-        if (user.getProfileImage() != null && !user.getProfileImage().isEmpty()) {
-            try {
-                byte[] imgBytes = Base64.getDecoder().decode(user.getProfileImage());
-                Image img = new Image(new ByteArrayInputStream(imgBytes));
-
-                Circle circle = new Circle(size / 2);
-                circle.setStroke(Color.LIGHTGRAY);
-                circle.setFill(new javafx.scene.paint.ImagePattern(img));
-                return circle;
-            } catch (Exception _) {
-                // do nothing
-            }
-        }
-
         Circle bg = new Circle(size / 2);
         bg.setFill(Color.web("#2196F3"));
 
-        String initial = !user.getName().isEmpty() ? user.getName().substring(0, 1).toUpperCase() : "?";
+        String initial = user.getName() != null && !user.getName().isEmpty()
+                ? user.getName().substring(0, 1).toUpperCase()
+                : "?";
         Text text = new Text(initial);
         text.setFill(Color.WHITE);
         text.setStyle("-fx-font-weight: bold;");
 
+        // foto diambil dari cache; jika belum ada, inisial tampil dulu sampai foto selesai dimuat
+        AvatarCache avatars = client.getAvatarCache();
+        Image cached = avatars.cached(user);
+        if (cached != null) {
+            showAvatarImage(bg, text, cached);
+        } else {
+            avatars.load(user, img -> Platform.runLater(() -> showAvatarImage(bg, text, img)));
+        }
         return new StackPane(bg, text);
     }
 
+    private static void showAvatarImage(Circle circle, Text initial, Image img) {
+        circle.setStroke(Color.LIGHTGRAY);
+        circle.setFill(new javafx.scene.paint.ImagePattern(img));
+        initial.setVisible(false);
+    }
+
+    private Label imageLabel(ImageMessage imgMsg, String text) {
+        String caption = imgMsg.getContent();
+        Label label = new Label(caption == null || caption.isEmpty() ? text : text + "\n" + caption);
+        label.setWrapText(true);
+        label.setMaxWidth(220);
+        label.setStyle("-fx-font-size: 14px; -fx-text-fill: gray;");
+        return label;
+    }
+
+    private void requestFullImage(ImageMessage imgMsg) {
+        client.downloadMedia(imgMsg).whenComplete((imageBytes, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                showAlert(ERROR, "Gagal mengunduh gambar: " + rootMessage(error));
+                return;
+            }
+            Image image = new Image(new ByteArrayInputStream(imageBytes));
+            if (image.isError()) {
+                // format yang tidak bisa ditampilkan: simpan saja ke disk
+                saveDownloadedImage(imageBytes);
+            } else {
+                showFullscreenImage(image);
+            }
+        }));
+    }
+
+    private void saveDownloadedImage(byte[] imageBytes) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Simpan Gambar");
+        File file = fileChooser.showSaveDialog(messageInput.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.write(file.toPath(), imageBytes);
+        } catch (IOException e) {
+            showAlert(ERROR, "Gagal menyimpan gambar: " + e.getMessage());
+        }
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : "server tidak merespons.";
+    }
+
     private void showFullscreenImage(Image image) {
         Stage stage = new Stage();
         stage.setTitle("Lihat Gambar");
@@ -535,6 +773,74 @@ public class ChatController implements ChatObserver {
         stage.show();
     }
 
+    private void requestSearch(String query, int page) {
+        // Format: SEARCH:halaman:kata kunci, dicari di room yang sedang dibuka
+        Message msg = MessageFactory.createMessage(currentChatId, currentUser, "SEARCH:" + page + ":" + query);
+        client.sendMessage(msg);
+    }
+
+    private void showSearchResult(SearchResult result) {
+        ListView<String> list = new ListView<>();
+        for (Message msg : result.getMessages()) {
+            String text = msg instanceof ImageMessage ? "🖼️ " + msg.getContent() : msg.getContent();
+            list.getItems().add("[" + timeFormat.format(msg.getDate()) + "] " + msg.getSender().getName() + ": " + text);
+        }
+        if (list.getItems().isEmpty()) {
+            list.getItems().add("Tidak ada pesan yang cocok.");
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Hasil Pencarian");
+        dialog.setHeaderText("\"" + result.getQuery() + "\" - halaman " + (result.getPage() + 1));
+        dialog.getDialogPane().setContent(list);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        ButtonType next = new ButtonType("Berikutnya", ButtonBar.ButtonData.NEXT_FORWARD);
+        if (result.hasMore()) {
+            dialog.getDialogPane().getButtonTypes().add(next);
+        }
+
+        // dipanggil dari pump respons di dalam pulse JavaFX, tempat showAndWait() tidak diizinkan
+        dialog.setOnHidden(_ -> {
+            if (next.equals(dialog.getResult())) {
+                requestSearch(result.getQuery(), result.getPage() + 1);
+            }
+        });
+        dialog.show();
+    }
+
+    private void requestMembers(String chatId, String cursor) {
+        // Format: REQ_MEMBERS:cursor, cursor kosong untuk halaman pertama
+        Message msg = MessageFactory.createMessage(chatId, currentUser, "REQ_MEMBERS:" + cursor);
+        client.sendMessage(msg);
+    }
+
+    private void showMemberPage(MemberPage page) {
+        ListView<String> list = new ListView<>();
+        for (User member : page.getMembers()) {
+            String name = member.getName() == null ? "(belum terdaftar)" : member.getName();
+            list.getItems().add(name + " - " + member.getPhoneNumber());
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Anggota Grup");
+        dialog.setHeaderText(page.getTotalMembers() + " anggota");
+        dialog.getDialogPane().setContent(list);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        ButtonType next = new ButtonType("Berikutnya", ButtonBar.ButtonData.NEXT_FORWARD);
+        if (page.getNextCursor() != null) {
+            dialog.getDialogPane().getButtonTypes().add(next);
+        }
+
+        dialog.setOnHidden(_ -> {
+            if (next.equals(dialog.getResult())) {
+                requestMembers(page.getChatId(), page.getNextCursor());
+            }
+        });
+        dialog.show();
+    }
+
     private void showAlert(String title, String content) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
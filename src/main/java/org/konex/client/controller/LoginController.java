@@ -1,5 +1,6 @@
 package org.konex.client.controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -21,7 +22,6 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Base64;
 
 public class LoginController {
     @FXML
@@ -35,7 +35,7 @@ public class LoginController {
     @FXML
     private Label uploadPlaceholder;
 
-    private String base64ProfileImage = null;
+    private byte[] profileImage = null;
 
     @FXML
     public void initialize() {
@@ -55,7 +55,7 @@ public class LoginController {
         if (file != null) {
             try {
                 byte[] fileContent = Files.readAllBytes(file.toPath());
-                this.base64ProfileImage = Base64.getEncoder().encodeToString(fileContent);
+                this.profileImage = fileContent;
 
                 Image img = new Image(new ByteArrayInputStream(fileContent));
                 profilePreview.setImage(img);
@@ -106,7 +106,7 @@ public class LoginController {
                     .setName(name)
                     .setPhone(phone)
                     .setPassword(password)
-                    .setProfileImage(base64ProfileImage)
+                    .setProfileImage(profileImage)
                     .build();
 
             SocketClient client = getSocketClient();
@@ -121,7 +121,7 @@ public class LoginController {
         SocketClient client = SocketClient.getInstance();
         client.connect("localhost", 12345);
 
-        client.setLoginCallback((success, message) -> {
+        client.setLoginCallback((success, message) -> Platform.runLater(() -> {
             if (success) {
                 try {
                     loadChatView();
@@ -132,7 +132,7 @@ public class LoginController {
                 showAlert("Login Gagal", message);
                 client.closeConnection();
             }
-        });
+        }));
         return client;
     }
 
@@ -0,0 +1,188 @@
+package org.konex.client.service;
+
+import javafx.scene.image.Image;
+import org.konex.common.model.Avatar;
+import org.konex.common.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache foto profil di client, dikunci dengan hash avatar. Setiap foto hanya diminta sekali ke server, disimpan
+ * di disk untuk sesi berikutnya, dan versi yang sudah di-decode disimpan di {@link ImageCache}. Foto yang berubah punya hash
+ * baru, jadi versi lama otomatis tidak terpakai dan lama-lama tergusur.
+ */
+public final class AvatarCache {
+    private static final Logger LOGGER = Logger.getLogger(AvatarCache.class.getName());
+    // dua kali ukuran lingkaran avatar supaya tetap tajam di layar HiDPI
+    private static final double AVATAR_WIDTH = 70;
+    private static final int DISK_CAPACITY = 512;
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+    private final Consumer<String> requester;
+    private final ImageCache images;
+    // hash yang sedang dimuat beserta pemanggil yang menunggunya
+    private final Map<String, List<Consumer<Image>>> waiting = new HashMap<>();
+    // nomor HP yang avatarnya sedang diminta ke server -> hash yang diminta
+    private final Map<String, String> requested = new HashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "avatar-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param requester mengirim {@code REQ_AVATAR} untuk nomor HP yang diberikan
+     */
+    public AvatarCache(Path directory, Consumer<String> requester, ImageCache images) {
+        this.directory = directory;
+        this.requester = requester;
+        this.images = images;
+    }
+
+    /**
+     * Foto profil yang sudah ada di memori, atau null.
+     */
+    public Image cached(User user) {
+        return images.get(user.getAvatarHash(), AVATAR_WIDTH);
+    }
+
+    /**
+     * Memuat foto profil user dari memori, disk, atau server. {@code callback} dipanggil sekali jika foto
+     * tersedia, dari thread mana pun.
+     */
+    public void load(User user, Consumer<Image> callback) {
+        String hash = user.getAvatarHash();
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return;
+        }
+        Image image = cached(user);
+        if (image != null) {
+            callback.accept(image);
+            return;
+        }
+        synchronized (waiting) {
+            List<Consumer<Image>> callbacks = waiting.get(hash);
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+            waiting.put(hash, new ArrayList<>(List.of(callback)));
+        }
+        loader.execute(() -> {
+            byte[] bytes = readFromDisk(hash);
+            if (bytes != null) {
+                complete(hash, bytes);
+            } else {
+                synchronized (waiting) {
+                    requested.put(user.getPhoneNumber(), hash);
+                }
+                requester.accept(user.getPhoneNumber());
+            }
+        });
+    }
+
+    /**
+     * Jawaban {@code REQ_AVATAR} dari server.
+     */
+    public void onAvatar(Avatar avatar) {
+        String requestedHash;
+        synchronized (waiting) {
+            requestedHash = requested.remove(avatar.getPhoneNumber());
+        }
+        byte[] image = avatar.getImage();
+        if (image == null || avatar.getHash() == null || !HASH.matcher(avatar.getHash()).matches()) {
+            // user sudah menghapus fotonya; pemanggil tetap memakai inisial
+            if (requestedHash != null) {
+                synchronized (waiting) {
+                    waiting.remove(requestedHash);
+                }
+            }
+            return;
+        }
+        loader.execute(() -> {
+            writeToDisk(avatar.getHash(), image);
+            complete(avatar.getHash(), image);
+            if (requestedHash != null && !requestedHash.equals(avatar.getHash())) {
+                // foto berubah sejak pesan dikirim: yang menunggu hash lama diberi foto terbaru
+                complete(requestedHash, image);
+            }
+        });
+    }
+
+    private void complete(String hash, byte[] bytes) {
+        List<Consumer<Image>> callbacks;
+        synchronized (waiting) {
+            callbacks = waiting.remove(hash);
+        }
+        if (callbacks != null) {
+            images.decode(hash, bytes, AVATAR_WIDTH, image -> {
+                if (image != null) {
+                    callbacks.forEach(callback -> callback.accept(image));
+                }
+            });
+        }
+    }
+
+    private byte[] readFromDisk(String hash) {
+        Path file = directory.resolve(hash);
+        try {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read cached avatar", e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String hash, byte[] image) {
+        try {
+            Files.createDirectories(directory);
+            Files.write(directory.resolve(hash), image);
+            evictFromDisk();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to cache avatar", e);
+        }
+    }
+
+    private void evictFromDisk() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        if (files.size() <= DISK_CAPACITY) {
+            return;
+        }
+        List<Path> oldestFirst = new ArrayList<>(files);
+        oldestFirst.sort(Comparator.comparingLong(AvatarCache::lastModified));
+        for (Path file : oldestFirst.subList(0, files.size() - DISK_CAPACITY)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException _) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.konex.client.service;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Jeda exponential backoff dengan jitter untuk percobaan reconnect.
+ * <p>
+ * Setiap jeda diambil acak antara separuh dan seluruh batas saat ini, jadi client yang terputus bersamaan (mis. saat
+ * server restart) tidak mencoba terhubung lagi pada saat yang sama.
+ */
+final class Backoff {
+    private final long baseMillis;
+    private final long maxMillis;
+    private final RandomGenerator random;
+    private int attempt;
+
+    Backoff(long baseMillis, long maxMillis) {
+        this(baseMillis, maxMillis, RandomGenerator.getDefault());
+    }
+
+    Backoff(long baseMillis, long maxMillis, RandomGenerator random) {
+        if (baseMillis <= 0 || maxMillis < baseMillis) {
+            throw new IllegalArgumentException("Invalid backoff range");
+        }
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+        this.random = random;
+    }
+
+    synchronized long nextDelayMillis() {
+        long ceiling = Math.min(maxMillis, baseMillis << Math.min(attempt, 30));
+        attempt++;
+        return ceiling / 2 + random.nextLong(ceiling - ceiling / 2 + 1);
+    }
+
+    synchronized int attempts() {
+        return attempt;
+    }
+
+    synchronized void reset() {
+        attempt = 0;
+    }
+}
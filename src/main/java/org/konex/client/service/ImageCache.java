@@ -0,0 +1,141 @@
+package org.konex.client.service;
+
+import javafx.scene.image.Image;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Cache gambar yang sudah di-decode, dibatasi total byte piksel (LRU). Decode dan pengecilan gambar dilakukan
+ * di thread latar supaya membuka room dengan banyak gambar tidak membekukan UI; callback dipanggil dari thread
+ * latar tersebut.
+ */
+@SuppressWarnings("java:S6548")
+public final class ImageCache {
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int DECODER_THREADS = 2;
+    private static ImageCache instance;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    // gambar yang sedang di-decode beserta pemanggil yang menunggunya
+    private final Map<String, List<Consumer<Image>>> decoding = new HashMap<>();
+    private final ExecutorService decoder = Executors.newFixedThreadPool(DECODER_THREADS, task -> {
+        Thread thread = new Thread(task, "image-decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized ImageCache getInstance() {
+        if (instance == null) instance = new ImageCache(DEFAULT_MAX_BYTES);
+        return instance;
+    }
+
+    /**
+     * Gambar yang sudah ada di cache, atau null.
+     */
+    public Image get(String key, double width) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (images) {
+            return images.get(cacheKey(key, width));
+        }
+    }
+
+    /**
+     * Men-decode {@code data} di thread latar dengan lebar maksimal {@code width} (0 = ukuran asli), lalu
+     * menyimpannya di cache. {@code callback} menerima null jika data bukan gambar yang valid.
+     *
+     * @param key hash isi gambar (mis. mediaId); jika null dihitung dari {@code data}
+     */
+    public void decode(String key, byte[] data, double width, Consumer<Image> callback) {
+        Image cached = get(key, width);
+        if (cached != null) {
+            callback.accept(cached);
+            return;
+        }
+        decoder.execute(() -> {
+            String cacheKey = cacheKey(key != null ? key : sha256(data), width);
+            synchronized (decoding) {
+                List<Consumer<Image>> callbacks = decoding.get(cacheKey);
+                if (callbacks != null) {
+                    callbacks.add(callback);
+                    return;
+                }
+                decoding.put(cacheKey, new ArrayList<>(List.of(callback)));
+            }
+
+            Image image;
+            synchronized (images) {
+                image = images.get(cacheKey);
+            }
+            if (image == null) {
+                image = new Image(new ByteArrayInputStream(data), width, 0, true, true);
+                if (!image.isError()) {
+                    put(cacheKey, image);
+                }
+            }
+
+            List<Consumer<Image>> callbacks;
+            synchronized (decoding) {
+                callbacks = decoding.remove(cacheKey);
+            }
+            Image result = image.isError() ? null : image;
+            for (Consumer<Image> waiting : callbacks) {
+                waiting.accept(result);
+            }
+        });
+    }
+
+    private void put(String cacheKey, Image image) {
+        long cost = costOf(image);
+        if (cost > maxBytes) {
+            return;
+        }
+        synchronized (images) {
+            Image previous = images.put(cacheKey, image);
+            if (previous != null) {
+                usedBytes -= costOf(previous);
+            }
+            usedBytes += cost;
+            Iterator<Image> eldest = images.values().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= costOf(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long costOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private static String cacheKey(String key, double width) {
+        return key + "@" + (int) width;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
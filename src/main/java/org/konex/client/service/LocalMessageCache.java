@@ -0,0 +1,276 @@
+package org.konex.client.service;
+
+import org.konex.common.constants.Constants;
+import org.konex.common.model.Message;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache riwayat chat di disk client, satu file append-only per room berisi pesan yang dikunci dengan seq.
+ * <p>
+ * Saat pindah room, timeline langsung diisi dari cache dan server cukup diminta pesan setelah
+ * {@link #lastSeq(String)}. Semua akses disk berjalan di satu thread latar sehingga urutan tulis selalu terjaga
+ * dan thread UI tidak pernah menunggu disk.
+ */
+public final class LocalMessageCache implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(LocalMessageCache.class.getName());
+    private static final int MAGIC = 0x4B4D4331; // "KMC1"
+    public static final int DEFAULT_CAPACITY = Constants.CLIENT_HISTORY_WINDOW;
+
+    private final Path directory;
+    private final int capacity;
+    private final Map<String, Room> rooms = new HashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "message-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Room {
+        private final NavigableMap<Long, Message> messages = new TreeMap<>();
+        private CompletableFuture<Void> loaded;
+        // jumlah record di file, termasuk yang sudah tergusur dari memori
+        private int recordsOnDisk;
+    }
+
+    /**
+     * @param directory folder cache milik satu user
+     * @param capacity  jumlah pesan terbaru yang disimpan per room
+     */
+    public LocalMessageCache(Path directory, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Memuat cache room dari disk (sekali saja) dan mengembalikan isinya, urut seq.
+     */
+    public CompletableFuture<List<Message>> open(String chatId) {
+        Room room = room(chatId);
+        synchronized (room) {
+            if (room.loaded == null) {
+                room.loaded = CompletableFuture.runAsync(() -> readFile(chatId, room), writer);
+            }
+            return room.loaded.thenApply(_ -> snapshot(chatId));
+        }
+    }
+
+    /**
+     * Isi cache room yang sudah ada di memori, urut seq.
+     */
+    public List<Message> snapshot(String chatId) {
+        Room room = room(chatId);
+        synchronized (room) {
+            return new ArrayList<>(room.messages.values());
+        }
+    }
+
+    /**
+     * Seq terbesar yang tersimpan untuk room ini, atau 0 jika cache kosong.
+     */
+    public long lastSeq(String chatId) {
+        Room room = room(chatId);
+        synchronized (room) {
+            return room.messages.isEmpty() ? 0 : room.messages.lastKey();
+        }
+    }
+
+    /**
+     * Menyimpan pesan yang diterima dari server.
+     *
+     * @return pesan yang belum ada di cache, termasuk pesan tanpa seq yang memang tidak pernah disimpan
+     */
+    public List<Message> merge(String chatId, List<Message> incoming) {
+        Room room = room(chatId);
+        List<Message> fresh = new ArrayList<>(incoming.size());
+        List<Message> toWrite = new ArrayList<>(incoming.size());
+        synchronized (room) {
+            for (Message msg : incoming) {
+                if (msg.getSeq() <= 0) {
+                    fresh.add(msg);
+                    continue;
+                }
+                Message previous = room.messages.put(msg.getSeq(), msg);
+                // seq sama dengan id berbeda berarti riwayat di server sudah berganti
+                if (previous == null || !Objects.equals(previous.getMessageId(), msg.getMessageId())) {
+                    fresh.add(msg);
+                    toWrite.add(msg);
+                }
+            }
+            trim(room);
+        }
+        if (!toWrite.isEmpty()) {
+            writer.execute(() -> appendFile(chatId, room, toWrite));
+        }
+        return fresh;
+    }
+
+    private Room room(String chatId) {
+        synchronized (rooms) {
+            return rooms.computeIfAbsent(chatId, _ -> new Room());
+        }
+    }
+
+    private void trim(Room room) {
+        while (room.messages.size() > capacity) {
+            room.messages.pollFirstEntry();
+        }
+    }
+
+    private void readFile(String chatId, Room room) {
+        Path file = fileOf(chatId);
+        if (!Files.exists(file)) {
+            return;
+        }
+        List<Message> stored = new ArrayList<>();
+        boolean intact = true;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unknown cache format");
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException _) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                stored.add(decode(record));
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // record terakhir bisa terpotong jika aplikasi ditutup saat menulis
+            LOGGER.log(Level.FINE, "Truncated message cache " + file, e);
+            intact = false;
+        }
+
+        synchronized (room) {
+            for (Message msg : stored) {
+                // pesan yang sudah masuk lewat merge lebih baru dari isi file
+                room.messages.putIfAbsent(msg.getSeq(), msg);
+            }
+            trim(room);
+            room.recordsOnDisk = stored.size();
+        }
+        if (!intact || stored.size() > capacity * 2) {
+            rewriteFile(chatId, room);
+        }
+    }
+
+    private void appendFile(String chatId, Room room, List<Message> messages) {
+        Path file = fileOf(chatId);
+        try {
+            Files.createDirectories(directory);
+            boolean created = !Files.exists(file);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                if (created) {
+                    out.writeInt(MAGIC);
+                }
+                for (Message msg : messages) {
+                    writeRecord(out, msg);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write message cache " + file, e);
+            return;
+        }
+
+        boolean compact;
+        synchronized (room) {
+            room.recordsOnDisk += messages.size();
+            compact = room.recordsOnDisk > capacity * 2;
+        }
+        if (compact) {
+            rewriteFile(chatId, room);
+        }
+    }
+
+    /**
+     * Menulis ulang file hanya dengan isi memori supaya file tidak tumbuh tanpa batas.
+     */
+    private void rewriteFile(String chatId, Room room) {
+        List<Message> current = snapshot(chatId);
+        Path file = fileOf(chatId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                for (Message msg : current) {
+                    writeRecord(out, msg);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (room) {
+                room.recordsOnDisk = current.size();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to compact message cache " + file, e);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Message msg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(msg);
+        }
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static Message decode(byte[] record) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(record))) {
+            return (Message) in.readObject();
+        }
+    }
+
+    private Path fileOf(String chatId) {
+        return directory.resolve(chatId.replaceAll("[^A-Za-z0-9_-]", "_") + ".log");
+    }
+
+    /**
+     * Menunggu semua tulisan yang tertunda selesai.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warning("Message cache writer did not finish in time");
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
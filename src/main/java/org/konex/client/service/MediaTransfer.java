@@ -0,0 +1,284 @@
+package org.konex.client.service;
+
+import org.konex.common.constants.Constants;
+import org.konex.common.model.MediaChunk;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.UploadStatus;
+import org.konex.common.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Upload dan unduhan media per potongan {@link Constants#MEDIA_CHUNK_SIZE} untuk {@link SocketClient}.
+ * <p>
+ * File yang diunggah dibaca bertahap dari disk, jadi tidak pernah dimuat utuh ke memori. Jika server melaporkan
+ * posisi yang berbeda (mis. setelah koneksi terputus), pengiriman dilanjutkan dari posisi itu. Kedua arah
+ * diverifikasi dengan SHA-256 seluruh isi pada potongan terakhir.
+ */
+final class MediaTransfer {
+    private static final Logger LOGGER = Logger.getLogger(MediaTransfer.class.getName());
+    private static final long UPLOAD_TIMEOUT_MINUTES = 10;
+    private static final long DOWNLOAD_TIMEOUT_MINUTES = 2;
+
+    /**
+     * Jalur kirim ke server, biasanya {@code SocketClient::write}.
+     */
+    interface Channel {
+        void send(Serializable payload) throws IOException;
+    }
+
+    private final Channel channel;
+    private final Supplier<User> currentUser;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final Map<String, Download> downloads = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+
+    private static final class Upload {
+        private final Path file;
+        private final long size;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // posisi yang diminta server untuk dilanjutkan, -1 jika tidak ada
+        private final AtomicLong resumeAt = new AtomicLong(-1);
+
+        private Upload(Path file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    private static final class Download {
+        private final String chatId;
+        private final long seq;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private boolean resumeRequested;
+
+        private Download(String chatId, long seq) {
+            this.chatId = chatId;
+            this.seq = seq;
+        }
+    }
+
+    MediaTransfer(Channel channel, Supplier<User> currentUser, ThreadFactory threads) {
+        this.channel = channel;
+        this.currentUser = currentUser;
+        this.senders = Executors.newCachedThreadPool(threads);
+    }
+
+    void close() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Mengunggah file ke server.
+     *
+     * @return mediaId yang bisa dipakai pesan gambar, setelah server memverifikasi seluruh isi file
+     */
+    CompletableFuture<String> upload(Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String uploadId = UUID.randomUUID().toString();
+        Upload upload = new Upload(file, size);
+        uploads.put(uploadId, upload);
+        upload.future.orTimeout(UPLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+                .whenComplete((_, _) -> uploads.remove(uploadId));
+        sendFrom(uploadId, upload, 0);
+        return upload.future;
+    }
+
+    void onUploadStatus(UploadStatus status) {
+        Upload upload = uploads.get(status.getUploadId());
+        if (upload == null) {
+            return;
+        }
+        if (status.getError() != null) {
+            upload.future.completeExceptionally(new IOException(status.getError()));
+        } else if (status.isCompleted()) {
+            upload.future.complete(status.getMediaId());
+        } else {
+            sendFrom(status.getUploadId(), upload, status.getReceivedBytes());
+        }
+    }
+
+    private void sendFrom(String uploadId, Upload upload, long offset) {
+        upload.resumeAt.set(offset);
+        if (!upload.sending.compareAndSet(false, true)) {
+            // pengirim yang sedang berjalan akan mengambil posisi ini setelah selesai
+            return;
+        }
+        senders.execute(() -> {
+            try {
+                long next;
+                while ((next = upload.resumeAt.getAndSet(-1)) >= 0 && !upload.future.isDone()) {
+                    streamFile(uploadId, upload, next);
+                }
+            } catch (IOException e) {
+                upload.future.completeExceptionally(e);
+            } finally {
+                upload.sending.set(false);
+            }
+            long pending = upload.resumeAt.get();
+            if (pending >= 0 && !upload.future.isDone()) {
+                sendFrom(uploadId, upload, pending);
+            }
+        });
+    }
+
+    private void streamFile(String uploadId, Upload upload, long offset) throws IOException {
+        MessageDigest digest = newSha256();
+        try (FileChannel in = FileChannel.open(upload.file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Constants.MEDIA_CHUNK_SIZE);
+            long position = 0;
+            while (true) {
+                buffer.clear();
+                int read = 0;
+                int n;
+                while (buffer.hasRemaining() && (n = in.read(buffer, position + read)) > 0) {
+                    read += n;
+                }
+                // bagian sebelum offset tetap dibaca untuk checksum, tetapi tidak dikirim ulang
+                digest.update(buffer.array(), 0, read);
+                boolean last = position + read >= upload.size;
+                long from = Math.max(position, offset);
+                if (from < position + read || last) {
+                    byte[] data = Arrays.copyOfRange(buffer.array(), (int) Math.min(read, from - position), read);
+                    String checksum = last ? HexFormat.of().formatHex(digest.digest()) : null;
+                    if (!send(new MediaChunk(uploadId, Math.min(from, position + read), upload.size, data, last,
+                            checksum))) {
+                        return;
+                    }
+                }
+                if (last) {
+                    return;
+                }
+                if (read == 0) {
+                    throw new IOException("File berubah saat diunggah: " + upload.file);
+                }
+                position += read;
+            }
+        }
+    }
+
+    /**
+     * Mengunduh media asli sebuah pesan gambar.
+     */
+    CompletableFuture<byte[]> download(String chatId, long seq, String mediaId) {
+        Download created = new Download(chatId, seq);
+        Download download = downloads.putIfAbsent(mediaId, created);
+        if (download != null) {
+            return download.future;
+        }
+        created.future.orTimeout(DOWNLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+                .whenComplete((_, _) -> downloads.remove(mediaId, created));
+        requestFrom(created, 0);
+        return created.future;
+    }
+
+    void onChunk(MediaChunk chunk) {
+        Download download = downloads.get(chunk.getTransferId());
+        if (download == null) {
+            return;
+        }
+        synchronized (download) {
+            long received = download.buffer.size();
+            if (chunk.getOffset() > received) {
+                // ada potongan yang terlewat: minta lanjutan sekali saja sampai potongan yang cocok datang
+                if (!download.resumeRequested) {
+                    download.resumeRequested = true;
+                    requestFrom(download, received);
+                }
+                return;
+            }
+            download.resumeRequested = false;
+
+            byte[] data = chunk.getData() == null ? new byte[0] : chunk.getData();
+            int skip = (int) Math.min(data.length, received - chunk.getOffset());
+            download.buffer.write(data, skip, data.length - skip);
+
+            if (chunk.isLast()) {
+                byte[] bytes = download.buffer.toByteArray();
+                if (HexFormat.of().formatHex(newSha256().digest(bytes)).equalsIgnoreCase(chunk.getSha256())) {
+                    download.future.complete(bytes);
+                } else {
+                    download.future.completeExceptionally(new IOException("Checksum gambar tidak cocok."));
+                }
+            }
+        }
+    }
+
+    /**
+     * Melanjutkan transfer yang terputus bersama koneksi. Upload menanyakan posisinya ke server dengan potongan
+     * kosong; unduhan diminta lagi mulai dari byte yang sudah diterima.
+     */
+    void onReconnected() {
+        for (Map.Entry<String, Upload> entry : uploads.entrySet()) {
+            Upload upload = entry.getValue();
+            if (!upload.future.isDone() && !upload.sending.get()) {
+                send(new MediaChunk(entry.getKey(), -1, upload.size, new byte[0], false, null));
+            }
+        }
+        for (Download download : downloads.values()) {
+            synchronized (download) {
+                if (!download.future.isDone()) {
+                    requestFrom(download, download.buffer.size());
+                }
+            }
+        }
+    }
+
+    private void requestFrom(Download download, long offset) {
+        Message request = MessageFactory.createMessage(download.chatId, currentUser.get(),
+                "REQ_MEDIA:" + download.seq + ":" + offset);
+        if (!send(request)) {
+            download.future.completeExceptionally(new IOException("Tidak terhubung ke server."));
+        }
+    }
+
+    private boolean send(Serializable payload) {
+        try {
+            channel.send(payload);
+            return true;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Media transfer interrupted: {0}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,39 +1,129 @@
 package org.konex.client.service;
 
-import javafx.application.Platform;
+import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatObserver;
+import org.konex.common.model.Avatar;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.MediaChunk;
 import org.konex.common.model.Message;
+import org.konex.common.model.MessageAck;
 import org.konex.common.model.MessageFactory;
 import org.konex.common.model.Response;
+import org.konex.common.model.UploadStatus;
 import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @SuppressWarnings("java:S6548")
 public class SocketClient {
     private static final Logger LOGGER = Logger.getLogger(SocketClient.class.getName());
+    private static final long ACK_TIMEOUT_MS = 5000;
+    private static final int MAX_SEND_ATTEMPTS = 5;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int MAX_SPOOLED = 500;
     private static SocketClient instance;
+    private String host;
+    private int port;
     private Socket socket;
     private ObjectOutputStream output;
-    private ObjectInputStream input;
     private User currentUser;
+    // dipakai untuk login ulang otomatis setelah reconnect
+    private User credentials;
     private volatile boolean running = true;
+    private volatile boolean authenticated;
+    // false selama koneksi putus atau belum login ulang; pesan keluar masuk spool
+    private volatile boolean online;
+    private final Deque<Message> spool = new ArrayDeque<>();
+    // pesan yang menunggu ditulis oleh thread socket-writer, supaya pemanggil (biasanya thread UI) tidak menunggu socket
+    private final BlockingQueue<Message> outbound = new LinkedBlockingQueue<>();
+    private Message lastJoin;
+    private final Backoff backoff = new Backoff(500, 30_000);
+    private final ThreadFactory threads;
+    private final Thread writer;
+    private final ScheduledExecutorService reconnector;
+    private long outageStartedAt;
+    private volatile long lastOutageMillis = -1;
+    private final AtomicInteger reconnectCount = new AtomicInteger();
     private final List<ChatObserver> observers = new CopyOnWriteArrayList<>();
+    private final Map<String, PendingMessage> pendingAcks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler;
+    private final MediaTransfer media;
+    // dibuat saat pertama dipakai supaya client tanpa UI (mis. load test) tidak memuat JavaFX.
+    // Kuncinya terpisah dari monitor client, yang ditahan selama menulis ke socket.
+    private final Object avatarLock = new Object();
+    private volatile AvatarCache avatars;
 
     private LoginCallback loginCallback;
 
+    /**
+     * Dipanggil dari thread jaringan; pemanggil yang memperbarui UI harus pindah ke thread JavaFX sendiri.
+     */
     public interface LoginCallback {
         void onLoginResult(boolean success, String message);
     }
 
+    /**
+     * Pesan chat yang belum di-ACK server beserta jumlah percobaan kirimnya.
+     */
+    private static final class PendingMessage {
+        private final Message message;
+        private final CompletableFuture<MessageAck> acked = new CompletableFuture<>();
+        private int attempts;
+        private long lastSentAt;
+
+        private PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+
     private SocketClient() {
+        this(Thread.ofPlatform().daemon().factory());
+    }
+
+    /**
+     * Client mandiri di luar singleton UI, mis. untuk load test. Semua thread internal dibuat lewat
+     * {@code threads}; virtual thread cocok untuk menjalankan ribuan client dalam satu JVM.
+     */
+    public SocketClient(ThreadFactory threads) {
+        this.threads = threads;
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(task -> newThread("socket-reconnect", task));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(task -> newThread("message-retry", task));
+        this.media = new MediaTransfer(this::sendMedia, () -> currentUser, task -> newThread("media-upload", task));
+        this.writer = newThread("socket-writer", this::writeLoop);
+        writer.start();
+        retryScheduler.scheduleWithFixedDelay(this::resendUnacknowledged, ACK_TIMEOUT_MS, ACK_TIMEOUT_MS / 5,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private Thread newThread(String name, Runnable task) {
+        Thread thread = threads.newThread(task);
+        thread.setName(name);
+        return thread;
     }
 
     public static synchronized SocketClient getInstance() {
@@ -46,15 +136,36 @@ public class SocketClient {
             closeConnection();
         }
 
-        this.socket = new Socket(host, port);
-        this.output = new ObjectOutputStream(socket.getOutputStream());
-        this.output.flush();
-        this.input = new ObjectInputStream(socket.getInputStream());
+        this.host = host;
+        this.port = port;
         this.running = true;
+        this.authenticated = false;
+        outbound.clear();
+        synchronized (this) {
+            spool.clear();
+            lastJoin = null;
+        }
+        openConnection();
+        this.online = true;
+    }
+
+    private void openConnection() throws IOException {
+        Socket newSocket = new Socket();
+        try {
+            newSocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            ObjectOutputStream out = new ObjectOutputStream(newSocket.getOutputStream());
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(newSocket.getInputStream());
+            synchronized (this) {
+                this.socket = newSocket;
+                this.output = out;
+            }
 
-        Thread listenerThread = new Thread(this::listen);
-        listenerThread.setDaemon(true);
-        listenerThread.start();
+            newThread("socket-listener", () -> listen(newSocket, in)).start();
+        } catch (IOException e) {
+            closeQuietly(newSocket);
+            throw e;
+        }
     }
 
     public void setLoginCallback(LoginCallback callback) {
@@ -63,6 +174,11 @@ public class SocketClient {
 
     public void sendAuthRequest(User user) {
         this.currentUser = user;
+        this.credentials = new UserBuilder()
+                .setName(user.getName())
+                .setPhone(user.getPhoneNumber())
+                .setPassword(user.getPassword())
+                .build();
         Message msg = MessageFactory.createMessage("SYSTEM", user, "AUTH_REQUEST:" + user.getPassword());
         sendMessage(msg);
     }
@@ -73,38 +189,318 @@ public class SocketClient {
         sendMessage(joinMsg);
     }
 
+    /**
+     * Menitipkan pesan ke antrean kirim. Tidak pernah memblokir pemanggil.
+     */
     public void sendMessage(Message message) {
-        try {
-            synchronized (this) {
-                if (output != null) {
-                    output.writeObject(message);
-                    output.flush();
-                    output.reset();
+        outbound.offer(message);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            try {
+                write(outbound.take());
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Send Error: {0}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Mengirim pesan chat dan mengirimnya ulang sampai server membalas ACK. Server membuang kiriman ganda
+     * berdasarkan messageId, jadi pengiriman ulang aman.
+     *
+     * @return selesai dengan ACK dari server, atau gagal jika pesan ditolak atau server tidak merespons
+     */
+    public CompletableFuture<MessageAck> sendChatMessage(Message message) {
+        if (message.getMessageId() == null) {
+            sendMessage(message);
+            return CompletableFuture.completedFuture(null);
+        }
+        PendingMessage pending = new PendingMessage(message);
+        pendingAcks.put(message.getMessageId(), pending);
+        attemptSend(pending);
+        return pending.acked;
+    }
+
+    private void attemptSend(PendingMessage pending) {
+        synchronized (pending) {
+            pending.attempts++;
+            pending.lastSentAt = System.currentTimeMillis();
+        }
+        sendMessage(pending.message);
+    }
+
+    private void resendUnacknowledged() {
+        if (!online) {
+            // pesan yang belum di-ACK dikirim ulang setelah reconnect, percobaannya tidak dihitung selama offline
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PendingMessage pending : pendingAcks.values()) {
+            boolean due;
+            boolean exhausted;
+            synchronized (pending) {
+                due = now - pending.lastSentAt >= ACK_TIMEOUT_MS;
+                exhausted = pending.attempts >= MAX_SEND_ATTEMPTS;
+            }
+            if (!due) continue;
+
+            if (exhausted) {
+                pendingAcks.remove(pending.message.getMessageId());
+                pending.acked.completeExceptionally(new TimeoutException("Server tidak merespons."));
+                notifyObservers(Response.error(Constants.CMD_ERROR, "Pesan gagal terkirim: server tidak merespons."));
+            } else {
+                attemptSend(pending);
+            }
+        }
+    }
+
+    /**
+     * Mengunggah file media per potongan tanpa memuatnya utuh ke memori.
+     *
+     * @return mediaId untuk dipakai {@link ImageMessage} yang dikirim sesudahnya
+     */
+    public CompletableFuture<String> uploadMedia(Path file) {
+        return media.upload(file);
+    }
+
+    /**
+     * Mengunduh gambar asli dari pesan yang hanya membawa thumbnail.
+     */
+    public CompletableFuture<byte[]> downloadMedia(ImageMessage imgMsg) {
+        return media.download(imgMsg.getChatId(), imgMsg.getSeq(), imgMsg.getMediaId());
+    }
+
+    public AvatarCache getAvatarCache() {
+        AvatarCache cache = avatars;
+        if (cache == null) {
+            synchronized (avatarLock) {
+                cache = avatars;
+                if (cache == null) {
+                    cache = new AvatarCache(Path.of(System.getProperty("user.home"), ".konex", "avatars"),
+                            this::requestAvatar, ImageCache.getInstance());
+                    avatars = cache;
                 }
             }
+        }
+        return cache;
+    }
+
+    private void requestAvatar(String phoneNumber) {
+        sendMessage(MessageFactory.createMessage("SYSTEM", currentUser, "REQ_AVATAR:" + phoneNumber));
+    }
+
+    /**
+     * Permintaan unduhan ikut antrean biasa; potongan upload ditulis langsung dari thread upload supaya
+     * jumlahnya di memori tetap terbatas.
+     */
+    private void sendMedia(Serializable payload) throws IOException {
+        if (payload instanceof Message msg) {
+            sendMessage(msg);
+        } else {
+            write(payload);
+        }
+    }
+
+    /**
+     * Mengirim payload ke server. Selama offline, pesan disimpan di spool dan dikirim berurutan setelah reconnect;
+     * payload lain (potongan media) langsung gagal dan dilanjutkan oleh {@link MediaTransfer}.
+     */
+    private void write(Serializable payload) throws IOException {
+        synchronized (this) {
+            if (payload instanceof Message msg && msg.getContent() != null && msg.getContent().startsWith("JOINED")) {
+                lastJoin = msg;
+            }
+            if (!online) {
+                if (payload instanceof Message msg) {
+                    spool(msg);
+                    return;
+                }
+                throw new IOException("Tidak terhubung ke server.");
+            }
+            try {
+                writeToSocket(payload);
+            } catch (IOException e) {
+                if (payload instanceof Message msg) {
+                    spool(msg);
+                    return;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private synchronized void writeToSocket(Serializable payload) throws IOException {
+        if (output == null) {
+            throw new IOException("Tidak terhubung ke server.");
+        }
+        try {
+            output.writeObject(payload);
+            output.flush();
+            output.reset();
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Send Error: {0}", e.getMessage());
+            // listener akan melihat socket tertutup lalu memulai reconnect
+            closeQuietly(socket);
+            throw e;
+        }
+    }
+
+    private synchronized void spool(Message msg) {
+        if (spool.size() >= MAX_SPOOLED) {
+            LOGGER.warning("Outbound spool full, dropping message");
+            notifyObservers(Response.error(Constants.CMD_ERROR,
+                    "Koneksi terputus dan antrean pesan penuh; pesan tidak terkirim."));
+            return;
         }
+        spool.addLast(msg);
     }
 
     public void closeConnection() {
         running = false;
+        online = false;
+        authenticated = false;
+        synchronized (this) {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket target) {
         try {
-            if (socket != null) socket.close();
+            if (target != null) target.close();
         } catch (IOException _) {
             // Intentionally empty: socket close errors can be safely ignored during shutdown
         }
     }
 
-    private void listen() {
+    private void listen(Socket source, ObjectInputStream in) {
         try {
-            while (running && !socket.isClosed()) {
-                Object data = input.readObject();
+            while (running && !source.isClosed()) {
+                Object data = in.readObject();
                 handleResponse(data);
             }
         } catch (IOException | ClassNotFoundException _) {
             LOGGER.info("Disconnected.");
         }
+        connectionLost(source);
+    }
+
+    private void connectionLost(Socket source) {
+        synchronized (this) {
+            if (source != socket) {
+                // koneksi lama yang sudah digantikan
+                return;
+            }
+            closeQuietly(source);
+            output = null;
+            if (!running || !authenticated) {
+                return;
+            }
+            if (online) {
+                online = false;
+                outageStartedAt = System.currentTimeMillis();
+            }
+        }
+        scheduleReconnect();
+    }
+
+    private void scheduleReconnect() {
+        long delay = backoff.nextDelayMillis();
+        LOGGER.info(() -> "Reconnecting in " + delay + " ms (attempt " + backoff.attempts() + ")");
+        reconnector.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect() {
+        if (!running || online) {
+            return;
+        }
+        try {
+            openConnection();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Reconnect failed", e);
+            scheduleReconnect();
+            return;
+        }
+        try {
+            writeToSocket(MessageFactory.createMessage(Constants.SYSTEM_SENDER, credentials,
+                    "AUTH_REQUEST:" + credentials.getPassword()));
+        } catch (IOException _) {
+            // socket sudah ditutup; listener menjadwalkan percobaan berikutnya
+        }
+    }
+
+    /**
+     * Dipanggil setelah login ulang berhasil: room terakhir dibuka lagi, lalu isi spool dikirim sesuai urutan.
+     */
+    private void onReconnected() {
+        long outage;
+        synchronized (this) {
+            List<Message> queued = new ArrayList<>();
+            if (lastJoin != null) {
+                queued.add(lastJoin);
+            }
+            queued.addAll(spool);
+            spool.clear();
+            online = true;
+            for (int i = 0; i < queued.size(); i++) {
+                try {
+                    writeToSocket(queued.get(i));
+                } catch (IOException _) {
+                    // putus lagi: sisanya kembali ke spool untuk reconnect berikutnya
+                    online = false;
+                    spool.addAll(queued.subList(Math.max(i, lastJoin != null ? 1 : 0), queued.size()));
+                    return;
+                }
+            }
+            outage = System.currentTimeMillis() - outageStartedAt;
+        }
+        lastOutageMillis = outage;
+        reconnectCount.incrementAndGet();
+        int attempts = backoff.attempts();
+        backoff.reset();
+        media.onReconnected();
+        LOGGER.info(() -> "Reconnected after " + outage + " ms (" + attempts + " attempt(s))");
+    }
+
+    /**
+     * Memutus socket tanpa logout, seperti jaringan yang tiba-tiba hilang. Dipakai load test untuk menguji reconnect.
+     */
+    public void dropConnection() {
+        synchronized (this) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Menutup koneksi dan menghentikan semua thread milik client ini.
+     */
+    public void shutdown() {
+        closeConnection();
+        writer.interrupt();
+        reconnector.shutdownNow();
+        retryScheduler.shutdownNow();
+        media.close();
+    }
+
+    public boolean isConnected() {
+        return online;
+    }
+
+    /**
+     * Berapa kali koneksi berhasil dipulihkan sejak aplikasi berjalan.
+     */
+    public int getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    /**
+     * Lama koneksi terakhir terputus sampai login ulang berhasil, atau -1 jika belum pernah terputus.
+     */
+    public long getLastOutageMillis() {
+        return lastOutageMillis;
     }
 
     private void handleResponse(Object data) {
@@ -112,31 +508,81 @@ public class SocketClient {
             Response<?> resp = (Response<?>) data;
             String cmd = resp.getCommand();
 
-            if ("LOGIN_SUCCESS".equals(cmd)) {
-                handleLoginSuccess(resp);
+            if (Constants.CMD_ACK.equals(cmd)) {
+                if (resp.getData() instanceof MessageAck ack) {
+                    onAck(ack);
+                }
+            } else if (Constants.CMD_UPLOAD_STATUS.equals(cmd) && resp.getData() instanceof UploadStatus status) {
+                media.onUploadStatus(status);
+            } else if (Constants.CMD_MEDIA.equals(cmd) && resp.getData() instanceof MediaChunk chunk) {
+                media.onChunk(chunk);
+            } else if (Constants.CMD_AVATAR.equals(cmd) && resp.getData() instanceof Avatar avatar) {
+                getAvatarCache().onAvatar(avatar);
+            } else if ("LOGIN_SUCCESS".equals(cmd)) {
+                if (authenticated) {
+                    onReconnected();
+                } else {
+                    handleLoginSuccess(resp);
+                }
+            } else if (Constants.CMD_LOGIN_BUSY.equals(cmd)) {
+                if (authenticated) {
+                    handleReloginBusy();
+                } else {
+                    handleLoginFailed(resp);
+                }
             } else if ("LOGIN_FAILED".equals(cmd)) {
-                handleLoginFailed(resp);
+                if (authenticated) {
+                    handleReloginFailed(resp);
+                } else {
+                    handleLoginFailed(resp);
+                }
             } else {
                 notifyObservers(resp);
             }
         }
     }
 
+    private void onAck(MessageAck ack) {
+        PendingMessage pending = pendingAcks.remove(ack.getMessageId());
+        if (pending == null) {
+            return;
+        }
+        if (ack.isAccepted()) {
+            pending.acked.complete(ack);
+        } else {
+            // alasan penolakan (jika ada) sudah dikirim server sebagai respons ERROR tersendiri
+            pending.acked.completeExceptionally(new IOException("Pesan ditolak server."));
+        }
+    }
+
     private void handleLoginSuccess(Response<?> resp) {
+        authenticated = true;
         if (loginCallback != null) {
             if (resp.getData() instanceof User) {
                 this.currentUser = (User) resp.getData();
             }
-            Platform.runLater(() -> loginCallback.onLoginResult(true, "Login Sukses"));
+            loginCallback.onLoginResult(true, "Login Sukses");
         }
     }
 
     private void handleLoginFailed(Response<?> resp) {
         if (loginCallback != null) {
-            Platform.runLater(() -> loginCallback.onLoginResult(false, resp.getMessage()));
+            loginCallback.onLoginResult(false, resp.getMessage());
         }
     }
 
+    private void handleReloginBusy() {
+        // server hanya kewalahan: putus lalu biarkan listener menjadwalkan login ulang dengan backoff
+        LOGGER.info("Server busy during re-login, retrying later");
+        dropConnection();
+    }
+
+    private void handleReloginFailed(Response<?> resp) {
+        // mis. password diganti dari perangkat lain; berhenti mencoba
+        closeConnection();
+        notifyObservers(Response.error(Constants.CMD_ERROR, "Gagal login ulang: " + resp.getMessage()));
+    }
+
     public void addObserver(ChatObserver observer) {
         observers.add(observer);
     }
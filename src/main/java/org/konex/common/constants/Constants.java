@@ -12,10 +12,29 @@ public class Constants {
     public static final String CMD_ROOMLIST = "ROOMLIST";
     public static final String CMD_KICKED = "KICKED";
     public static final String CMD_ERROR = "ERROR";
+    public static final String CMD_SEARCH_RESULT = "SEARCH_RESULT";
+    public static final String CMD_MEMBERS = "MEMBERS";
+    public static final String CMD_ACK = "ACK";
+    public static final String CMD_UNREAD = "UNREAD";
+    public static final String CMD_MEDIA = "MEDIA";
+    public static final String CMD_UPLOAD_STATUS = "UPLOAD_STATUS";
+    public static final String CMD_AVATAR = "AVATAR";
+    // Login ditolak karena server sibuk; client boleh mencoba lagi dengan kredensial yang sama
+    public static final String CMD_LOGIN_BUSY = "LOGIN_BUSY";
+
+    // Ukuran satu potongan saat upload/download media
+    public static final int MEDIA_CHUNK_SIZE = 256 * 1024;
+
+    // Kapasitas default riwayat pesan di memori per room
+    public static final int DEFAULT_GROUP_HISTORY_CAPACITY = 500;
+    public static final int DEFAULT_PRIVATE_HISTORY_CAPACITY = 200;
+    // Jumlah pesan terbaru per room di cache client, sekaligus batas pesan yang dikirim untuk menutup celah riwayat
+    public static final int CLIENT_HISTORY_WINDOW = 500;
 
     // Database field names
     public static final String FIELD_PHONE_NUMBER = "phoneNumber";
     public static final String FIELD_PROFILE_IMAGE = "profileImage";
+    public static final String FIELD_AVATAR_HASH = "avatarHash";
     public static final String FIELD_NAME = "name";
     public static final String FIELD_PASSWORD = "password";
 
@@ -23,4 +42,6 @@ public class Constants {
     public static final String COLLECTION_USERS = "users";
     public static final String COLLECTION_MESSAGES = "messages";
     public static final String COLLECTION_GROUPS = "groups";
+    public static final String COLLECTION_MEMBERSHIPS = "memberships";
+    public static final String COLLECTION_READ_STATES = "read_states";
 }
@@ -0,0 +1,30 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+
+/**
+ * Foto profil seorang user, jawaban untuk {@code REQ_AVATAR}. {@code image} null jika user tidak punya foto.
+ */
+public class Avatar implements Serializable {
+    private final String phoneNumber;
+    private final String hash;
+    private final byte[] image;
+
+    public Avatar(String phoneNumber, String hash, byte[] image) {
+        this.phoneNumber = phoneNumber;
+        this.hash = hash;
+        this.image = image;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public byte[] getImage() {
+        return image;
+    }
+}
@@ -1,22 +1,38 @@
 package org.konex.common.model;
 
 public class ImageMessage extends Message {
-    private String base64Data;
+    private byte[] imageData;
+    private String mediaId;
 
     public ImageMessage() {
     }
 
-    public ImageMessage(String chatId, User sender, String caption, String base64Data) {
+    public ImageMessage(String chatId, User sender, String caption, byte[] imageData) {
         super(chatId, sender, caption);
-        this.base64Data = base64Data;
+        this.imageData = imageData;
     }
 
-    public String getBase64Data() {
-        return base64Data;
+    /**
+     * Isi gambar apa adanya (PNG/JPEG), dikirim sebagai byte mentah tanpa Base64.
+     */
+    public byte[] getImageData() {
+        return imageData;
     }
 
-    public void setBase64Data(String base64Data) {
-        this.base64Data = base64Data;
+    public void setImageData(byte[] imageData) {
+        this.imageData = imageData;
+    }
+
+    /**
+     * ID gambar asli di server. Jika terisi, {@link #getImageData()} hanya berisi thumbnail dan gambar asli
+     * diminta lewat {@code REQ_MEDIA} saat user membukanya.
+     */
+    public String getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(String mediaId) {
+        this.mediaId = mediaId;
     }
 
     @Override
@@ -0,0 +1,55 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+
+/**
+ * Satu potongan media saat upload (client ke server) atau download (server ke client).
+ * <p>
+ * {@code transferId} adalah ID upload yang dibuat client, atau mediaId saat download. Potongan dikirim berurutan
+ * berdasarkan {@code offset} sehingga transfer yang terputus bisa dilanjutkan dari offset terakhir. Potongan
+ * terakhir membawa SHA-256 seluruh isi untuk diverifikasi penerima.
+ */
+public class MediaChunk implements Serializable {
+    private final String transferId;
+    private final long offset;
+    private final long totalSize;
+    private final byte[] data;
+    private final boolean last;
+    private final String sha256;
+
+    public MediaChunk(String transferId, long offset, long totalSize, byte[] data, boolean last, String sha256) {
+        this.transferId = transferId;
+        this.offset = offset;
+        this.totalSize = totalSize;
+        this.data = data;
+        this.last = last;
+        this.sha256 = sha256;
+    }
+
+    public String getTransferId() {
+        return transferId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * SHA-256 (heksadesimal) seluruh isi media; hanya terisi di potongan terakhir.
+     */
+    public String getSha256() {
+        return sha256;
+    }
+}
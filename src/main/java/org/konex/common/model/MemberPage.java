@@ -0,0 +1,38 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Satu halaman daftar anggota grup. {@code nextCursor} bernilai null jika sudah halaman terakhir.
+ */
+public class MemberPage implements Serializable {
+    private final String chatId;
+    private final int totalMembers;
+    private final ArrayList<User> members;
+    private final String nextCursor;
+
+    public MemberPage(String chatId, int totalMembers, List<User> members, String nextCursor) {
+        this.chatId = chatId;
+        this.totalMembers = totalMembers;
+        this.members = new ArrayList<>(members);
+        this.nextCursor = nextCursor;
+    }
+
+    public String getChatId() {
+        return chatId;
+    }
+
+    public int getTotalMembers() {
+        return totalMembers;
+    }
+
+    public List<User> getMembers() {
+        return members;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
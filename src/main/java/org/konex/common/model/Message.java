@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.UUID;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 @JsonSubTypes({
@@ -16,6 +17,8 @@ public abstract class Message implements Serializable {
     protected User sender;
     protected String content;
     protected Date date;
+    protected long seq;
+    protected String messageId;
 
     protected Message() {
     }
@@ -25,6 +28,7 @@ public abstract class Message implements Serializable {
         this.sender = sender;
         this.content = content;
         this.date = new Date();
+        this.messageId = UUID.randomUUID().toString();
     }
 
     public abstract String getType();
@@ -46,6 +50,20 @@ public abstract class Message implements Serializable {
         return chatId;
     }
 
+    /**
+     * Nomor urut pesan di dalam room, diberikan server saat pesan disimpan (0 jika belum tersimpan).
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * ID unik pesan yang dibuat di sisi pengirim. Dipakai server untuk membuang kiriman ulang yang sama.
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
     // Setters
     public void setChatId(String chatId) {
         this.chatId = chatId;
@@ -62,4 +80,12 @@ public abstract class Message implements Serializable {
     public void setDate(Date date) {
         this.date = date;
     }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+
+/**
+ * Konfirmasi server bahwa pesan dengan {@code messageId} sudah diterima. {@code seq} bernilai 0 jika pesan
+ * ditolak (misalnya pengirim bukan anggota room) sehingga client tidak perlu mengirim ulang.
+ */
+public class MessageAck implements Serializable {
+    private final String messageId;
+    private final String chatId;
+    private final long seq;
+
+    public MessageAck(String messageId, String chatId, long seq) {
+        this.messageId = messageId;
+        this.chatId = chatId;
+        this.seq = seq;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public String getChatId() {
+        return chatId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isAccepted() {
+        return seq > 0;
+    }
+}
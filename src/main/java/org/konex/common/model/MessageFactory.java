@@ -10,7 +10,7 @@ public class MessageFactory {
         return new TextMessage(chatId, sender, text);
     }
 
-    public static Message createMessage(String chatId, User sender, String caption, String base64Image) {
-        return new ImageMessage(chatId, sender, caption, base64Image);
+    public static Message createMessage(String chatId, User sender, String caption, byte[] image) {
+        return new ImageMessage(chatId, sender, caption, image);
     }
 }
\ No newline at end of file
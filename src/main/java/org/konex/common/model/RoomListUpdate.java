@@ -0,0 +1,59 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perubahan daftar room di sidebar (chatId -> nama yang ditampilkan). Daftar lengkap dikirim saat diminta dan saat
+ * JOINED pertama di setiap koneksi (termasuk setelah reconnect); setelah itu server mengirim delta yang
+ * masing-masing menaikkan versi satu langkah. Client yang versinya tidak cocok dengan {@link #getBaseVersion()}
+ * harus meminta daftar lengkap lagi.
+ */
+public class RoomListUpdate implements Serializable {
+    private final boolean snapshot;
+    private final long baseVersion;
+    private final long version;
+    // room baru atau yang namanya berubah
+    private final LinkedHashMap<String, String> upserts;
+    private final ArrayList<String> removed;
+
+    private RoomListUpdate(boolean snapshot, long baseVersion, long version, Map<String, String> upserts,
+                           List<String> removed) {
+        this.snapshot = snapshot;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.upserts = new LinkedHashMap<>(upserts);
+        this.removed = new ArrayList<>(removed);
+    }
+
+    public static RoomListUpdate snapshot(long version, Map<String, String> rooms) {
+        return new RoomListUpdate(true, version, version, rooms, List.of());
+    }
+
+    public static RoomListUpdate delta(long baseVersion, Map<String, String> upserts, List<String> removed) {
+        return new RoomListUpdate(false, baseVersion, baseVersion + 1, upserts, removed);
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, String> getUpserts() {
+        return upserts;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,38 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Satu halaman hasil pencarian pesan, urut dari yang paling baru.
+ */
+public class SearchResult implements Serializable {
+    private final String query;
+    private final int page;
+    private final boolean hasMore;
+    private final ArrayList<Message> messages;
+
+    public SearchResult(String query, int page, boolean hasMore, List<Message> messages) {
+        this.query = query;
+        this.page = page;
+        this.hasMore = hasMore;
+        this.messages = new ArrayList<>(messages);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+}
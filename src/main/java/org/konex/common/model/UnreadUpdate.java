@@ -0,0 +1,27 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Jumlah pesan belum dibaca per room (chatId -> jumlah). Hanya memuat room yang berubah, kecuali saat
+ * pertama kali dikirim bersama daftar room.
+ */
+public class UnreadUpdate implements Serializable {
+    private final HashMap<String, Integer> counts;
+
+    public UnreadUpdate(Map<String, Integer> counts) {
+        this.counts = new HashMap<>(counts);
+    }
+
+    public static UnreadUpdate of(String chatId, int count) {
+        HashMap<String, Integer> counts = new HashMap<>(1);
+        counts.put(chatId, count);
+        return new UnreadUpdate(counts);
+    }
+
+    public Map<String, Integer> getCounts() {
+        return counts;
+    }
+}
@@ -0,0 +1,53 @@
+package org.konex.common.model;
+
+import java.io.Serializable;
+
+/**
+ * Balasan server untuk upload media. Jika {@code mediaId} terisi upload selesai; jika {@code error} terisi upload
+ * dibatalkan; selain itu client harus melanjutkan pengiriman dari {@code receivedBytes}.
+ */
+public class UploadStatus implements Serializable {
+    private final String uploadId;
+    private final long receivedBytes;
+    private final String mediaId;
+    private final String error;
+
+    private UploadStatus(String uploadId, long receivedBytes, String mediaId, String error) {
+        this.uploadId = uploadId;
+        this.receivedBytes = receivedBytes;
+        this.mediaId = mediaId;
+        this.error = error;
+    }
+
+    public static UploadStatus resumeFrom(String uploadId, long receivedBytes) {
+        return new UploadStatus(uploadId, receivedBytes, null, null);
+    }
+
+    public static UploadStatus completed(String uploadId, long size, String mediaId) {
+        return new UploadStatus(uploadId, size, mediaId, null);
+    }
+
+    public static UploadStatus failed(String uploadId, String error) {
+        return new UploadStatus(uploadId, 0, null, error);
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public String getMediaId() {
+        return mediaId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCompleted() {
+        return mediaId != null;
+    }
+}
@@ -6,13 +6,14 @@ public class User implements Serializable {
     private String userId;
     private String name;
     private String phoneNumber;
-    private String profileImage;
+    private byte[] profileImage;
+    private String avatarHash;
     private String password;
 
     public User() {
     }
 
-    public User(String userId, String name, String phoneNumber, String profileImage, String password) {
+    public User(String userId, String name, String phoneNumber, byte[] profileImage, String password) {
         this.userId = userId;
         this.name = name;
         this.phoneNumber = phoneNumber;
@@ -33,7 +34,7 @@ public class User implements Serializable {
         return phoneNumber;
     }
 
-    public String getProfileImage() {
+    public byte[] getProfileImage() {
         return profileImage;
     }
 
@@ -41,6 +42,14 @@ public class User implements Serializable {
         return password;
     }
 
+    /**
+     * SHA-256 foto profil. User yang dikirim bersama pesan hanya membawa hash ini; foto-nya diambil sekali lewat
+     * {@code REQ_AVATAR} dan disimpan di cache client.
+     */
+    public String getAvatarHash() {
+        return avatarHash;
+    }
+
     // Setters
     public void setUserId(String userId) {
         this.userId = userId;
@@ -54,11 +63,15 @@ public class User implements Serializable {
         this.phoneNumber = phoneNumber;
     }
 
-    public void setProfileImage(String profileImage) {
+    public void setProfileImage(byte[] profileImage) {
         this.profileImage = profileImage;
     }
 
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public void setAvatarHash(String avatarHash) {
+        this.avatarHash = avatarHash;
+    }
 }
\ No newline at end of file
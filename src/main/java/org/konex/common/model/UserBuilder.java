@@ -4,7 +4,7 @@ public class UserBuilder {
     private String userId;
     private String name;
     private String phoneNumber;
-    private String profileImage;
+    private byte[] profileImage;
     private String password;
 
     public UserBuilder setUserId(String userId) {
@@ -22,7 +22,7 @@ public class UserBuilder {
         return this;
     }
 
-    public UserBuilder setProfileImage(String profileImage) {
+    public UserBuilder setProfileImage(byte[] profileImage) {
         this.profileImage = profileImage;
         return this;
     }
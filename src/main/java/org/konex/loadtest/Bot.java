@@ -0,0 +1,280 @@
+package org.konex.loadtest;
+
+import org.konex.client.service.SocketClient;
+import org.konex.common.constants.Constants;
+import org.konex.common.interfaces.ChatObserver;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageAck;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.Response;
+import org.konex.common.model.RoomListUpdate;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Satu user simulasi. Skripnya: login (mendaftar otomatis), membuka global room, membuka private chat dengan
+ * bot pasangannya, lalu mengirim pesan teks atau gambar sesuai {@link LoadScenario} sampai dihentikan.
+ * <p>
+ * Setiap pesan membawa waktu kirim di isinya, sehingga bot penerima bisa mengukur latensi end-to-end. Semua bot
+ * berjalan di JVM yang sama, jadi {@link System#nanoTime()} di pengirim dan penerima bisa dibandingkan.
+ */
+final class Bot implements ChatObserver {
+    private static final String TEXT_MARKER = "LT|";
+    private static final String IMAGE_MARKER = "LTI|";
+    private static final int MAX_LOGIN_ATTEMPTS = 5;
+    private static final long LOGIN_TIMEOUT_SECONDS = 30;
+    private static final long PRIVATE_RETRY_MS = 5000;
+
+    private final int index;
+    private final LoadScenario scenario;
+    private final LoadStats stats;
+    private final ScheduledExecutorService ticker;
+    private final Path image;
+    private final String phone;
+    private final String peerPhone;
+    private final String privateChatId;
+    private final SocketClient client = new SocketClient(Thread.ofVirtual().factory());
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile User user;
+    private volatile boolean running;
+    private volatile boolean privateOpen;
+    private volatile long privateRequestedAt;
+    private int lastReconnectCount;
+
+    Bot(int index, LoadScenario scenario, LoadStats stats, ScheduledExecutorService ticker, Path image) {
+        this.index = index;
+        this.scenario = scenario;
+        this.stats = stats;
+        this.ticker = ticker;
+        this.image = image;
+        this.phone = phoneOf(index);
+        int peer = index ^ 1;
+        this.peerPhone = peer < scenario.users() ? phoneOf(peer) : null;
+        this.privateChatId = peerPhone == null ? null : privateChatIdOf(phone, peerPhone);
+    }
+
+    static String phoneOf(int index) {
+        return String.format("9%09d", index);
+    }
+
+    /**
+     * Sama dengan aturan penamaan private chat di server.
+     */
+    static String privateChatIdOf(String a, String b) {
+        return a.compareTo(b) < 0 ? "private_" + a + "_" + b : "private_" + b + "_" + a;
+    }
+
+    /**
+     * Menghubungkan dan login di latar; pesan mulai dikirim setelah login berhasil.
+     */
+    void start() {
+        running = true;
+        client.addObserver(this);
+        try {
+            client.connect(scenario.host(), scenario.port());
+        } catch (IOException _) {
+            stats.error("connect");
+            return;
+        }
+        login(1, System.nanoTime());
+    }
+
+    private void login(int attempt, long startedAt) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        client.setLoginCallback((success, _) -> result.complete(success));
+        client.sendAuthRequest(new UserBuilder()
+                .setName("Bot " + index)
+                .setPhone(phone)
+                .setPassword(scenario.password())
+                .build());
+
+        result.orTimeout(LOGIN_TIMEOUT_SECONDS, TimeUnit.SECONDS).whenComplete((success, error) -> {
+            if (Boolean.TRUE.equals(success)) {
+                stats.loginLatency.recordNanos(System.nanoTime() - startedAt);
+                onLoggedIn();
+            } else if (running && attempt < MAX_LOGIN_ATTEMPTS) {
+                // mis. antrean auth di server penuh saat banyak user login bersamaan
+                stats.error(error == null ? "login rejected (retried)" : "login timeout (retried)");
+                ticker.schedule(() -> login(attempt + 1, startedAt),
+                        ThreadLocalRandom.current().nextLong(500, 2000L * attempt), TimeUnit.MILLISECONDS);
+            } else {
+                stats.error("login failed");
+            }
+        });
+    }
+
+    private void onLoggedIn() {
+        user = client.getCurrentUser();
+        stats.loggedIn.increment();
+        client.sendJoinMessage();
+        requestPrivateChat();
+        scheduleNextMessage();
+        scheduleNextDrop();
+    }
+
+    private void requestPrivateChat() {
+        // cukup salah satu dari pasangan yang meminta; yang lain mendapat delta daftar room
+        if (peerPhone == null || privateOpen || phone.compareTo(peerPhone) < 0) {
+            return;
+        }
+        privateRequestedAt = System.currentTimeMillis();
+        client.sendMessage(MessageFactory.createMessage(Constants.SYSTEM_SENDER, user, "REQ_PRIVATE:" + peerPhone));
+    }
+
+    private void onPrivateChatOpened() {
+        if (privateOpen) {
+            return;
+        }
+        privateOpen = true;
+        if (scenario.viewPrivate()) {
+            client.sendMessage(MessageFactory.createMessage(privateChatId, user, "JOINED"));
+        }
+    }
+
+    private void scheduleNextMessage() {
+        if (!running || scenario.rate() <= 0) {
+            return;
+        }
+        // jeda eksponensial: kedatangan pesan mengikuti proses Poisson
+        double seconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / scenario.rate();
+        ticker.schedule(this::tick, (long) (seconds * 1_000_000), TimeUnit.MICROSECONDS);
+    }
+
+    private void tick() {
+        if (!running) {
+            return;
+        }
+        try {
+            checkReconnects();
+            if (!privateOpen && privateRequestedAt > 0 && System.currentTimeMillis() - privateRequestedAt > PRIVATE_RETRY_MS) {
+                requestPrivateChat();
+            }
+
+            boolean toGlobal = !privateOpen || ThreadLocalRandom.current().nextDouble() < scenario.globalShare();
+            String chatId = toGlobal ? Constants.GLOBAL_ROOM_CHAT_ID : privateChatId;
+            long n = sequence.incrementAndGet();
+            if (scenario.imageEvery() > 0 && n % scenario.imageEvery() == 0) {
+                sendImage(chatId, n);
+            } else {
+                sendText(chatId, n);
+            }
+        } finally {
+            scheduleNextMessage();
+        }
+    }
+
+    private void sendText(String chatId, long n) {
+        long sentAt = System.nanoTime();
+        Message msg = MessageFactory.createMessage(chatId, user, TEXT_MARKER + sentAt + "|" + n);
+        stats.textsSent.increment();
+        client.sendChatMessage(msg).whenComplete((ack, error) -> onAck(sentAt, ack, error));
+    }
+
+    private void sendImage(String chatId, long n) {
+        long sentAt = System.nanoTime();
+        stats.imagesSent.increment();
+        client.uploadMedia(image)
+                .thenCompose(mediaId -> {
+                    ImageMessage msg = (ImageMessage) MessageFactory.createMessage(chatId, user,
+                            IMAGE_MARKER + sentAt + "|" + n, null);
+                    msg.setMediaId(mediaId);
+                    return client.sendChatMessage(msg);
+                })
+                .whenComplete((ack, error) -> onAck(sentAt, ack, error));
+    }
+
+    private void onAck(long sentAt, MessageAck ack, Throwable error) {
+        if (error == null) {
+            stats.acked.increment();
+            stats.ackLatency.recordNanos(System.nanoTime() - sentAt);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        stats.error(cause instanceof TimeoutException ? "ack timeout" : "send failed: " + cause.getMessage());
+    }
+
+    private void scheduleNextDrop() {
+        if (!running || scenario.reconnectEvery() <= 0) {
+            return;
+        }
+        long seconds = scenario.reconnectEvery();
+        long delayMs = ThreadLocalRandom.current().nextLong(seconds * 500, seconds * 1500 + 1);
+        ticker.schedule(() -> {
+            if (running) {
+                stats.drops.increment();
+                client.dropConnection();
+                scheduleNextDrop();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void checkReconnects() {
+        int count = client.getReconnectCount();
+        if (count != lastReconnectCount) {
+            stats.reconnects.add(count - lastReconnectCount);
+            stats.outage.recordMicros(client.getLastOutageMillis() * 1000);
+            lastReconnectCount = count;
+        }
+    }
+
+    @Override
+    public void onResponseReceived(Response<?> response) {
+        if (!response.isSuccess()) {
+            stats.error("server: " + response.getMessage());
+            return;
+        }
+        Object data = response.getData();
+        if (Constants.CMD_NEW_MESSAGE.equals(response.getCommand()) && data instanceof Message msg) {
+            onMessage(msg);
+        } else if (Constants.CMD_UNREAD.equals(response.getCommand())) {
+            stats.unreadUpdates.increment();
+        } else if (Constants.CMD_ROOMLIST.equals(response.getCommand()) && data instanceof RoomListUpdate update
+                && privateChatId != null && update.getUpserts().containsKey(privateChatId)) {
+            onPrivateChatOpened();
+        }
+    }
+
+    private void onMessage(Message msg) {
+        String content = msg.getContent();
+        if (content == null || msg.getSender() == null || phone.equals(msg.getSender().getPhoneNumber())) {
+            return;
+        }
+        boolean isImage = content.startsWith(IMAGE_MARKER);
+        if (!isImage && !content.startsWith(TEXT_MARKER)) {
+            return;
+        }
+        int start = isImage ? IMAGE_MARKER.length() : TEXT_MARKER.length();
+        int end = content.indexOf('|', start);
+        if (end < 0) {
+            return;
+        }
+        long latency = System.nanoTime() - Long.parseLong(content.substring(start, end));
+        stats.delivered.increment();
+        (isImage ? stats.imageDelivery : stats.textDelivery).recordNanos(latency);
+    }
+
+    /**
+     * Berhenti mengirim pesan baru; koneksi tetap terbuka supaya pesan yang masih di jalan sempat diterima.
+     */
+    void stopSending() {
+        running = false;
+        checkReconnects();
+    }
+
+    void shutdown() {
+        running = false;
+        client.shutdown();
+    }
+}
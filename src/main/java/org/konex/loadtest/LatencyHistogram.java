@@ -0,0 +1,105 @@
+package org.konex.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram latensi lock-free dalam mikrodetik. Setiap rentang pangkat dua dibagi 16 bucket, jadi persentil yang
+ * dilaporkan paling banyak meleset sekitar 6% dan memori tetap kecil berapa pun jumlah sampelnya.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+    private static final int BUCKETS = SUB_BUCKETS * 60;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sumMicros.add(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, SUB_BUCKETS * (exponent - SUB_BITS + 1) + sub);
+    }
+
+    /**
+     * Batas atas rentang nilai sebuah bucket.
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    long count() {
+        return total.sum();
+    }
+
+    long maxMicros() {
+        return maxMicros.get();
+    }
+
+    double meanMicros() {
+        long n = count();
+        return n == 0 ? 0 : (double) sumMicros.sum() / n;
+    }
+
+    /**
+     * @param quantile antara 0 dan 1, mis. 0.99 untuk p99
+     */
+    long percentileMicros(double quantile) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxMicros());
+            }
+        }
+        return maxMicros();
+    }
+
+    String summary() {
+        if (count() == 0) {
+            return "n=0";
+        }
+        return String.format("n=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s", count(),
+                format((long) meanMicros()), format(percentileMicros(0.50)), format(percentileMicros(0.90)),
+                format(percentileMicros(0.99)), format(percentileMicros(0.999)), format(maxMicros()));
+    }
+
+    static String format(long micros) {
+        if (micros < 1000) {
+            return micros + "us";
+        }
+        if (micros < 1_000_000) {
+            return String.format("%.1fms", micros / 1000.0);
+        }
+        return String.format("%.2fs", micros / 1_000_000.0);
+    }
+}
@@ -0,0 +1,99 @@
+package org.konex.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Konfigurasi satu putaran load test, dibaca dari argumen {@code --nama=nilai}.
+ *
+ * @param server          {@code none} untuk server yang sudah berjalan, atau {@code memory} / {@code embedded}
+ *                        untuk menyalakan {@code ServerApp} di proses ini dengan store lokal
+ * @param rate            pesan per detik per user (rata-rata, kedatangan Poisson)
+ * @param globalShare     porsi pesan yang dikirim ke global room; sisanya ke private chat pasangan bot
+ * @param viewPrivate     bot membuka private chat-nya, sehingga pesan global hanya sampai sebagai jumlah belum dibaca
+ * @param imageEvery      setiap pesan ke-N berupa gambar; 0 berarti tidak ada gambar
+ * @param reconnectEvery  rata-rata detik antar pemutusan koneksi paksa; 0 berarti tidak pernah
+ */
+record LoadScenario(String host, int port, String server, int users, int rampUpSeconds, int durationSeconds,
+                    double rate, double globalShare, boolean viewPrivate, int imageKb, int imageEvery,
+                    int reconnectEvery, int reportEvery, String password) {
+
+    static final String USAGE = """
+            Usage: LoadTestApp [--nama=nilai ...]
+              --host=localhost         alamat server
+              --port=12345             port server
+              --server=none            none | memory | embedded (nyalakan ServerApp di proses ini)
+              --users=100              jumlah user simulasi
+              --ramp-up=10             detik untuk menyalakan semua user
+              --duration=60            detik pengiriman pesan setelah ramp-up
+              --rate=0.5               pesan per detik per user
+              --global-share=0.2       porsi pesan ke global room (0..1)
+              --view=global            room yang dibuka bot: global | private
+              --image-kb=0             ukuran gambar yang dikirim
+              --image-every=0          setiap pesan ke-N berupa gambar (0 = tidak pernah)
+              --reconnect-every=0      rata-rata detik antar pemutusan koneksi paksa (0 = tidak pernah)
+              --report-every=5         interval laporan dalam detik
+              --password=loadtest      password semua user simulasi
+            """;
+
+    private static final Set<String> KEYS = Set.of("host", "port", "server", "users", "ramp-up", "duration", "rate",
+            "global-share", "view", "image-kb", "image-every", "reconnect-every", "report-every", "password");
+
+    static LoadScenario parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0 || !KEYS.contains(arg.substring(2, eq))) {
+                throw new IllegalArgumentException("Argumen tidak dikenal: " + arg);
+            }
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String server = values.getOrDefault("server", "none");
+        if (!Set.of("none", "memory", "embedded").contains(server)) {
+            throw new IllegalArgumentException("--server harus none, memory, atau embedded");
+        }
+        String view = values.getOrDefault("view", "global");
+        if (!Set.of("global", "private").contains(view)) {
+            throw new IllegalArgumentException("--view harus global atau private");
+        }
+
+        LoadScenario scenario = new LoadScenario(
+                values.getOrDefault("host", "localhost"),
+                Integer.parseInt(values.getOrDefault("port", "12345")),
+                server,
+                Integer.parseInt(values.getOrDefault("users", "100")),
+                Integer.parseInt(values.getOrDefault("ramp-up", "10")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Double.parseDouble(values.getOrDefault("rate", "0.5")),
+                Double.parseDouble(values.getOrDefault("global-share", "0.2")),
+                "private".equals(view),
+                Integer.parseInt(values.getOrDefault("image-kb", "0")),
+                Integer.parseInt(values.getOrDefault("image-every", "0")),
+                Integer.parseInt(values.getOrDefault("reconnect-every", "0")),
+                Integer.parseInt(values.getOrDefault("report-every", "5")),
+                values.getOrDefault("password", "loadtest"));
+        scenario.validate();
+        return scenario;
+    }
+
+    private void validate() {
+        if (users <= 0 || durationSeconds <= 0 || reportEvery <= 0 || rampUpSeconds < 0) {
+            throw new IllegalArgumentException("users, duration, dan report-every harus positif");
+        }
+        if (rate < 0 || globalShare < 0 || globalShare > 1) {
+            throw new IllegalArgumentException("rate tidak boleh negatif dan global-share harus 0..1");
+        }
+        if (imageEvery < 0 || imageKb < 0 || reconnectEvery < 0) {
+            throw new IllegalArgumentException("image-every, image-kb, dan reconnect-every tidak boleh negatif");
+        }
+        if (imageEvery > 0 && imageKb == 0) {
+            throw new IllegalArgumentException("--image-every membutuhkan --image-kb");
+        }
+    }
+
+    boolean embeddedServer() {
+        return !"none".equals(server);
+    }
+}
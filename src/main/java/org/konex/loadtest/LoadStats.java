@@ -0,0 +1,49 @@
+package org.konex.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Penghitung bersama semua bot: throughput, histogram latensi, dan error per jenis.
+ */
+final class LoadStats {
+    final LongAdder loggedIn = new LongAdder();
+    final LongAdder textsSent = new LongAdder();
+    final LongAdder imagesSent = new LongAdder();
+    final LongAdder acked = new LongAdder();
+    final LongAdder delivered = new LongAdder();
+    final LongAdder unreadUpdates = new LongAdder();
+    final LongAdder drops = new LongAdder();
+    final LongAdder reconnects = new LongAdder();
+
+    // kirim -> ACK dari server
+    final LatencyHistogram ackLatency = new LatencyHistogram();
+    // kirim -> diterima bot lain, untuk pesan teks dan pesan gambar (termasuk upload)
+    final LatencyHistogram textDelivery = new LatencyHistogram();
+    final LatencyHistogram imageDelivery = new LatencyHistogram();
+    final LatencyHistogram loginLatency = new LatencyHistogram();
+    // koneksi putus -> login ulang berhasil
+    final LatencyHistogram outage = new LatencyHistogram();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void error(String kind) {
+        errors.computeIfAbsent(kind, _ -> new LongAdder()).increment();
+    }
+
+    long errorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    Map<String, Long> errorsByKind() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((kind, count) -> result.put(kind, count.sum()));
+        return result;
+    }
+
+    long sent() {
+        return textsSent.sum() + imagesSent.sum();
+    }
+}
@@ -0,0 +1,194 @@
+package org.konex.loadtest;
+
+import org.konex.server.core.ServerApp;
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.StoreType;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Load generator tanpa JavaFX: menyalakan sejumlah {@link Bot} yang masing-masing memakai {@code SocketClient}
+ * sendiri, lalu melaporkan throughput, histogram latensi, dan error secara berkala.
+ * <p>
+ * Contoh: {@code LoadTestApp --server=memory --users=1000 --rate=1 --image-kb=64 --image-every=20}
+ */
+public final class LoadTestApp {
+    private static final long SERVER_START_TIMEOUT_MS = 30_000;
+    private static final long DRAIN_SECONDS = 5;
+    // disimpan di field supaya level-nya tidak hilang saat logger dibersihkan GC
+    private static final Logger KONEX_LOGGER = Logger.getLogger("org.konex");
+
+    private final LoadScenario scenario;
+    private final LoadStats stats = new LoadStats();
+    private final List<Bot> bots = new ArrayList<>();
+    private final ScheduledExecutorService ticker =
+            Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private ServerApp server;
+
+    private LoadTestApp(LoadScenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadScenario scenario;
+        try {
+            scenario = LoadScenario.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadScenario.USAGE);
+            System.exit(2);
+            return;
+        }
+        // log per koneksi dari client dan server akan menenggelamkan laporan
+        KONEX_LOGGER.setLevel(Level.WARNING);
+
+        new LoadTestApp(scenario).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        if (scenario.embeddedServer()) {
+            startServer();
+        }
+        Path image = scenario.imageKb() > 0 ? createImage(scenario.imageKb()) : null;
+
+        System.out.printf("Load test: %d user, ramp-up %ds, durasi %ds, %.2f pesan/detik/user, view=%s%n",
+                scenario.users(), scenario.rampUpSeconds(), scenario.durationSeconds(), scenario.rate(),
+                scenario.viewPrivate() ? "private" : "global");
+
+        long startedAt = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long[] previous = new long[2];
+        reporter.scheduleAtFixedRate(() -> report(startedAt, previous),
+                scenario.reportEvery(), scenario.reportEvery(), TimeUnit.SECONDS);
+
+        startBots(image);
+        TimeUnit.SECONDS.sleep(scenario.durationSeconds());
+
+        bots.forEach(Bot::stopSending);
+        TimeUnit.SECONDS.sleep(DRAIN_SECONDS);
+        reporter.shutdownNow();
+
+        printSummary(System.nanoTime() - startedAt);
+
+        bots.forEach(Bot::shutdown);
+        ticker.shutdownNow();
+        if (server != null) {
+            server.stop();
+        }
+        if (image != null) {
+            Files.deleteIfExists(image);
+        }
+    }
+
+    private void startServer() throws InterruptedException {
+        StoreProvider.init("embedded".equals(scenario.server()) ? StoreType.EMBEDDED : StoreType.MEMORY);
+        server = new ServerApp(scenario.port());
+        Thread.ofPlatform().name("loadtest-server").daemon().start(server::start);
+
+        long deadline = System.currentTimeMillis() + SERVER_START_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress(scenario.host(), scenario.port()), 500);
+                return;
+            } catch (IOException _) {
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server tidak siap di port " + scenario.port());
+    }
+
+    /**
+     * Menyebar start bot merata sepanjang ramp-up supaya login tidak datang sekaligus.
+     */
+    private void startBots(Path image) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(scenario.rampUpSeconds()) / scenario.users();
+        long begin = System.nanoTime();
+        for (int i = 0; i < scenario.users(); i++) {
+            long wait = begin + i * intervalNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            Bot bot = new Bot(i, scenario, stats, ticker, image);
+            bots.add(bot);
+            bot.start();
+        }
+    }
+
+    private void report(long startedAt, long[] previous) {
+        long sent = stats.sent();
+        long delivered = stats.delivered.sum();
+        double seconds = scenario.reportEvery();
+        System.out.printf("[%4ds] user=%d kirim=%.0f/s terima=%.0f/s ack p99=%s kirim->terima p50=%s p99=%s "
+                        + "error=%d reconnect=%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt), stats.loggedIn.sum(),
+                (sent - previous[0]) / seconds, (delivered - previous[1]) / seconds,
+                LatencyHistogram.format(stats.ackLatency.percentileMicros(0.99)),
+                LatencyHistogram.format(stats.textDelivery.percentileMicros(0.50)),
+                LatencyHistogram.format(stats.textDelivery.percentileMicros(0.99)),
+                stats.errorCount(), stats.reconnects.sum());
+        previous[0] = sent;
+        previous[1] = delivered;
+    }
+
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("=== Ringkasan ===");
+        System.out.printf("Login          : %d dari %d user%n", stats.loggedIn.sum(), scenario.users());
+        System.out.printf("Terkirim       : %d teks, %d gambar (%.1f pesan/detik)%n",
+                stats.textsSent.sum(), stats.imagesSent.sum(), stats.sent() / seconds);
+        System.out.printf("ACK            : %d%n", stats.acked.sum());
+        System.out.printf("Diterima       : %d pesan (%.1f/detik), %d update belum dibaca%n",
+                stats.delivered.sum(), stats.delivered.sum() / seconds, stats.unreadUpdates.sum());
+        System.out.printf("Putus/sambung  : %d diputus, %d tersambung lagi%n",
+                stats.drops.sum(), stats.reconnects.sum());
+        System.out.println("Latensi login        : " + stats.loginLatency.summary());
+        System.out.println("Latensi ACK          : " + stats.ackLatency.summary());
+        System.out.println("Kirim->terima teks   : " + stats.textDelivery.summary());
+        System.out.println("Kirim->terima gambar : " + stats.imageDelivery.summary());
+        System.out.println("Lama terputus        : " + stats.outage.summary());
+        if (stats.errorCount() == 0) {
+            System.out.println("Error          : -");
+        } else {
+            System.out.println("Error          :");
+            stats.errorsByKind().forEach((kind, count) -> System.out.printf("  %6d  %s%n", count, kind));
+        }
+    }
+
+    /**
+     * Gambar PNG berisi noise acak, sehingga ukuran file kira-kira sesuai permintaan (noise tidak terkompresi).
+     */
+    private static Path createImage(int kb) {
+        int side = Math.max(8, (int) Math.sqrt(kb * 1024.0 / 3));
+        BufferedImage img = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                img.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        try {
+            Path file = Files.createTempFile("konex-loadtest", ".png");
+            ImageIO.write(img, "png", file.toFile());
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.konex.server.auth;
+
+import org.konex.common.model.User;
+
+/**
+ * Hasil login. {@code user} hanya terisi jika berhasil dan tidak pernah membawa password.
+ * {@code busy} menandai kegagalan karena server kewalahan, bukan karena kredensial salah.
+ */
+public record AuthResult(boolean success, User user, String message, boolean busy) {
+    public static AuthResult success(User user) {
+        return new AuthResult(true, user, "Login Sukses", false);
+    }
+
+    public static AuthResult failed(String message) {
+        return new AuthResult(false, null, message, false);
+    }
+
+    public static AuthResult busy(String message) {
+        return new AuthResult(false, null, message, true);
+    }
+}
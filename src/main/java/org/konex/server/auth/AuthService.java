@@ -0,0 +1,222 @@
+package org.konex.server.auth;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.konex.common.model.User;
+import org.konex.server.service.Avatars;
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.UserStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Memproses login dan registrasi di thread pool tersendiri yang ukurannya dan antreannya dibatasi.
+ * <p>
+ * Saat banyak client reconnect bersamaan, permintaan yang tidak muat di antrean langsung ditolak dengan pesan
+ * "server sibuk" sehingga hashing password dan query user tidak menghabiskan CPU dan koneksi database yang
+ * dibutuhkan untuk routing pesan. Login ulang dengan password yang baru saja terverifikasi dilayani dari cache
+ * berumur pendek tanpa hashing maupun query.
+ */
+@SuppressWarnings("java:S6548")
+public final class AuthService implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(AuthService.class.getName());
+    private static final String BUSY = "Server sedang sibuk, silakan coba lagi sebentar.";
+    private static final int CACHE_CAPACITY = 10_000;
+
+    private final Supplier<UserStore> store;
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long cacheTtlMillis;
+    // kunci acak per proses supaya digest di cache tidak berguna di luar server ini
+    private final byte[] cacheKey = new byte[32];
+    private final Map<String, CachedCredential> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record CachedCredential(byte[] digest, User user, long expiresAt) {
+    }
+
+    public AuthService(Supplier<UserStore> store, PasswordHasher hasher, int threads, int queueSize,
+                       long timeoutMillis, long cacheTtlMillis) {
+        this.store = store;
+        this.hasher = hasher;
+        this.timeoutMillis = timeoutMillis;
+        this.cacheTtlMillis = cacheTtlMillis;
+        new SecureRandom().nextBytes(cacheKey);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), task -> {
+                    Thread thread = new Thread(task, "auth-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static final class InstanceHolder {
+        private static final AuthService INSTANCE = fromEnv();
+    }
+
+    public static AuthService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static AuthService fromEnv() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        int defaultThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        return new AuthService(() -> StoreProvider.getInstance().getUserStore(),
+                new PasswordHasher(Integer.parseInt(dotenv.get("PASSWORD_HASH_ITERATIONS", "210000"))),
+                Integer.parseInt(dotenv.get("AUTH_THREADS", String.valueOf(defaultThreads))),
+                Integer.parseInt(dotenv.get("AUTH_QUEUE_SIZE", "64")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(dotenv.get("AUTH_TIMEOUT_SECONDS", "10"))),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(dotenv.get("AUTH_CACHE_SECONDS", "300"))));
+    }
+
+    /**
+     * Login, atau registrasi jika nomor HP belum terdaftar. Memblokir thread pemanggil sampai selesai,
+     * atau langsung gagal jika antrean autentikasi penuh.
+     */
+    public AuthResult authenticate(User request, String password) {
+        Future<AuthResult> result;
+        try {
+            result = executor.submit(() -> login(request, password));
+        } catch (RejectedExecutionException _) {
+            LOGGER.warning(() -> "Auth queue full, rejecting login of " + request.getPhoneNumber());
+            return AuthResult.busy(BUSY);
+        }
+
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException _) {
+            result.cancel(true);
+            return AuthResult.busy(BUSY);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return AuthResult.busy(BUSY);
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.SEVERE, "Login failed for " + request.getPhoneNumber(), e.getCause());
+            return AuthResult.failed("Terjadi kesalahan di server.");
+        }
+    }
+
+    private AuthResult login(User request, String password) {
+        String phone = request.getPhoneNumber();
+        if (phone == null || phone.isBlank() || password == null || password.isEmpty()) {
+            return AuthResult.failed("Nomor HP dan password wajib diisi.");
+        }
+
+        byte[] newImage = request.getProfileImage();
+        boolean updateProfile = newImage != null && newImage.length > 0;
+        byte[] digest = digest(phone, password);
+
+        User cached = cachedUser(phone, digest);
+        if (cached != null && !updateProfile) {
+            return AuthResult.success(cached);
+        }
+
+        User stored = store.get().findByPhone(phone);
+        if (stored == null) {
+            return register(request, password, digest);
+        }
+        if (cached == null && !hasher.verify(password, stored.getPassword())) {
+            return AuthResult.failed("Password Salah!");
+        }
+
+        boolean changed = false;
+        if (hasher.needsRehash(stored.getPassword())) {
+            stored.setPassword(hasher.hash(password));
+            changed = true;
+        }
+        if (updateProfile) {
+            stored.setName(request.getName());
+            stored.setProfileImage(newImage);
+            stored.setAvatarHash(Avatars.hash(newImage));
+            changed = true;
+        } else if (stored.getAvatarHash() == null && stored.getProfileImage() != null) {
+            // user lama yang fotonya disimpan sebelum ada hash avatar
+            stored.setAvatarHash(Avatars.hash(stored.getProfileImage()));
+            changed = true;
+        }
+        if (changed) {
+            store.get().save(stored);
+        }
+
+        User user = Avatars.reference(stored);
+        remember(phone, digest, user);
+        return AuthResult.success(user);
+    }
+
+    private AuthResult register(User request, String password, byte[] digest) {
+        User toSave = new User(request.getUserId(), request.getName(), request.getPhoneNumber(),
+                request.getProfileImage(), hasher.hash(password));
+        toSave.setAvatarHash(Avatars.hash(request.getProfileImage()));
+        store.get().save(toSave);
+        User user = Avatars.reference(toSave);
+
+        remember(request.getPhoneNumber(), digest, user);
+        LOGGER.info(() -> "New User Registered: " + request.getName());
+        return AuthResult.success(user);
+    }
+
+    private User cachedUser(String phone, byte[] digest) {
+        synchronized (cache) {
+            CachedCredential entry = cache.get(phone);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                cache.remove(phone);
+                return null;
+            }
+            return MessageDigest.isEqual(entry.digest(), digest) ? Avatars.reference(entry.user()) : null;
+        }
+    }
+
+    private void remember(String phone, byte[] digest, User user) {
+        synchronized (cache) {
+            cache.put(phone, new CachedCredential(digest, user, System.currentTimeMillis() + cacheTtlMillis));
+            if (cache.size() > CACHE_CAPACITY) {
+                cache.remove(cache.keySet().iterator().next());
+            }
+        }
+    }
+
+    private byte[] digest(String phone, String password) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(cacheKey);
+            sha.update(phone.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(password.getBytes(StandardCharsets.UTF_8));
+            return sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Jumlah permintaan yang sedang menunggu thread autentikasi.
+     */
+    int queuedRequests() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
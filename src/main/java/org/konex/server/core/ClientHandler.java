@@ -1,28 +1,35 @@
 package org.konex.server.core;
 
-import com.mongodb.client.FindIterable;
-import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.Sorts;
-import com.mongodb.client.model.UpdateOptions;
-import org.bson.Document;
 import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatRoom;
 import org.konex.common.model.*;
-import org.konex.server.database.DatabaseManager;
+import org.konex.server.auth.AuthResult;
+import org.konex.server.auth.AuthService;
 import org.konex.server.entity.GroupChat;
 import org.konex.server.entity.GroupProxy;
 import org.konex.server.entity.PrivateChat;
+import org.konex.server.search.SearchIndex;
+import org.konex.server.service.Avatars;
 import org.konex.server.service.ChatRoomService;
+import org.konex.server.service.MediaUploadService;
+import org.konex.server.service.UnreadTracker;
+import org.konex.server.store.MessageStore;
+import org.konex.server.store.StoreProvider;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
-import java.util.Collection;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,15 +38,22 @@ public class ClientHandler implements Runnable {
 
     // SESSION MANAGER: Key = No HP, Value = ClientHandler
     private static final Map<String, ClientHandler> SESSIONS = new ConcurrentHashMap<>();
+    private static final int SEARCH_PAGE_SIZE = 20;
+    private static final int MEMBER_PAGE_SIZE = 50;
+    private static final MessageDeduplicator DEDUPLICATOR =
+            new MessageDeduplicator(TimeUnit.MINUTES.toMillis(10), 100_000);
 
     private final Socket socket;
     private ObjectInputStream input;
     private ObjectOutputStream output;
     private volatile boolean running = true;
     private User currentUser;
-
-    private static final String FIELD_CHAT_ID = "chatId";
-    private static final String FIELD_TIMESTAMP = "timestamp";
+    // room yang sedang dibuka client; pesan room lain cukup dikirim sebagai jumlah belum dibaca
+    private volatile String viewingChatId;
+    // versi daftar room yang terakhir dikirim ke sesi ini; mulai dari 0 lagi di setiap koneksi
+    private long roomListVersion;
+    // delta hanya berarti jika sesi ini sudah pernah mengirim daftar lengkap
+    private boolean roomListSent;
 
     public ClientHandler(Socket socket) {
         this.socket = socket;
@@ -49,9 +63,7 @@ public class ClientHandler implements Runnable {
     @Override
     public void run() {
         try {
-            output = new ObjectOutputStream(socket.getOutputStream());
-            output.flush();
-            input = new ObjectInputStream(socket.getInputStream());
+            open();
 
             LOGGER.info(() -> "Client connected: " + socket.getRemoteSocketAddress());
 
@@ -65,29 +77,50 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    /**
+     * Membuka stream objek. Dipisah dari {@link #run()} supaya benchmark bisa memakai socket palsu di memori.
+     */
+    void open() throws IOException {
+        output = new ObjectOutputStream(socket.getOutputStream());
+        output.flush();
+        input = new ObjectInputStream(socket.getInputStream());
+    }
+
     private void listenLoop() throws IOException, ClassNotFoundException {
         while (running && !socket.isClosed()) {
-            Object payload = input.readObject();
-            if (payload instanceof Message message) {
-                handleMessage(message);
-            }
+            dispatch(input.readObject());
+        }
+    }
+
+    void dispatch(Object payload) {
+        if (payload instanceof Message message) {
+            handleMessage(message);
+        } else if (payload instanceof MediaChunk chunk) {
+            handleUploadChunk(chunk);
         }
     }
 
     private void handleMessage(Message message) {
         String content = message.getContent();
 
-        if (content == null) {
-            routeMessage(message);
+        if (content != null && content.startsWith("AUTH_REQUEST:")) {
+            handleAuthRequest(message);
             return;
         }
 
-        if (content.startsWith("AUTH_REQUEST:")) {
-            handleAuthRequest(message);
+        // identitas hanya dari AUTH_REQUEST; pengirim di dalam pesan diisi client dan tidak bisa dipercaya.
+        // Foto profil tidak ikut disebarkan bersama pesan; client lain mengambilnya lewat REQ_AVATAR
+        if (!requireLogin()) {
             return;
         }
+        message.setSender(Avatars.reference(currentUser));
 
-        if ("JOINED".equals(content)) {
+        if (content == null) {
+            routeMessage(message);
+            return;
+        }
+
+        if ("JOINED".equals(content) || content.startsWith("JOINED:")) {
             handleJoin(message);
             return;
         }
@@ -107,96 +140,96 @@ public class ClientHandler implements Runnable {
             return;
         }
 
+        if (content.startsWith("/invite")) {
+            handleInviteCommand(message);
+            return;
+        }
+
         if (content.startsWith("REQ_PRIVATE:")) {
             handlePrivateChatRequest(message);
             return;
         }
 
-        routeMessage(message);
-    }
-
-    private void handleAuthRequest(Message msg) {
-        // format: "AUTH_REQUEST:password"
-        String content = msg.getContent();
-        String passwordInput = content.substring("AUTH_REQUEST:".length());
-
-        User requestUser = msg.getSender();
-        String phone = requestUser.getPhoneNumber();
-
-        Document userDoc = DatabaseManager.getInstance().getCollection(Constants.COLLECTION_USERS)
-                .find(Filters.eq(Constants.FIELD_PHONE_NUMBER, phone))
-                .first();
+        if (content.startsWith("SEARCH:")) {
+            handleSearchRequest(message);
+            return;
+        }
 
-        if (userDoc == null) {
-            handleNewUserRegistration(requestUser, passwordInput, phone);
-        } else {
-            handleExistingUserLogin(userDoc, requestUser, passwordInput, phone);
+        if (content.startsWith("REQ_MEMBERS:")) {
+            handleMemberListRequest(message);
+            return;
         }
-    }
 
-    private void handleNewUserRegistration(User requestUser, String passwordInput, String phone) {
-        requestUser.setPassword(passwordInput);
-        saveUserToDB(requestUser);
+        if (content.startsWith("REQ_MEDIA:")) {
+            handleMediaRequest(message);
+            return;
+        }
 
-        this.currentUser = requestUser;
-        SESSIONS.put(phone, this);
+        if (content.startsWith("REQ_AVATAR:")) {
+            handleAvatarRequest(message);
+            return;
+        }
 
-        LOGGER.info("New User Registered: " + requestUser.getName());
-        sendResponse(Response.success("LOGIN_SUCCESS", requestUser));
+        routeMessage(message);
     }
 
-    private void handleExistingUserLogin(Document userDoc, User requestUser, String passwordInput, String phone) {
-        String dbPassword = userDoc.getString(Constants.FIELD_PASSWORD);
-
-        if (dbPassword != null && dbPassword.equals(passwordInput)) {
-            String newImage = requestUser.getProfileImage();
-
-            if (newImage != null && !newImage.isEmpty()) {
-                requestUser.setPassword(passwordInput);
-                saveUserToDB(requestUser);
-
-                this.currentUser = requestUser;
-            } else {
-                User dbUser = new User();
-                dbUser.setPhoneNumber(phone);
-                dbUser.setName(userDoc.getString(Constants.FIELD_NAME));
-                dbUser.setProfileImage(userDoc.getString(Constants.FIELD_PROFILE_IMAGE));
-                dbUser.setPassword(dbPassword);
-
-                this.currentUser = dbUser;
-            }
+    private void handleAuthRequest(Message msg) {
+        // format: "AUTH_REQUEST:password"
+        String content = msg.getContent();
+        String passwordInput = content.substring("AUTH_REQUEST:".length());
+        String phone = msg.getSender().getPhoneNumber();
 
+        AuthResult result = AuthService.getInstance().authenticate(msg.getSender(), passwordInput);
+        if (result.success()) {
+            this.currentUser = result.user();
             SESSIONS.put(phone, this);
 
             LOGGER.info(() -> "User Logged In: " + this.currentUser.getName());
             sendResponse(Response.success("LOGIN_SUCCESS", this.currentUser));
         } else {
-            LOGGER.warning(() -> "Login Failed (Wrong Password): " + phone);
-            sendResponse(Response.error("LOGIN_FAILED", "Password Salah!"));
+            LOGGER.warning(() -> "Login Failed: " + phone + " (" + result.message() + ")");
+            sendResponse(Response.error(result.busy() ? Constants.CMD_LOGIN_BUSY : "LOGIN_FAILED", result.message()));
         }
     }
 
     private void handleJoin(Message msg) {
-        this.currentUser = msg.getSender();
+        // format: "JOINED" atau "JOINED:afterSeq" jika client sudah punya riwayat sampai seq tersebut
+        long afterSeq = 0;
+        String content = msg.getContent();
+        if (content.startsWith("JOINED:")) {
+            try {
+                afterSeq = Math.max(0, Long.parseLong(content.substring("JOINED:".length())));
+            } catch (NumberFormatException _) {
+                // kirim riwayat lengkap
+            }
+            msg.setContent("JOINED");
+        }
 
         SESSIONS.put(currentUser.getPhoneNumber(), this);
 
-        saveUserToDB(currentUser);
-
-        ChatRoom globalRoom = ChatRoomService.getInstance().getRoom(msg.getChatId());
-        if (globalRoom instanceof GroupChat group) {
-            group.inviteMember(currentUser);
+        // setelah login ulang client hanya mengirim ulang JOINED, padahal room bisa bertambah atau hilang
+        // selama ia offline; daftar lengkap dan jumlah belum dibaca disusulkan di sini
+        if (!isRoomListSent()) {
+            handleRoomRequest();
+        }
 
-            if (!group.getId().equals(Constants.GLOBAL_ROOM_CHAT_ID)) {
-                ChatRoomService.getInstance().saveGroup(group);
-            }
+        ChatRoomService service = ChatRoomService.getInstance();
+        ChatRoom room = service.getRoom(msg.getChatId());
+        if (Constants.GLOBAL_ROOM_CHAT_ID.equals(msg.getChatId()) && room instanceof GroupChat group) {
+            service.addMember(group, currentUser);
 
             LOGGER.info("User " + currentUser.getName() + " joined & saved to group: " + group.getName());
+        } else if (room == null || !service.canAccess(room, currentUser)) {
+            // grup lain hanya bisa dimasuki lewat /invite, bukan sekadar mengetahui ID-nya
+            sendResponse(Response.error(Constants.CMD_ERROR, "Anda bukan anggota room ini."));
+            return;
         }
 
         broadcastNotificationToAll(msg);
 
-        loadAndSendHistory(msg.getChatId());
+        viewingChatId = msg.getChatId();
+        UnreadTracker.getInstance().markAllRead(currentUser.getPhoneNumber(), msg.getChatId());
+        loadAndSendHistory(msg.getChatId(), afterSeq);
 
         LOGGER.info("User registered in session: " + currentUser.getName());
     }
@@ -207,48 +240,90 @@ public class ClientHandler implements Runnable {
 
         if (groupName.isEmpty()) return;
 
-        ChatRoomService.getInstance().createNewGroup(groupName, msg.getSender());
+        GroupChat group = ChatRoomService.getInstance().createNewGroup(groupName, Avatars.reference(currentUser));
 
-        LOGGER.info(() -> "New group created: " + groupName + " by " + msg.getSender().getName());
+        LOGGER.info(() -> "New group created: " + groupName + " by " + currentUser.getName());
 
-        broadcastRoomListUpdate();
+        // anggota grup baru hanya pembuatnya; user lain mendapat delta saat di-/invite
+        sendRoomAdded(group);
     }
 
     private void handleRoomRequest() {
-        String payload = generateRoomListPayload();
-        Response<String> response = Response.success("ROOMLIST", payload);
+        sendRoomListSnapshot();
+        sendUnreadCounts();
+    }
 
-        sendResponse(response);
+    private void sendUnreadCounts() {
+        if (currentUser == null) {
+            return;
+        }
+        ChatRoomService service = ChatRoomService.getInstance();
+        List<String> chatIds = new ArrayList<>();
+        for (ChatRoom room : service.getRoomsOf(currentUser.getPhoneNumber())) {
+            if (!room.getId().equals(viewingChatId) && service.canAccess(room, currentUser)) {
+                chatIds.add(room.getId());
+            }
+        }
+        Map<String, Integer> counts = UnreadTracker.getInstance().unreadCounts(currentUser.getPhoneNumber(), chatIds);
+        sendResponse(Response.success(Constants.CMD_UNREAD, new UnreadUpdate(counts)));
     }
 
     /**
-     * Generate String: "ROOMLIST:id:name,id:name"
+     * Daftar room lengkap untuk user ini. Dikunci bersama pengiriman delta supaya versinya tidak tertukar.
      */
-    private String generateRoomListPayload() {
-        StringBuilder sb = new StringBuilder("ROOMLIST:");
-        Collection<ChatRoom> rooms = ChatRoomService.getInstance().getAllRooms();
-
-        boolean first = true;
-        for (ChatRoom room : rooms) {
-            String entry = getRoomEntry(room);
-            if (entry != null) {
-                if (!first) sb.append(",");
-                sb.append(entry);
-                first = false;
+    private synchronized void sendRoomListSnapshot() {
+        Map<String, String> rooms = new LinkedHashMap<>();
+        List<ChatRoom> userRooms = currentUser == null
+                ? List.of()
+                : ChatRoomService.getInstance().getRoomsOf(currentUser.getPhoneNumber());
+        for (ChatRoom room : userRooms) {
+            String label = roomLabel(room);
+            if (label != null) {
+                rooms.put(room.getId(), label);
             }
         }
-        return sb.toString();
+        sendResponse(Response.success(Constants.CMD_ROOMLIST, RoomListUpdate.snapshot(roomListVersion, rooms)));
+        roomListSent = true;
+    }
+
+    private synchronized boolean isRoomListSent() {
+        return roomListSent;
     }
 
-    private String getRoomEntry(ChatRoom room) {
+    /**
+     * Memberi tahu user ini tentang room baru (atau yang berganti nama) tanpa mengirim ulang seluruh daftar.
+     */
+    private void sendRoomAdded(ChatRoom room) {
+        if (currentUser == null) {
+            return;
+        }
+        String label = roomLabel(room);
+        if (label != null) {
+            sendRoomListDelta(Map.of(room.getId(), label), List.of());
+        }
+    }
+
+    private void sendRoomRemoved(String chatId) {
+        sendRoomListDelta(Map.of(), List.of(chatId));
+    }
+
+    private synchronized void sendRoomListDelta(Map<String, String> upserts, List<String> removed) {
+        RoomListUpdate delta = RoomListUpdate.delta(roomListVersion++, upserts, removed);
+        sendResponse(Response.success(Constants.CMD_ROOMLIST, delta));
+    }
+
+    /**
+     * Nama room di sidebar user ini, atau null jika room tidak untuknya.
+     */
+    private String roomLabel(ChatRoom room) {
         if (room instanceof GroupChat group) {
-            return group.getId() + ":" + group.getName();
+            return group.getName();
         }
 
         if (room instanceof PrivateChat pc) {
             User other = getOtherParticipant(pc);
             if (other != null) {
-                return pc.getId() + ":" + other.getName();
+                return other.getName();
             }
         }
         return null;
@@ -264,36 +339,23 @@ public class ClientHandler implements Runnable {
         return null;
     }
 
-    private void broadcastRoomListUpdate() {
-        String payload = generateRoomListPayload();
-        Response<String> response = Response.success("ROOMLIST", payload);
-
-        for (ClientHandler client : SESSIONS.values()) {
-            client.sendResponse(response);
-        }
-    }
-
     private void handlePrivateChatRequest(Message msg) {
         String targetPhone = msg.getContent().substring("REQ_PRIVATE:".length());
 
-        Document targetDoc = DatabaseManager.getInstance().getCollection(Constants.COLLECTION_USERS)
-                .find(Filters.eq(Constants.FIELD_PHONE_NUMBER, targetPhone)).first();
+        User targetDoc = StoreProvider.getInstance().getUserStore().findByPhone(targetPhone);
 
         if (targetDoc == null) return;
 
-        User targetUser = new User();
-        targetUser.setPhoneNumber(targetDoc.getString(Constants.FIELD_PHONE_NUMBER));
-        targetUser.setName(targetDoc.getString(Constants.FIELD_NAME));
-        targetUser.setProfileImage(targetDoc.getString(Constants.FIELD_PROFILE_IMAGE));
+        User targetUser = Avatars.reference(targetDoc);
 
-        ChatRoom room = ChatRoomService.getInstance().getOrCreatePrivateChat(msg.getSender(), targetUser);
+        ChatRoom room = ChatRoomService.getInstance().getOrCreatePrivateChat(Avatars.reference(currentUser), targetUser);
 
-        // refresh sidebar (Requester & Target)
+        // hanya sidebar kedua peserta yang berubah
         ClientHandler targetSession = SESSIONS.get(targetPhone);
-        if (targetSession != null) {
-            targetSession.broadcastRoomListUpdate();
+        if (targetSession != null && targetSession != this) {
+            targetSession.sendRoomAdded(room);
         }
-        this.broadcastRoomListUpdate();
+        this.sendRoomAdded(room);
 
         // Format: "OPEN_PRIVATE:chatId:TargetName"
         String responsePayload = "OPEN_PRIVATE:" + room.getId() + ":" + targetUser.getName();
@@ -302,38 +364,259 @@ public class ClientHandler implements Runnable {
     }
 
     private void routeMessage(Message msg) {
-        saveToDatabase(msg);
-
         ChatRoom room = ChatRoomService.getInstance().getRoom(msg.getChatId());
 
         if (room == null) {
             LOGGER.warning(() -> "Room not found: " + msg.getChatId());
+            sendAck(msg, 0);
             return;
         }
 
-        if (room instanceof GroupChat group && !group.isMember(msg.getSender())) {
+        if (room instanceof GroupChat group && !group.isMember(currentUser)) {
             Response<String> errorResp = Response.error("ERROR", "Anda bukan anggota grup ini.");
             sendResponse(errorResp);
+            sendAck(msg, 0);
             return;
         }
 
+        String messageId = msg.getMessageId();
+        if (messageId != null && !DEDUPLICATOR.tryReserve(msg.getChatId(), messageId, System.currentTimeMillis())) {
+            // kiriman ulang: cukup ulangi ACK-nya; jika yang asli masih diproses, client akan mencoba lagi
+            long seq = DEDUPLICATOR.seqOf(msg.getChatId(), messageId);
+            if (seq != MessageDeduplicator.IN_FLIGHT) {
+                sendAck(msg, seq);
+            }
+            return;
+        }
+
+        // gambar yang sudah diunggah bertahap: pastikan upload itu milik pengirim dan belum dipakai pesan lain
+        String uploadedMediaId = msg instanceof ImageMessage imgMsg && imgMsg.getImageData() == null
+                ? imgMsg.getMediaId()
+                : null;
+        if (uploadedMediaId != null
+                && !MediaUploadService.getInstance().claim(currentUser.getPhoneNumber(), uploadedMediaId)) {
+            if (messageId != null) {
+                DEDUPLICATOR.release(msg.getChatId(), messageId);
+            }
+            sendResponse(Response.error(Constants.CMD_ERROR, "Gambar belum selesai diunggah."));
+            sendAck(msg, 0);
+            return;
+        }
+
+        if (!saveToDatabase(msg)) {
+            if (messageId != null) {
+                DEDUPLICATOR.release(msg.getChatId(), messageId);
+            }
+            if (uploadedMediaId != null) {
+                MediaUploadService.getInstance().unclaim(currentUser.getPhoneNumber(), uploadedMediaId);
+            }
+            return;
+        }
+        if (messageId != null) {
+            DEDUPLICATOR.complete(msg.getChatId(), messageId, msg.getSeq());
+        }
+
         room.sendMessage(msg);
+        SearchIndex.getInstance().submit(msg);
+        UnreadTracker.getInstance().messageStored(msg);
+        sendAck(msg, msg.getSeq());
 
         if (room instanceof GroupChat group) {
-            for (User member : group.getMembers()) {
-                sendToTarget(member.getPhoneNumber(), msg);
-            }
+            sendToMembers(group, msg);
         } else if (room instanceof PrivateChat privateChat) {
             sendToTarget(privateChat.getFirstParticipant().getPhoneNumber(), msg);
             sendToTarget(privateChat.getSecondParticipant().getPhoneNumber(), msg);
         }
     }
 
+    private void sendAck(Message msg, long seq) {
+        if (msg.getMessageId() != null) {
+            sendResponse(Response.success(Constants.CMD_ACK, new MessageAck(msg.getMessageId(), msg.getChatId(), seq)));
+        }
+    }
+
+    private void handleSearchRequest(Message msg) {
+        // Format: "SEARCH:halaman:kata kunci"; chatId "*" berarti semua room milik user
+        String[] parts = msg.getContent().split(":", 3);
+        if (parts.length < 3 || parts[2].isBlank()) {
+            sendResponse(Response.error(Constants.CMD_ERROR, "Format salah. Gunakan: /search [kata kunci]"));
+            return;
+        }
+
+        int page;
+        try {
+            page = Math.max(0, Integer.parseInt(parts[1]));
+        } catch (NumberFormatException _) {
+            page = 0;
+        }
+
+        ChatRoomService service = ChatRoomService.getInstance();
+        List<String> chatIds = new ArrayList<>();
+        if ("*".equals(msg.getChatId())) {
+            for (ChatRoom room : service.getRoomsOf(currentUser.getPhoneNumber())) {
+                if (service.canAccess(room, currentUser)) {
+                    chatIds.add(room.getId());
+                }
+            }
+        } else {
+            ChatRoom room = service.getRoom(msg.getChatId());
+            if (room == null || !service.canAccess(room, currentUser)) {
+                sendResponse(Response.error(Constants.CMD_ERROR, "Anda tidak punya akses ke room ini."));
+                return;
+            }
+            chatIds.add(room.getId());
+        }
+
+        SearchResult result = SearchIndex.getInstance().search(chatIds, parts[2].trim(), page, SEARCH_PAGE_SIZE);
+        sendResponse(Response.success(Constants.CMD_SEARCH_RESULT, result));
+    }
+
+    /**
+     * Mengirim ke anggota grup yang sedang online. Untuk grup besar, yang ditelusuri adalah daftar sesi
+     * (biasanya jauh lebih kecil) lalu dicek keanggotaannya.
+     */
+    void sendToMembers(GroupChat group, Message msg) {
+        Response<Message> response = Response.success(Constants.CMD_NEW_MESSAGE, msg);
+        if (SESSIONS.size() < group.getMemberCount()) {
+            for (Map.Entry<String, ClientHandler> session : SESSIONS.entrySet()) {
+                if (group.isMember(session.getKey())) {
+                    session.getValue().deliver(msg, response);
+                }
+            }
+        } else {
+            for (String phone : group.getMemberPhones()) {
+                ClientHandler targetClient = SESSIONS.get(phone);
+                if (targetClient != null) {
+                    targetClient.deliver(msg, response);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mengirim pesan penuh jika client sedang membuka room-nya; selain itu hanya jumlah belum dibaca yang baru.
+     */
+    private void deliver(Message msg, Response<Message> response) {
+        String phone = currentUser.getPhoneNumber();
+        UnreadTracker tracker = UnreadTracker.getInstance();
+        if (msg.getChatId().equals(viewingChatId)) {
+            sendResponse(response);
+            tracker.markRead(phone, msg.getChatId(), msg.getSeq());
+        } else {
+            int unread = tracker.unreadCount(phone, msg.getChatId());
+            sendResponse(Response.success(Constants.CMD_UNREAD, UnreadUpdate.of(msg.getChatId(), unread)));
+        }
+    }
+
+    private void handleMemberListRequest(Message msg) {
+        // Format: "REQ_MEMBERS:nomorTerakhirHalamanSebelumnya" (kosong untuk halaman pertama)
+        String cursor = msg.getContent().substring("REQ_MEMBERS:".length());
+        ChatRoom room = ChatRoomService.getInstance().getRoom(msg.getChatId());
+
+        if (!(room instanceof GroupChat group) || !group.isMember(currentUser)) {
+            sendResponse(Response.error(Constants.CMD_ERROR, "Anda bukan anggota grup ini."));
+            return;
+        }
+
+        List<User> members = ChatRoomService.getInstance()
+                .getMemberPage(group, cursor.isEmpty() ? null : cursor, MEMBER_PAGE_SIZE);
+        String next = members.size() == MEMBER_PAGE_SIZE ? members.getLast().getPhoneNumber() : null;
+
+        sendResponse(Response.success(Constants.CMD_MEMBERS,
+                new MemberPage(group.getId(), group.getMemberCount(), members, next)));
+    }
+
+    private void handleAvatarRequest(Message msg) {
+        // Format: "REQ_AVATAR:noHP"
+        String phone = msg.getContent().substring("REQ_AVATAR:".length());
+        User user = StoreProvider.getInstance().getUserStore().findByPhone(phone);
+        byte[] image = user == null ? null : user.getProfileImage();
+        String hash = user == null || user.getAvatarHash() == null ? Avatars.hash(image) : user.getAvatarHash();
+        sendResponse(Response.success(Constants.CMD_AVATAR, new Avatar(phone, hash, image)));
+    }
+
+    private void handleUploadChunk(MediaChunk chunk) {
+        if (!requireLogin()) {
+            return;
+        }
+        UploadStatus status = MediaUploadService.getInstance().accept(currentUser.getPhoneNumber(), chunk);
+        if (status != null) {
+            sendResponse(Response.success(Constants.CMD_UPLOAD_STATUS, status));
+        }
+    }
+
+    private void handleMediaRequest(Message msg) {
+        // Format: "REQ_MEDIA:seq[:offset]" dengan chatId room tempat gambar dikirim; offset untuk melanjutkan unduhan
+        ChatRoomService service = ChatRoomService.getInstance();
+        ChatRoom room = service.getRoom(msg.getChatId());
+        if (room == null || !service.canAccess(room, currentUser)) {
+            sendResponse(Response.error(Constants.CMD_ERROR, "Anda tidak punya akses ke room ini."));
+            return;
+        }
+
+        long seq;
+        long offset;
+        try {
+            String[] parts = msg.getContent().substring("REQ_MEDIA:".length()).split(":");
+            seq = Long.parseLong(parts[0]);
+            offset = parts.length > 1 ? Math.max(0, Long.parseLong(parts[1])) : 0;
+        } catch (NumberFormatException _) {
+            sendResponse(Response.error(Constants.CMD_ERROR, "Format permintaan gambar salah."));
+            return;
+        }
+
+        MessageStore store = StoreProvider.getInstance().getMessageStore();
+        List<Message> found = store.findBySeq(room.getId(), List.of(seq));
+        String mediaId = !found.isEmpty() && found.getFirst() instanceof ImageMessage imgMsg ? imgMsg.getMediaId() : null;
+        long size = store.findMediaSize(mediaId);
+        if (size < 0) {
+            sendResponse(Response.error(Constants.CMD_ERROR, "Gambar sudah tidak tersedia."));
+            return;
+        }
+        streamMedia(store, mediaId, size, offset);
+    }
+
+    /**
+     * Mengirim media per potongan {@link Constants#MEDIA_CHUNK_SIZE} sehingga gambar besar tidak perlu dimuat utuh
+     * ke memori. Potongan terakhir membawa SHA-256 seluruh isi untuk diverifikasi client.
+     */
+    private void streamMedia(MessageStore store, String mediaId, long size, long offset) {
+        MessageDigest digest = newSha256();
+        long position = 0;
+        do {
+            // bagian sebelum offset tetap dibaca untuk checksum, tetapi tidak dikirim ulang
+            byte[] data = store.readMedia(mediaId, position, Constants.MEDIA_CHUNK_SIZE);
+            if (data == null) {
+                sendResponse(Response.error(Constants.CMD_ERROR, "Gambar sudah tidak tersedia."));
+                return;
+            }
+            digest.update(data);
+            boolean last = data.length == 0 || position + data.length >= size;
+            if (position + data.length > offset || last) {
+                String checksum = last ? HexFormat.of().formatHex(digest.digest()) : null;
+                sendResponse(Response.success(Constants.CMD_MEDIA,
+                        new MediaChunk(mediaId, position, size, data, last, checksum)));
+            }
+            if (last) {
+                return;
+            }
+            position += data.length;
+        } while (running);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private void sendToTarget(String phoneNumber, Message msg) {
         ClientHandler targetClient = SESSIONS.get(phoneNumber);
         if (targetClient != null) {
             Response<Message> response = Response.success(Constants.CMD_NEW_MESSAGE, msg);
-            targetClient.sendResponse(response);
+            targetClient.deliver(msg, response);
         }
     }
 
@@ -374,21 +657,21 @@ public class ClientHandler implements Runnable {
         targetUser.setPhoneNumber(targetPhone);
 
         try {
-            proxy.kickMember(targetUser, msg.getSender());
+            proxy.kickMember(targetUser, currentUser);
 
-            ChatRoomService.getInstance().saveGroup(group);
+            ChatRoomService.getInstance().memberRemoved(group, targetPhone);
 
             notifyKickedUser(targetPhone, chatId);
 
             sendSystemMessageToClient("Sukses mengeluarkan user: " + targetPhone);
 
-            Message announcement = new TextMessage(chatId, msg.getSender(), "telah mengeluarkan anggota " + targetPhone);
+            Message announcement = new TextMessage(chatId, Avatars.reference(currentUser), "telah mengeluarkan anggota " + targetPhone);
             routeMessage(announcement);
 
-            LOGGER.info(() -> "KICK SUCCESS: " + targetPhone + " removed from " + group.getName() + " by " + msg.getSender().getName());
+            LOGGER.info(() -> "KICK SUCCESS: " + targetPhone + " removed from " + group.getName() + " by " + currentUser.getName());
 
         } catch (SecurityException _) {
-            LOGGER.warning(() -> "KICK FAILED: " + msg.getSender().getName() + " tried to kick but is not admin.");
+            LOGGER.warning(() -> "KICK FAILED: " + currentUser.getName() + " tried to kick but is not admin.");
             sendSystemMessageToClient("GAGAL: Anda bukan Admin grup ini!");
         }
     }
@@ -398,7 +681,58 @@ public class ClientHandler implements Runnable {
         if (victimSession != null) {
             Response<String> kickNotice = Response.success("KICKED", chatId);
             victimSession.sendResponse(kickNotice);
+            victimSession.sendRoomRemoved(chatId);
+        }
+    }
+
+    private void handleInviteCommand(Message msg) {
+        // Format perintah: "/invite <no hp>"
+        String[] parts = msg.getContent().split(" ");
+
+        if (parts.length < 2) {
+            sendSystemMessageToClient("Format salah. Gunakan: /invite [NoHP]");
+            return;
+        }
+
+        String targetPhone = parts[1];
+        String chatId = msg.getChatId();
+
+        ChatRoom room = ChatRoomService.getInstance().getRoom(chatId);
+
+        if (!(room instanceof GroupChat group) || Constants.GLOBAL_ROOM_CHAT_ID.equals(chatId)) {
+            sendSystemMessageToClient("Perintah ini hanya berlaku di Grup.");
+            return;
+        }
+
+        if (!group.isMember(currentUser)) {
+            sendSystemMessageToClient("GAGAL: Anda bukan anggota grup ini!");
+            return;
+        }
+
+        if (group.isMember(targetPhone)) {
+            sendSystemMessageToClient("User " + targetPhone + " sudah menjadi anggota grup ini.");
+            return;
+        }
+
+        User targetDoc = StoreProvider.getInstance().getUserStore().findByPhone(targetPhone);
+        if (targetDoc == null) {
+            sendSystemMessageToClient("User tidak ditemukan: " + targetPhone);
+            return;
+        }
+
+        ChatRoomService.getInstance().addMember(group, Avatars.reference(targetDoc));
+
+        ClientHandler targetSession = SESSIONS.get(targetPhone);
+        if (targetSession != null) {
+            targetSession.sendRoomAdded(group);
         }
+
+        sendSystemMessageToClient("Sukses menambahkan user: " + targetPhone);
+
+        Message announcement = new TextMessage(chatId, Avatars.reference(currentUser), "telah menambahkan anggota " + targetPhone);
+        routeMessage(announcement);
+
+        LOGGER.info(() -> "INVITE SUCCESS: " + targetPhone + " added to " + group.getName() + " by " + currentUser.getName());
     }
 
     private void sendSystemMessageToClient(String text) {
@@ -417,7 +751,8 @@ public class ClientHandler implements Runnable {
         running = false;
 
         if (currentUser != null) {
-            SESSIONS.remove(currentUser.getPhoneNumber());
+            // client yang reconnect bisa sudah punya sesi baru sebelum koneksi lama terdeteksi putus
+            SESSIONS.remove(currentUser.getPhoneNumber(), this);
 
             LOGGER.info(currentUser.getName() + " has left.");
 
@@ -430,112 +765,40 @@ public class ClientHandler implements Runnable {
         closeQuietly(socket);
     }
 
-    private void saveToDatabase(Message msg) {
+    private boolean saveToDatabase(Message msg) {
         try {
-            Document doc = new Document()
-                    .append(FIELD_CHAT_ID, msg.getChatId())
-                    .append("senderPhone", msg.getSender().getPhoneNumber())
-                    .append("senderName", msg.getSender().getName())
-                    .append(FIELD_TIMESTAMP, msg.getDate())
-                    .append("type", msg.getType());
-
-            if (msg instanceof TextMessage) {
-                doc.append("content", msg.getContent());
-            } else if (msg instanceof ImageMessage imgMsg) {
-                doc.append("caption", msg.getContent());
-                doc.append("base64Data", imgMsg.getBase64Data());
-            }
-
-            DatabaseManager.getInstance().getCollection(Constants.COLLECTION_MESSAGES).insertOne(doc);
+            StoreProvider.getInstance().getMessageStore().save(msg);
+            return true;
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "DB Error", e);
+            return false;
         }
     }
 
-    private void saveUserToDB(User user) {
+    private void loadAndSendHistory(String chatId, long afterSeq) {
         try {
-            Document doc = new Document()
-                    .append(Constants.FIELD_PHONE_NUMBER, user.getPhoneNumber())
-                    .append(Constants.FIELD_NAME, user.getName())
-                    .append(Constants.FIELD_PASSWORD, user.getPassword())
-                    .append(Constants.FIELD_PROFILE_IMAGE, user.getProfileImage());
-
-            DatabaseManager.getInstance().getCollection(Constants.COLLECTION_USERS).updateOne(
-                    Filters.eq(Constants.FIELD_PHONE_NUMBER, user.getPhoneNumber()),
-                    new Document("$set", doc),
-                    new UpdateOptions().upsert(true)
-            );
-        } catch (Exception e) {
-            LOGGER.warning(() -> "Failed to save user: " + e.getMessage());
-        }
-    }
-
-    private void loadAndSendHistory(String chatId) {
-        try {
-            FindIterable<Document> docs = DatabaseManager.getInstance()
-                    .getCollection(Constants.COLLECTION_MESSAGES)
-                    .find(Filters.eq(FIELD_CHAT_ID, chatId))
-                    .sort(Sorts.ascending(FIELD_TIMESTAMP));
-
-            for (Document doc : docs) {
-                Message msg = documentToMessage(doc);
-                if (msg != null) {
-                    Response<Message> response = Response.success(Constants.CMD_NEW_MESSAGE, msg);
-                    this.sendResponse(response);
-                }
+            ChatRoom room = ChatRoomService.getInstance().getRoom(chatId);
+            if (room == null) {
+                return;
+            }
+            for (Message msg : ChatRoomService.getInstance().getHistoryAfter(room, afterSeq)) {
+                Response<Message> response = Response.success(Constants.CMD_NEW_MESSAGE, msg);
+                this.sendResponse(response);
             }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed load history", e);
         }
     }
 
-    private Message documentToMessage(Document doc) {
-        try {
-            String type = doc.getString("type");
-            String chatId = doc.getString(FIELD_CHAT_ID);
-            String senderPhone = doc.getString("senderPhone");
-            String senderName = doc.getString("senderName");
-            Date date = doc.getDate(FIELD_TIMESTAMP);
-
-            User sender = buildSenderFromDocument(senderPhone, senderName);
-
-            Message msg = createMessageByType(type, chatId, sender, doc);
-            if (msg != null) {
-                msg.setDate(date);
-            }
-            return msg;
-        } catch (Exception _) {
-            return null;
-        }
-    }
-
-    private User buildSenderFromDocument(String senderPhone, String senderName) {
-        User sender = new User();
-        sender.setPhoneNumber(senderPhone);
-
-        Document userDoc = DatabaseManager.getInstance().getCollection(Constants.COLLECTION_USERS)
-                .find(Filters.eq(Constants.FIELD_PHONE_NUMBER, senderPhone))
-                .first();
-
-        if (userDoc != null) {
-            sender.setName(userDoc.getString(Constants.FIELD_NAME));
-            sender.setProfileImage(userDoc.getString(Constants.FIELD_PROFILE_IMAGE));
-        } else {
-            sender.setName(senderName);
-        }
-        return sender;
-    }
-
-    private Message createMessageByType(String type, String chatId, User sender, Document doc) {
-        if ("TEXT".equals(type)) {
-            String content = doc.getString("content");
-            return new TextMessage(chatId, sender, content);
-        } else if ("IMAGE".equals(type)) {
-            String caption = doc.getString("caption");
-            String base64 = doc.getString("base64Data");
-            return new ImageMessage(chatId, sender, caption, base64);
+    /**
+     * Hak akses selalu dicek terhadap user hasil login, bukan pengirim yang diisi client di dalam pesan.
+     */
+    private boolean requireLogin() {
+        if (currentUser != null) {
+            return true;
         }
-        return null;
+        sendResponse(Response.error(Constants.CMD_ERROR, "Silakan login terlebih dahulu."));
+        return false;
     }
 
     private void sendResponse(Response<?> response) {
@@ -0,0 +1,97 @@
+package org.konex.server.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mengingat messageId yang baru diterima per room supaya kiriman ulang dari client (misalnya setelah ACK hilang)
+ * tidak disimpan dan disebarkan dua kali.
+ * <p>
+ * Hanya menyimpan ID dalam jendela waktu tertentu dan dibatasi jumlahnya, karena client berhenti mengirim ulang
+ * jauh sebelum jendela itu habis.
+ */
+final class MessageDeduplicator {
+    /**
+     * Seq sementara untuk pesan yang sedang disimpan oleh thread lain.
+     */
+    static final long IN_FLIGHT = -1;
+
+    private final long windowMillis;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> seen = new LinkedHashMap<>();
+
+    private static final class Entry {
+        private final long receivedAt;
+        private long seq = IN_FLIGHT;
+
+        private Entry(long receivedAt) {
+            this.receivedAt = receivedAt;
+        }
+    }
+
+    MessageDeduplicator(long windowMillis, int maxEntries) {
+        this.windowMillis = windowMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Mencadangkan messageId ini untuk diproses.
+     *
+     * @return true jika ID belum pernah terlihat dalam jendela; false jika pesan ini duplikat
+     */
+    synchronized boolean tryReserve(String chatId, String messageId, long now) {
+        evictExpired(now);
+        String key = key(chatId, messageId);
+        if (seen.containsKey(key)) {
+            return false;
+        }
+        seen.put(key, new Entry(now));
+        if (seen.size() > maxEntries) {
+            Iterator<Entry> oldest = seen.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Seq yang tercatat untuk pesan duplikat, atau {@link #IN_FLIGHT} jika pesan aslinya belum selesai disimpan.
+     */
+    synchronized long seqOf(String chatId, String messageId) {
+        Entry entry = seen.get(key(chatId, messageId));
+        return entry == null ? IN_FLIGHT : entry.seq;
+    }
+
+    /**
+     * Mencatat seq hasil penyimpanan supaya duplikat berikutnya bisa dijawab dengan ACK yang sama.
+     */
+    synchronized void complete(String chatId, String messageId, long seq) {
+        Entry entry = seen.get(key(chatId, messageId));
+        if (entry != null) {
+            entry.seq = seq;
+        }
+    }
+
+    /**
+     * Melepas cadangan jika penyimpanan gagal, sehingga kiriman ulang berikutnya diproses lagi.
+     */
+    synchronized void release(String chatId, String messageId) {
+        seen.remove(key(chatId, messageId));
+    }
+
+    synchronized int size() {
+        return seen.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> it = seen.entrySet().iterator();
+        while (it.hasNext() && now - it.next().getValue().receivedAt > windowMillis) {
+            it.remove();
+        }
+    }
+
+    private static String key(String chatId, String messageId) {
+        return chatId + ":" + messageId;
+    }
+}
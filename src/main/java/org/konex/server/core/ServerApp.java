@@ -1,10 +1,21 @@
 package org.konex.server.core;
 
+import io.github.cdimascio.dotenv.Dotenv;
+import org.konex.common.interfaces.ChatRoom;
+import org.konex.server.auth.AuthService;
+import org.konex.server.retention.HistoryCompactor;
+import org.konex.server.search.SearchIndex;
+import org.konex.server.service.ChatRoomService;
+import org.konex.server.service.MediaUploadService;
+import org.konex.server.service.UnreadTracker;
+import org.konex.server.store.StoreProvider;
+
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,28 +24,92 @@ public class ServerApp {
     private static final int DEFAULT_PORT = 12345;
     private final int port;
     private final ExecutorService clientPool = Executors.newCachedThreadPool();
+    private HistoryCompactor compactor;
+    private ServerSocket serverSocket;
     private volatile boolean running = true;
+    private final AtomicBoolean stopped = new AtomicBoolean();
 
     public ServerApp(int port) {
         this.port = port;
     }
 
+    /**
+     * Menghentikan server dan menulis semua yang masih ditunda. Aman dipanggil lebih dari sekali
+     * (mis. dari shutdown hook setelah dipanggil langsung).
+     */
     public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
         running = false;
+        closeServerSocket();
         clientPool.shutdown();
+        if (compactor != null) {
+            shutdownStep("history compactor", compactor::close);
+        }
+        // yang murah dan paling penting lebih dulu; index menunggu indexer selesai sampai beberapa detik
+        shutdownStep("membership changes", ChatRoomService.getInstance()::flushMemberships);
+        shutdownStep("read states", UnreadTracker.getInstance()::close);
+        shutdownStep("search index", SearchIndex.getInstance()::close);
+        shutdownStep("auth service", AuthService.getInstance()::close);
+        shutdownStep("media uploads", MediaUploadService.getInstance()::close);
+    }
+
+    /**
+     * Satu langkah yang gagal (mis. database tidak terjangkau) tidak boleh membuat langkah berikutnya terlewat.
+     */
+    private static void shutdownStep(String name, Runnable step) {
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to shut down " + name, e);
+        }
     }
 
     public void start() {
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
+        startHistoryCompactor();
+        // lengkapi index pencarian dari store di latar, server langsung menerima koneksi
+        SearchIndex.getInstance().catchUp(ChatRoomService.getInstance().getAllRooms().stream()
+                .map(ChatRoom::getId)
+                .toList());
+        try (ServerSocket listener = new ServerSocket(port)) {
+            synchronized (this) {
+                serverSocket = listener;
+            }
             LOGGER.info(() -> "KoneX Server running on port " + port);
             while (running) {
-                Socket clientSocket = serverSocket.accept();
+                Socket clientSocket = listener.accept();
                 LOGGER.info(() -> "New client connected: " + clientSocket.getRemoteSocketAddress());
                 ClientHandler handler = new ClientHandler(clientSocket);
                 clientPool.submit(handler);
             }
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Server encountered an I/O error", e);
+            if (running) {
+                LOGGER.log(Level.SEVERE, "Server encountered an I/O error", e);
+            }
+        }
+    }
+
+    /**
+     * Membuka blokir {@code accept()} supaya {@link #start()} kembali, mis. saat server dijalankan di dalam load test.
+     */
+    private synchronized void closeServerSocket() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException _) {
+            // sudah tertutup
+        }
+    }
+
+    private void startHistoryCompactor() {
+        try {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            compactor = HistoryCompactor.fromEnv();
+            compactor.start(Long.parseLong(dotenv.get("RETENTION_INTERVAL_MINUTES", "60")));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Invalid retention configuration, history compaction disabled", e);
         }
     }
 
@@ -48,6 +123,15 @@ public class ServerApp {
                 LOGGER.warning("Invalid port argument provided, falling back to default");
             }
         }
-        new ServerApp(port).start();
+        try {
+            StoreProvider.getInstance();
+        } catch (RuntimeException | ExceptionInInitializerError e) {
+            LOGGER.log(Level.SEVERE, "Storage unavailable, server not started", e);
+            return;
+        }
+        ServerApp server = new ServerApp(port);
+        // tulisan yang masih ditunda (keanggotaan, status baca, snapshot index) ikut disimpan saat proses dihentikan
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "server-shutdown"));
+        server.start();
     }
 }
@@ -36,7 +36,7 @@ public class DatabaseManager {
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, e, () -> "Database Connection Failed: " + e.getMessage());
-            System.exit(1);
+            throw new IllegalStateException("Database Connection Failed", e);
         }
     }
 
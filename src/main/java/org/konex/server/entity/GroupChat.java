@@ -1,45 +1,59 @@
 package org.konex.server.entity;
 
+import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatRoom;
 import org.konex.common.interfaces.GroupManagement;
 import org.konex.common.model.Message;
 import org.konex.common.model.User;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.logging.Logger;
 
+/**
+ * Room grup. Anggota disimpan hanya sebagai himpunan nomor HP yang terurut; detail user diambil dari store
+ * saat dibutuhkan, sehingga grup dengan ratusan ribu anggota tetap ringan dimuat.
+ */
 public class GroupChat implements ChatRoom, GroupManagement {
     private static final Logger LOGGER = Logger.getLogger(GroupChat.class.getName());
 
     private final String id;
     private final String name;
     private final User admin;
-    private final List<User> members = new CopyOnWriteArrayList<>();
-    private final List<Message> history = new CopyOnWriteArrayList<>();
+    private final NavigableSet<String> memberPhones = new ConcurrentSkipListSet<>();
+    private final MessageRingBuffer history;
 
     public GroupChat(String id, String name, User admin) {
+        this(id, name, admin, Constants.DEFAULT_GROUP_HISTORY_CAPACITY);
+    }
+
+    public GroupChat(String id, String name, User admin, int historyCapacity) {
         if (id == null || name == null || admin == null) {
             throw new IllegalArgumentException("Group chat requires id, name, and admin");
         }
         this.id = id;
         this.name = name;
         this.admin = admin;
-        members.add(admin);
+        this.history = new MessageRingBuffer(historyCapacity);
+        if (admin.getPhoneNumber() != null) {
+            memberPhones.add(admin.getPhoneNumber());
+        }
     }
 
     @Override
     public void sendMessage(Message msg) {
         Objects.requireNonNull(msg, "Message cannot be null");
         history.add(msg);
-        for (User member : members) {
-            LOGGER.info(() -> String.format(
-                    "Broadcasting message in group %s from %s to %s",
-                    name,
-                    safeName(msg.getSender()),
-                    safeName(member)));
-        }
+        LOGGER.fine(() -> String.format(
+                "Broadcasting message in group %s from %s to %d members",
+                name,
+                safeName(msg.getSender()),
+                memberPhones.size()));
     }
 
     private String safeName(User user) {
@@ -59,20 +73,52 @@ public class GroupChat implements ChatRoom, GroupManagement {
         return admin;
     }
 
-    public List<User> getMembers() {
-        return List.copyOf(members);
+    /**
+     * Nomor HP semua anggota (view read-only, terurut).
+     */
+    public Set<String> getMemberPhones() {
+        return Collections.unmodifiableSet(memberPhones);
+    }
+
+    public int getMemberCount() {
+        return memberPhones.size();
+    }
+
+    /**
+     * Maksimal {@code limit} nomor anggota setelah {@code afterPhone} (null untuk halaman pertama), terurut.
+     */
+    public List<String> getMemberPage(String afterPhone, int limit) {
+        Set<String> tail = afterPhone == null ? memberPhones : memberPhones.tailSet(afterPhone, false);
+        List<String> page = new ArrayList<>(Math.min(limit, 64));
+        for (String phone : tail) {
+            if (page.size() >= limit) break;
+            page.add(phone);
+        }
+        return page;
+    }
+
+    /**
+     * Menambahkan anggota yang dimuat dari store tanpa perlu membangun objek {@link User}.
+     */
+    public void addMemberPhone(String phone) {
+        if (phone != null) {
+            memberPhones.add(phone);
+        }
     }
 
     public List<Message> getHistory() {
-        return List.copyOf(history);
+        return history.snapshot();
+    }
+
+    public MessageRingBuffer getHistoryBuffer() {
+        return history;
     }
 
     @Override
     public void inviteMember(User u) {
         Objects.requireNonNull(u, "User cannot be null");
 
-        if (members.stream().noneMatch(member -> sameUser(member, u))) {
-            members.add(u);
+        if (u.getPhoneNumber() != null && memberPhones.add(u.getPhoneNumber())) {
             LOGGER.info(() -> String.format("%s joined group %s", safeName(u), name));
         } else {
             LOGGER.info(() -> String.format("%s is already in group %s", safeName(u), name));
@@ -84,7 +130,7 @@ public class GroupChat implements ChatRoom, GroupManagement {
         if (target == null) {
             return;
         }
-        boolean removed = members.removeIf(member -> sameUser(member, target));
+        boolean removed = target.getPhoneNumber() != null && memberPhones.remove(target.getPhoneNumber());
         if (removed) {
             LOGGER.info(() -> String.format("%s removed from group %s by %s",
                     safeName(target), name, safeName(requester)));
@@ -96,7 +142,11 @@ public class GroupChat implements ChatRoom, GroupManagement {
     }
 
     public boolean isMember(User user) {
-        return user != null && members.stream().anyMatch(member -> sameUser(member, user));
+        return user != null && isMember(user.getPhoneNumber());
+    }
+
+    public boolean isMember(String phone) {
+        return phone != null && memberPhones.contains(phone);
     }
 
     private boolean sameUser(User a, User b) {
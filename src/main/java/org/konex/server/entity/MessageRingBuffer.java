@@ -0,0 +1,92 @@
+package org.konex.server.entity;
+
+import org.konex.common.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer melingkar lock-free berkapasitas tetap untuk menyimpan pesan terbaru sebuah room.
+ * Pesan paling lama otomatis tertimpa ketika buffer penuh, sehingga memori per room selalu terbatas.
+ */
+public class MessageRingBuffer {
+    private final int capacity;
+    private final AtomicReferenceArray<Slot> slots;
+    private final AtomicLong written = new AtomicLong();
+    private volatile long seededUpTo = -1;
+    private volatile long floor;
+
+    private record Slot(long index, Message message) {
+    }
+
+    public MessageRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(Message msg) {
+        long seq = msg.getSeq();
+        if (seq > 0 && seq <= seededUpTo) {
+            // sudah termasuk dalam riwayat yang dimuat dari store
+            return;
+        }
+        long index = written.getAndIncrement();
+        slots.set((int) (index % capacity), new Slot(index, msg));
+    }
+
+    /**
+     * Mengisi buffer dengan riwayat dari store, diikuti pesan live yang belum tercakup di dalamnya.
+     * Pesan live berikutnya dengan seq yang sudah tercakup akan diabaikan.
+     */
+    public synchronized void seed(List<Message> messages) {
+        long maxSeq = 0;
+        for (Message msg : messages) {
+            maxSeq = Math.max(maxSeq, msg.getSeq());
+        }
+        seededUpTo = maxSeq;
+
+        List<Message> merged = new ArrayList<>(messages);
+        for (Message live : snapshot()) {
+            if (live.getSeq() == 0 || live.getSeq() > maxSeq) {
+                merged.add(live);
+            }
+        }
+
+        long start = written.get();
+        for (Message msg : merged.subList(Math.max(0, merged.size() - capacity), merged.size())) {
+            long index = written.getAndIncrement();
+            slots.set((int) (index % capacity), new Slot(index, msg));
+        }
+        floor = start;
+    }
+
+    public boolean isSeeded() {
+        return seededUpTo >= 0;
+    }
+
+    /**
+     * Salinan isi buffer, urut dari yang paling lama.
+     */
+    public List<Message> snapshot() {
+        long end = written.get();
+        long start = Math.max(floor, end - capacity);
+        List<Message> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Slot slot = slots.get((int) (i % capacity));
+            // slot bisa sudah ditimpa writer yang lebih baru, atau belum sempat diisi
+            if (slot != null && slot.index() == i) {
+                result.add(slot.message());
+            }
+        }
+        return result;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
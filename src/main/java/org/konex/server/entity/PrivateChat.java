@@ -1,12 +1,12 @@
 package org.konex.server.entity;
 
+import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatRoom;
 import org.konex.common.model.Message;
 import org.konex.common.model.User;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 public class PrivateChat implements ChatRoom {
@@ -15,15 +15,20 @@ public class PrivateChat implements ChatRoom {
     private final String id;
     private final User userA;
     private final User userB;
-    private final List<Message> history = new CopyOnWriteArrayList<>();
+    private final MessageRingBuffer history;
 
     public PrivateChat(String id, User userA, User userB) {
+        this(id, userA, userB, Constants.DEFAULT_PRIVATE_HISTORY_CAPACITY);
+    }
+
+    public PrivateChat(String id, User userA, User userB, int historyCapacity) {
         if (id == null || userA == null || userB == null) {
             throw new IllegalArgumentException("Private chat requires non-null id and participants");
         }
         this.id = id;
         this.userA = userA;
         this.userB = userB;
+        this.history = new MessageRingBuffer(historyCapacity);
     }
 
     @Override
@@ -70,7 +75,11 @@ public class PrivateChat implements ChatRoom {
     }
 
     public List<Message> getHistory() {
-        return List.copyOf(history);
+        return history.snapshot();
+    }
+
+    public MessageRingBuffer getHistoryBuffer() {
+        return history;
     }
 
     public User getFirstParticipant() {
@@ -0,0 +1,7 @@
+package org.konex.server.media;
+
+/**
+ * Posisi payload media di dalam segment: nomor segment, offset awal data, dan panjang data.
+ */
+public record MediaLocation(int segment, long offset, int length) {
+}
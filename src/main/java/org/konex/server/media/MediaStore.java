@@ -0,0 +1,580 @@
+package org.konex.server.media;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Penyimpanan blob media berbasis file (append-only segment) dengan index content-hash ke offset/panjang.
+ * Pembacaan dilayani lewat {@link FileChannel#map} atau {@link FileChannel#transferTo} sehingga byte gambar
+ * tidak perlu disalin melewati heap Java.
+ */
+@SuppressWarnings("java:S6548")
+public final class MediaStore implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MediaStore.class.getName());
+
+    private static final int MAGIC = 0x4B4D4544; // "KMED"
+    private static final byte TYPE_DATA = 1;
+    private static final byte TYPE_TOMBSTONE = 2;
+    private static final byte TYPE_REF = 3;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + HASH_LENGTH + Integer.BYTES;
+
+    private static final String DEFAULT_DIRECTORY = "data/media";
+    private static final long DEFAULT_SEGMENT_SIZE_MB = 64;
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Map<String, MediaLocation> index = new ConcurrentHashMap<>();
+    private final Map<String, Integer> references = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<Integer, Long> deadBytes = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int activeSegment;
+    private FileChannel activeChannel;
+
+    public MediaStore(Path directory, long segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    private static final class InstanceHolder {
+        private static final MediaStore INSTANCE = createDefault();
+    }
+
+    public static MediaStore getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static MediaStore createDefault() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String dir = dotenv.get("MEDIA_STORE_DIR", DEFAULT_DIRECTORY);
+        long segmentMb = Long.parseLong(dotenv.get("MEDIA_SEGMENT_SIZE_MB", String.valueOf(DEFAULT_SEGMENT_SIZE_MB)));
+        try {
+            MediaStore store = new MediaStore(Paths.get(dir), segmentMb * 1024 * 1024);
+            LOGGER.info(() -> "Media store opened: " + dir + " (" + store.index.size() + " blobs)");
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membuka media store: " + dir, e);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Integer.parseInt(n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(ids::add);
+        }
+
+        for (int id : ids) {
+            FileChannel channel = openSegment(id);
+            segments.put(id, channel);
+            scanSegment(id, channel);
+        }
+
+        if (ids.isEmpty()) {
+            rollSegment(1);
+        } else {
+            activeSegment = ids.getLast();
+            activeChannel = segments.get(activeSegment);
+        }
+    }
+
+    private FileChannel openSegment(int id) throws IOException {
+        return FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private void scanSegment(int id, FileChannel channel) throws IOException {
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (pos + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, pos);
+            header.flip();
+
+            if (header.getInt() != MAGIC) break;
+            byte type = header.get();
+            byte[] hashBytes = new byte[HASH_LENGTH];
+            header.get(hashBytes);
+            int length = header.getInt();
+            String hash = HexFormat.of().formatHex(hashBytes);
+
+            if (type == TYPE_DATA) {
+                if (length < 0 || pos + HEADER_SIZE + length > size) break;
+                MediaLocation previous = index.put(hash, new MediaLocation(id, pos + HEADER_SIZE, length));
+                if (previous != null) markDead(previous);
+                references.put(hash, 1);
+                pos += HEADER_SIZE + length;
+            } else if (type == TYPE_REF || type == TYPE_TOMBSTONE) {
+                if (index.containsKey(hash)) {
+                    applyReference(hash, type == TYPE_REF ? 1 : -1);
+                }
+                deadBytes.merge(id, (long) HEADER_SIZE, Long::sum);
+                pos += HEADER_SIZE;
+            } else {
+                break;
+            }
+        }
+
+        if (pos < size) {
+            long validSize = pos;
+            LOGGER.warning(() -> "Truncating corrupt tail of media segment " + id + " at " + validSize);
+            channel.truncate(validSize);
+        }
+    }
+
+    private void applyReference(String hash, int delta) {
+        int remaining = references.merge(hash, delta, Integer::sum);
+        if (remaining <= 0) {
+            references.remove(hash);
+            MediaLocation removed = index.remove(hash);
+            if (removed != null) markDead(removed);
+        }
+    }
+
+    private void markDead(MediaLocation location) {
+        deadBytes.merge(location.segment(), (long) HEADER_SIZE + location.length(), Long::sum);
+    }
+
+    /**
+     * Menyimpan blob dan mengembalikan content hash (SHA-256, hex) sebagai media ID.
+     * Blob yang sudah ada tidak ditulis ulang; jumlah referensinya saja yang bertambah.
+     */
+    public String put(byte[] data) throws IOException {
+        byte[] hashBytes = sha256(data);
+        String hash = HexFormat.of().formatHex(hashBytes);
+
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(hash)) {
+                append(TYPE_REF, hashBytes, null);
+                deadBytes.merge(activeSegment, (long) HEADER_SIZE, Long::sum);
+                references.merge(hash, 1, Integer::sum);
+                return hash;
+            }
+            long offset = append(TYPE_DATA, hashBytes, ByteBuffer.wrap(data));
+            index.put(hash, new MediaLocation(activeSegment, offset, data.length));
+            references.put(hash, 1);
+            return hash;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Seperti {@link #put(byte[])}, tetapi isinya disalin langsung dari file (mis. hasil upload bertahap)
+     * tanpa dimuat utuh ke heap.
+     */
+    public String put(Path file) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = source.size();
+            if (size > Integer.MAX_VALUE - HEADER_SIZE) {
+                throw new IOException("Media too large: " + size + " bytes");
+            }
+            byte[] hashBytes = sha256(source);
+            String hash = HexFormat.of().formatHex(hashBytes);
+
+            lock.writeLock().lock();
+            try {
+                if (index.containsKey(hash)) {
+                    append(TYPE_REF, hashBytes, null);
+                    deadBytes.merge(activeSegment, (long) HEADER_SIZE, Long::sum);
+                    references.merge(hash, 1, Integer::sum);
+                    return hash;
+                }
+                long offset = beginRecord(TYPE_DATA, hashBytes, (int) size);
+                long copied = 0;
+                while (copied < size) {
+                    long n = activeChannel.transferFrom(source, offset + copied, size - copied);
+                    if (n <= 0) throw new IOException("Unexpected end of " + file.getFileName());
+                    copied += n;
+                }
+                activeChannel.force(false);
+                index.put(hash, new MediaLocation(activeSegment, offset, (int) size));
+                references.put(hash, 1);
+                return hash;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Melepas satu referensi ke blob. Blob benar-benar dihapus ketika tidak ada lagi pesan yang memakainya.
+     *
+     * @return true jika blob ditemukan
+     */
+    public boolean delete(String hash) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(hash)) {
+                return false;
+            }
+            append(TYPE_TOMBSTONE, HexFormat.of().parseHex(hash), null);
+            deadBytes.merge(activeSegment, (long) HEADER_SIZE, Long::sum);
+            applyReference(hash, -1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long append(byte type, byte[] hashBytes, ByteBuffer payload) throws IOException {
+        long offset = beginRecord(type, hashBytes, payload == null ? 0 : payload.remaining());
+        if (payload != null) {
+            writeFully(activeChannel, payload);
+        }
+        activeChannel.force(false);
+        return offset;
+    }
+
+    /**
+     * Menulis header record di akhir segment aktif (pindah segment jika tidak muat).
+     *
+     * @return offset tempat payload harus ditulis
+     */
+    private long beginRecord(byte type, byte[] hashBytes, int payloadLength) throws IOException {
+        if (activeChannel.size() > 0 && activeChannel.size() + HEADER_SIZE + payloadLength > segmentSize) {
+            rollSegment(activeSegment + 1);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(type)
+                .put(hashBytes)
+                .putInt(payloadLength)
+                .flip();
+
+        long start = activeChannel.size();
+        activeChannel.position(start);
+        writeFully(activeChannel, header);
+        return start + HEADER_SIZE;
+    }
+
+    private void rollSegment(int id) throws IOException {
+        FileChannel channel = openSegment(id);
+        segments.put(id, channel);
+        activeSegment = id;
+        activeChannel = channel;
+    }
+
+    public boolean contains(String hash) {
+        return index.containsKey(hash);
+    }
+
+    /**
+     * Memetakan blob langsung dari file segment. Mengembalikan null jika media tidak ditemukan.
+     */
+    public MappedByteBuffer map(String hash) throws IOException {
+        lock.readLock().lock();
+        try {
+            MediaLocation location = index.get(hash);
+            if (location == null) {
+                return null;
+            }
+            return segments.get(location.segment())
+                    .map(FileChannel.MapMode.READ_ONLY, location.offset(), location.length());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public byte[] read(String hash) throws IOException {
+        MappedByteBuffer buffer = map(hash);
+        if (buffer == null) {
+            return null;
+        }
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Ukuran blob dalam byte, atau -1 jika media tidak ditemukan.
+     */
+    public long length(String hash) {
+        MediaLocation location = index.get(hash);
+        return location == null ? -1 : location.length();
+    }
+
+    /**
+     * Membaca sebagian blob mulai dari {@code offset}, maksimal {@code maxLength} byte. Dipakai untuk mengirim
+     * media per potongan. Mengembalikan null jika media tidak ditemukan.
+     */
+    public byte[] read(String hash, long offset, int maxLength) throws IOException {
+        lock.readLock().lock();
+        try {
+            MediaLocation location = index.get(hash);
+            if (location == null) {
+                return null;
+            }
+            int length = Math.clamp(location.length() - offset, 0, maxLength);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            readFully(segments.get(location.segment()), buffer, location.offset() + offset);
+            return buffer.array();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Membuka blob sebagai stream yang dibaca langsung dari file yang dipetakan, tanpa menyalinnya utuh ke heap.
+     * Mengembalikan null jika media tidak ditemukan.
+     */
+    public InputStream openStream(String hash) throws IOException {
+        MappedByteBuffer buffer = map(hash);
+        return buffer == null ? null : new MappedInputStream(buffer);
+    }
+
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return len == 0 ? 0 : -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(target, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Mengirim blob ke channel tujuan (mis. socket) tanpa menyalin ke heap.
+     * Mengembalikan jumlah byte yang terkirim, atau -1 jika media tidak ditemukan.
+     */
+    public long transferTo(String hash, WritableByteChannel target) throws IOException {
+        lock.readLock().lock();
+        try {
+            MediaLocation location = index.get(hash);
+            if (location == null) {
+                return -1;
+            }
+            FileChannel source = segments.get(location.segment());
+            long transferred = 0;
+            while (transferred < location.length()) {
+                transferred += source.transferTo(location.offset() + transferred,
+                        location.length() - transferred, target);
+            }
+            return transferred;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            long sealedBytes = 0;
+            long sealedDead = 0;
+            for (Map.Entry<Integer, FileChannel> entry : segments.entrySet()) {
+                if (entry.getKey() == activeSegment) continue;
+                sealedBytes += entry.getValue().size();
+                sealedDead += deadBytes.getOrDefault(entry.getKey(), 0L);
+            }
+            return sealedBytes > 0 && (double) sealedDead / sealedBytes >= COMPACTION_THRESHOLD;
+        } catch (IOException _) {
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Menyalin blob yang masih hidup dari semua segment tertutup ke segment aktif, lalu menghapus segment lama.
+     * Semua segment tertutup dipadatkan sekaligus supaya tombstone yang dibuang tidak menghidupkan kembali
+     * blob yang sudah dihapus saat index dibangun ulang.
+     *
+     * @return jumlah byte yang berhasil dibebaskan
+     */
+    public long compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            List<Integer> sealed = segments.keySet().stream()
+                    .filter(id -> id != activeSegment)
+                    .toList();
+            if (sealed.isEmpty()) {
+                return 0;
+            }
+
+            long before = 0;
+            for (int id : sealed) {
+                before += segments.get(id).size();
+            }
+
+            long copied = 0;
+            for (Map.Entry<String, MediaLocation> entry : index.entrySet()) {
+                MediaLocation location = entry.getValue();
+                if (location.segment() != activeSegment && sealed.contains(location.segment())) {
+                    copied += HEADER_SIZE + location.length();
+                    entry.setValue(copyRecord(entry.getKey(), location));
+                }
+            }
+            activeChannel.force(false);
+
+            for (int id : sealed) {
+                segments.remove(id).close();
+                deadBytes.remove(id);
+                Files.deleteIfExists(segmentPath(id));
+            }
+
+            long reclaimed = before - copied;
+            LOGGER.info(() -> "Media store compacted " + sealed.size() + " segment(s), reclaimed " + reclaimed + " bytes");
+            return reclaimed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private MediaLocation copyRecord(String hash, MediaLocation location) throws IOException {
+        if (activeChannel.size() > 0 && activeChannel.size() + HEADER_SIZE + location.length() > segmentSize) {
+            rollSegment(activeSegment + 1);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .put(TYPE_DATA)
+                .put(HexFormat.of().parseHex(hash))
+                .putInt(location.length())
+                .flip();
+
+        long start = activeChannel.size();
+        activeChannel.position(start);
+        writeFully(activeChannel, header);
+
+        FileChannel source = segments.get(location.segment());
+        long transferred = 0;
+        while (transferred < location.length()) {
+            transferred += source.transferTo(location.offset() + transferred,
+                    location.length() - transferred, activeChannel);
+        }
+
+        // record DATA mereset jumlah referensi ke 1 saat index dibangun ulang
+        int extraReferences = references.getOrDefault(hash, 1) - 1;
+        for (int i = 0; i < extraReferences; i++) {
+            writeFully(activeChannel, ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .put(TYPE_REF)
+                    .put(HexFormat.of().parseHex(hash))
+                    .putInt(0)
+                    .flip());
+        }
+        if (extraReferences > 0) {
+            deadBytes.merge(activeSegment, (long) HEADER_SIZE * extraReferences, Long::sum);
+        }
+        return new MediaLocation(activeSegment, start + HEADER_SIZE, location.length());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static byte[] sha256(FileChannel source) throws IOException {
+        MessageDigest digest = newSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = 0;
+        int read;
+        while ((read = source.read(buffer, position)) > 0) {
+            digest.update(buffer.flip());
+            buffer.clear();
+            position += read;
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return newSha256().digest(data);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) throw new IOException("Unexpected end of segment");
+            pos += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
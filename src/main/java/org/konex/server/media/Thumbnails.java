@@ -0,0 +1,120 @@
+package org.konex.server.media;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Membuat thumbnail JPEG kecil dari gambar yang dikirim user. Thumbnail inilah yang dikirim di broadcast dan
+ * riwayat; gambar asli hanya diambil saat user membukanya.
+ */
+public final class Thumbnails {
+    /**
+     * Sisi terpanjang thumbnail. Bubble chat menampilkan gambar selebar 220px, jadi ini cukup untuk layar HiDPI.
+     */
+    public static final int MAX_DIMENSION = 400;
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private Thumbnails() {
+        // Utility class
+    }
+
+    /**
+     * @return byte JPEG thumbnail, atau null jika data bukan gambar yang dikenali atau gambar aslinya sudah
+     * cukup kecil untuk dipakai langsung
+     */
+    public static byte[] create(byte[] original) {
+        return create(new ByteArrayInputStream(original), original.length);
+    }
+
+    /**
+     * Seperti {@link #create(byte[])}, tetapi membaca dari stream. Gambar besar didekode dengan subsampling
+     * sehingga memori yang dipakai mengikuti ukuran thumbnail, bukan resolusi gambar asli.
+     */
+    public static byte[] create(InputStream original, long originalSize) {
+        BufferedImage source;
+        int originalWidth;
+        int originalHeight;
+        try (ImageInputStream in = ImageIO.createImageInputStream(original)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                originalWidth = reader.getWidth(0);
+                originalHeight = reader.getHeight(0);
+                if (Math.max(originalWidth, originalHeight) <= MAX_DIMENSION) {
+                    return null;
+                }
+                // cukup dekode sekitar dua kali ukuran target, sisanya dihaluskan saat diperkecil
+                int step = Math.max(1, Math.max(originalWidth, originalHeight) / (MAX_DIMENSION * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException _) {
+            return null;
+        }
+
+        double scale = (double) MAX_DIMENSION / Math.max(originalWidth, originalHeight);
+        int width = Math.max(1, (int) Math.round(originalWidth * scale));
+        int height = Math.max(1, (int) Math.round(originalHeight * scale));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG tidak punya alpha; area transparan dibuat putih
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        try {
+            byte[] thumbnail = encodeJpeg(scaled);
+            return thumbnail.length < originalSize ? thumbnail : null;
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG writer available");
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
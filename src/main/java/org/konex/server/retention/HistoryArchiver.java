@@ -0,0 +1,71 @@
+package org.konex.server.retention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.konex.server.store.MessageRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Menyimpan pesan yang kedaluwarsa ke file JSON lines terkompresi, satu file per room per hari
+ * ({@code <chatId>/<yyyy-MM-dd>.jsonl.gz}). Setiap batch ditulis sebagai member gzip baru di akhir file,
+ * sehingga file tetap bisa dibaca utuh dengan {@code zcat} atau {@link java.util.zip.GZIPInputStream}.
+ */
+public final class HistoryArchiver {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path directory;
+    private final ZoneId zone;
+
+    public HistoryArchiver(Path directory) {
+        this(directory, ZoneId.systemDefault());
+    }
+
+    public HistoryArchiver(Path directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    public void archive(String chatId, List<MessageRecord> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<LocalDate, List<MessageRecord>> byDay = new TreeMap<>();
+        for (MessageRecord entry : entries) {
+            LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(entry.timestamp()), zone);
+            byDay.computeIfAbsent(day, _ -> new ArrayList<>()).add(entry);
+        }
+
+        Path roomDir = directory.resolve(safeName(chatId));
+        Files.createDirectories(roomDir);
+        for (Map.Entry<LocalDate, List<MessageRecord>> day : byDay.entrySet()) {
+            Path file = roomDir.resolve(day.getKey() + ".jsonl.gz");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)),
+                    StandardCharsets.UTF_8))) {
+                for (MessageRecord entry : day.getValue()) {
+                    writer.write(MAPPER.writeValueAsString(entry));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private static String safeName(String chatId) {
+        return chatId.replaceAll("[^A-Za-z0-9_+-]", "_");
+    }
+}
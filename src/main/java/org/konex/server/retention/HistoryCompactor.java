@@ -0,0 +1,178 @@
+package org.konex.server.retention;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.konex.common.constants.Constants;
+import org.konex.common.interfaces.ChatRoom;
+import org.konex.server.entity.PrivateChat;
+import org.konex.server.media.MediaStore;
+import org.konex.server.service.ChatRoomService;
+import org.konex.server.store.MessageRecord;
+import org.konex.server.store.MessageStore;
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.StoreType;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Menegakkan {@link RetentionPolicy} setiap room di thread latar berprioritas rendah.
+ * Penghapusan dilakukan per batch dan dibatasi jumlah pesan per detik supaya tidak bersaing dengan trafik chat.
+ */
+public final class HistoryCompactor implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(HistoryCompactor.class.getName());
+
+    private final MessageStore store;
+    private final RetentionPolicy globalPolicy;
+    private final RetentionPolicy groupPolicy;
+    private final RetentionPolicy privatePolicy;
+    private final int batchSize;
+    private final int maxPerSecond;
+    private final HistoryArchiver archiver;
+    private final boolean compactMedia;
+    private ScheduledExecutorService scheduler;
+
+    public HistoryCompactor(MessageStore store, RetentionPolicy globalPolicy, RetentionPolicy groupPolicy,
+                            RetentionPolicy privatePolicy, int batchSize, int maxPerSecond,
+                            HistoryArchiver archiver, boolean compactMedia) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.store = store;
+        this.globalPolicy = globalPolicy;
+        this.groupPolicy = groupPolicy;
+        this.privatePolicy = privatePolicy;
+        this.batchSize = batchSize;
+        this.maxPerSecond = maxPerSecond;
+        this.archiver = archiver;
+        this.compactMedia = compactMedia;
+    }
+
+    public static HistoryCompactor fromEnv() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String archiveDir = dotenv.get("RETENTION_ARCHIVE_DIR", "");
+        StoreProvider provider = StoreProvider.getInstance();
+
+        return new HistoryCompactor(provider.getMessageStore(),
+                RetentionPolicy.parse(dotenv.get("RETENTION_GLOBAL")),
+                RetentionPolicy.parse(dotenv.get("RETENTION_GROUP")),
+                RetentionPolicy.parse(dotenv.get("RETENTION_PRIVATE")),
+                Integer.parseInt(dotenv.get("RETENTION_BATCH_SIZE", "500")),
+                Integer.parseInt(dotenv.get("RETENTION_MAX_PER_SECOND", "2000")),
+                archiveDir.isBlank() ? null : new HistoryArchiver(Paths.get(archiveDir)),
+                provider.getType() != StoreType.MEMORY);
+    }
+
+    public boolean isEnabled() {
+        return !(globalPolicy.isEmpty() && groupPolicy.isEmpty() && privatePolicy.isEmpty());
+    }
+
+    /**
+     * Menjalankan compaction secara berkala. Tidak melakukan apa-apa jika tidak ada kebijakan yang diatur.
+     */
+    public synchronized void start(long intervalMinutes) {
+        if (!isEnabled() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "history-compactor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        LOGGER.info(() -> "History compactor scheduled every " + intervalMinutes + " minute(s)");
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | IOException e) {
+            LOGGER.log(Level.WARNING, "History compaction failed", e);
+        }
+    }
+
+    /**
+     * Satu putaran compaction untuk semua room yang dikenal server.
+     *
+     * @return jumlah pesan yang dihapus
+     */
+    public long runOnce() throws IOException, InterruptedException {
+        long removed = 0;
+        for (ChatRoom room : ChatRoomService.getInstance().getAllRooms()) {
+            removed += compact(room.getId(), policyFor(room), Instant.now());
+        }
+
+        if (compactMedia && MediaStore.getInstance().needsCompaction()) {
+            MediaStore.getInstance().compact();
+        }
+
+        long total = removed;
+        if (total > 0) {
+            LOGGER.info(() -> "History compaction removed " + total + " message(s)");
+        }
+        return total;
+    }
+
+    /**
+     * Menerapkan kebijakan pada satu room.
+     *
+     * @return jumlah pesan yang dihapus
+     */
+    public long compact(String chatId, RetentionPolicy policy, Instant now) throws IOException, InterruptedException {
+        long removed = 0;
+
+        if (policy.expiresMessages()) {
+            Date olderThan = policy.maxAge() == null ? null : Date.from(now.minus(policy.maxAge()));
+            List<MessageRecord> expired;
+            do {
+                expired = store.deleteExpired(chatId, olderThan, policy.maxMessages(), batchSize);
+                if (archiver != null) {
+                    archiver.archive(chatId, expired);
+                }
+                removed += expired.size();
+                throttle(expired.size());
+            } while (expired.size() == batchSize);
+        }
+
+        if (policy.expiresMedia()) {
+            Date olderThan = Date.from(now.minus(policy.mediaMaxAge()));
+            int stripped;
+            do {
+                stripped = store.stripMedia(chatId, olderThan, batchSize);
+                throttle(stripped);
+            } while (stripped == batchSize);
+        }
+        return removed;
+    }
+
+    private void throttle(int processed) throws InterruptedException {
+        if (processed > 0 && maxPerSecond > 0) {
+            Thread.sleep(processed * 1000L / maxPerSecond);
+        }
+    }
+
+    private RetentionPolicy policyFor(ChatRoom room) {
+        if (Constants.GLOBAL_ROOM_CHAT_ID.equals(room.getId())) {
+            return globalPolicy;
+        }
+        return room instanceof PrivateChat ? privatePolicy : groupPolicy;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
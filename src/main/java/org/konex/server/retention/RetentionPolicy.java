@@ -0,0 +1,57 @@
+package org.konex.server.retention;
+
+import java.time.Duration;
+
+/**
+ * Aturan retensi riwayat sebuah room. {@code null} atau 0 berarti aturan tersebut tidak dipakai.
+ *
+ * @param maxAge      pesan yang lebih lama dari ini dihapus
+ * @param maxMessages hanya sebanyak ini pesan terbaru yang disimpan
+ * @param mediaMaxAge gambar yang lebih lama dari ini dibuang, caption tetap disimpan
+ */
+public record RetentionPolicy(Duration maxAge, int maxMessages, Duration mediaMaxAge) {
+    public static final RetentionPolicy NONE = new RetentionPolicy(null, 0, null);
+
+    /**
+     * Membaca kebijakan dari konfigurasi, mis. {@code days=30,messages=5000,mediaDays=7}.
+     * String kosong menghasilkan {@link #NONE}.
+     */
+    public static RetentionPolicy parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return NONE;
+        }
+
+        Duration maxAge = null;
+        int maxMessages = 0;
+        Duration mediaMaxAge = null;
+        for (String rule : spec.split(",")) {
+            String[] parts = rule.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid retention rule: " + rule.trim());
+            }
+            long value = Long.parseLong(parts[1].trim());
+            if (value <= 0) {
+                throw new IllegalArgumentException("Retention value must be positive: " + rule.trim());
+            }
+            switch (parts[0].trim()) {
+                case "days" -> maxAge = Duration.ofDays(value);
+                case "messages" -> maxMessages = Math.toIntExact(value);
+                case "mediaDays" -> mediaMaxAge = Duration.ofDays(value);
+                default -> throw new IllegalArgumentException("Unknown retention rule: " + parts[0].trim());
+            }
+        }
+        return new RetentionPolicy(maxAge, maxMessages, mediaMaxAge);
+    }
+
+    public boolean expiresMessages() {
+        return maxAge != null || maxMessages > 0;
+    }
+
+    public boolean expiresMedia() {
+        return mediaMaxAge != null;
+    }
+
+    public boolean isEmpty() {
+        return !expiresMessages() && !expiresMedia();
+    }
+}
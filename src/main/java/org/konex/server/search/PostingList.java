@@ -0,0 +1,102 @@
+package org.konex.server.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Daftar pesan yang memuat satu term di satu room, urut seq naik. Disimpan terkompresi sebagai selisih
+ * seq (varint) dan selisih timestamp (zigzag varint), sehingga kebanyakan entri hanya butuh beberapa byte.
+ */
+final class PostingList {
+    private byte[] data = new byte[8];
+    private int size;
+    private int count;
+    private long lastSeq;
+    private long lastTimestamp;
+
+    /**
+     * Menambahkan entri di akhir daftar. Seq yang tidak lebih besar dari entri terakhir diabaikan.
+     */
+    void add(long seq, long timestamp) {
+        if (seq <= lastSeq) {
+            return;
+        }
+        writeVarLong(seq - lastSeq);
+        writeVarLong(zigzag(timestamp - lastTimestamp));
+        lastSeq = seq;
+        lastTimestamp = timestamp;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * Mengurai seluruh entri ke dalam {@code seqs} dan {@code timestamps} (panjang minimal {@link #count()}).
+     */
+    void decode(long[] seqs, long[] timestamps) {
+        int[] position = {0};
+        long seq = 0;
+        long timestamp = 0;
+        for (int i = 0; i < count; i++) {
+            seq += readVarLong(position);
+            timestamp += unzigzag(readVarLong(position));
+            seqs[i] = seq;
+            timestamps[i] = timestamp;
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(count);
+        out.writeLong(lastSeq);
+        out.writeLong(lastTimestamp);
+        out.writeInt(size);
+        out.write(data, 0, size);
+    }
+
+    static PostingList readFrom(DataInput in) throws IOException {
+        PostingList list = new PostingList();
+        list.count = in.readInt();
+        list.lastSeq = in.readLong();
+        list.lastTimestamp = in.readLong();
+        list.size = in.readInt();
+        list.data = new byte[Math.max(8, list.size)];
+        in.readFully(list.data, 0, list.size);
+        return list;
+    }
+
+    private void writeVarLong(long value) {
+        if (size + 10 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+        }
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            data[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        data[size++] = (byte) v;
+    }
+
+    private long readVarLong(int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
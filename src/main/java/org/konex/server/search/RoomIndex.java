@@ -0,0 +1,97 @@
+package org.konex.server.search;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index satu room: term ke {@link PostingList}. Hanya thread indexer yang menambah entri;
+ * pencarian boleh berjalan bersamaan dari thread client.
+ */
+final class RoomIndex {
+    private final Map<String, PostingList> terms = new HashMap<>();
+    private long indexedUpTo;
+
+    synchronized long indexedUpTo() {
+        return indexedUpTo;
+    }
+
+    synchronized void add(long seq, long timestamp, Collection<String> messageTerms) {
+        if (seq <= indexedUpTo) {
+            return;
+        }
+        for (String term : messageTerms) {
+            terms.computeIfAbsent(term, _ -> new PostingList()).add(seq, timestamp);
+        }
+        indexedUpTo = seq;
+    }
+
+    /**
+     * Pesan yang memuat semua {@code queryTerms}, dikembalikan sebagai pasangan [seq, timestamp] urut seq naik.
+     */
+    synchronized long[][] match(Collection<String> queryTerms) {
+        List<PostingList> lists = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            PostingList list = terms.get(term);
+            if (list == null) {
+                return new long[][]{new long[0], new long[0]};
+            }
+            lists.add(list);
+        }
+        // mulai dari daftar terpendek supaya irisan cepat mengecil
+        lists.sort((a, b) -> Integer.compare(a.count(), b.count()));
+
+        long[] seqs = new long[lists.getFirst().count()];
+        long[] timestamps = new long[seqs.length];
+        lists.getFirst().decode(seqs, timestamps);
+        int matched = seqs.length;
+
+        for (PostingList list : lists.subList(1, lists.size())) {
+            long[] otherSeqs = new long[list.count()];
+            list.decode(otherSeqs, new long[otherSeqs.length]);
+            matched = intersect(seqs, timestamps, matched, otherSeqs);
+        }
+        return new long[][]{Arrays.copyOf(seqs, matched), Arrays.copyOf(timestamps, matched)};
+    }
+
+    private static int intersect(long[] seqs, long[] timestamps, int length, long[] other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < length && j < other.length; i++) {
+            while (j < other.length && other[j] < seqs[i]) {
+                j++;
+            }
+            if (j < other.length && other[j] == seqs[i]) {
+                seqs[kept] = seqs[i];
+                timestamps[kept] = timestamps[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeLong(indexedUpTo);
+        out.writeInt(terms.size());
+        for (Map.Entry<String, PostingList> entry : terms.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    static RoomIndex readFrom(DataInput in) throws IOException {
+        RoomIndex room = new RoomIndex();
+        room.indexedUpTo = in.readLong();
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            room.terms.put(in.readUTF(), PostingList.readFrom(in));
+        }
+        return room;
+    }
+}
@@ -0,0 +1,7 @@
+package org.konex.server.search;
+
+/**
+ * Satu pesan yang cocok dengan query pencarian.
+ */
+public record SearchHit(String chatId, long seq, long timestamp) {
+}
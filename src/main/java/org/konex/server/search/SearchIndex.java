@@ -0,0 +1,385 @@
+package org.konex.server.search;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.konex.common.model.Message;
+import org.konex.common.model.SearchResult;
+import org.konex.server.store.MessageStore;
+import org.konex.server.store.StoreProvider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index pencarian full-text untuk riwayat chat, dipartisi per room.
+ * <p>
+ * Pesan baru cukup dititipkan lewat {@link #submit(Message)}; satu thread indexer memprosesnya di latar sehingga
+ * routing pesan tidak pernah menunggu. Jika antrean penuh atau ada seq yang terlewat, indexer mengejar sisanya
+ * dari {@link MessageStore}. Index disimpan berkala sebagai snapshot dan dilengkapi dari store saat server
+ * dinyalakan.
+ * <p>
+ * Seq dibagikan sebelum pesan benar-benar tersimpan, jadi pesan N+1 bisa tiba lebih dulu daripada N (mis. N adalah
+ * gambar yang thumbnail-nya masih dibuat). Pesan setelah celah ditahan dulu sampai celahnya terisi; celah yang
+ * tidak terisi dalam {@link #DEFAULT_GAP_WAIT_MS} dianggap permanen (pesan gagal disimpan atau sudah dihapus).
+ */
+@SuppressWarnings("java:S6548")
+public final class SearchIndex implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+
+    private static final int MAGIC = 0x4B534958; // "KSIX"
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_FILE = "search.idx";
+    private static final int QUEUE_CAPACITY = 100_000;
+    private static final int CATCH_UP_BATCH = 1000;
+    private static final int SNAPSHOT_EVERY = 10_000;
+    private static final long SNAPSHOT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+    static final long DEFAULT_GAP_WAIT_MS = TimeUnit.SECONDS.toMillis(30);
+    // pesan dengan timestamp sama diurutkan berdasarkan seq
+    private static final Comparator<SearchHit> OLDEST_FIRST =
+            Comparator.comparingLong(SearchHit::timestamp).thenComparingLong(SearchHit::seq);
+
+    private final MessageStore store;
+    private final Path directory;
+    private final Map<String, RoomIndex> rooms = new ConcurrentHashMap<>();
+    private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    // pesan yang menunggu celah seq sebelumnya terisi; hanya disentuh thread indexer
+    private final Map<String, TreeMap<Long, Parked>> waiting = new HashMap<>();
+    private final long gapWaitMillis;
+    private final Thread indexer;
+    private volatile boolean running = true;
+
+    private int unsavedChanges;
+    private long lastSnapshot = System.currentTimeMillis();
+
+    /**
+     * Pesan yang perlu diindex, atau permintaan mengejar riwayat room dari store jika {@code message} null.
+     */
+    private record Task(String chatId, Message message) {
+    }
+
+    /**
+     * Pesan setelah celah seq, beserta sejak kapan celah itu ditunggu.
+     */
+    private record Parked(Message message, long since) {
+    }
+
+    /**
+     * @param directory folder snapshot index, atau null jika index tidak perlu disimpan ke disk
+     */
+    public SearchIndex(MessageStore store, Path directory) {
+        this(store, directory, DEFAULT_GAP_WAIT_MS);
+    }
+
+    SearchIndex(MessageStore store, Path directory, long gapWaitMillis) {
+        this.store = store;
+        this.directory = directory;
+        this.gapWaitMillis = gapWaitMillis;
+        loadSnapshot();
+
+        this.indexer = new Thread(this::indexLoop, "search-indexer");
+        this.indexer.setDaemon(true);
+        this.indexer.start();
+    }
+
+    private static final class InstanceHolder {
+        private static final SearchIndex INSTANCE = createDefault();
+    }
+
+    public static SearchIndex getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static SearchIndex createDefault() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        return new SearchIndex(StoreProvider.getInstance().getMessageStore(),
+                Paths.get(dotenv.get("SEARCH_INDEX_DIR", "data/search")));
+    }
+
+    /**
+     * Menitipkan pesan yang sudah tersimpan (punya seq) untuk diindex. Tidak pernah memblokir pemanggil.
+     */
+    public void submit(Message msg) {
+        if (msg.getSeq() <= 0 || msg.getChatId() == null) {
+            return;
+        }
+        // jika antrean penuh pesan ini dilewati; celah seq-nya akan dikejar dari store
+        queue.offer(new Task(msg.getChatId(), msg));
+    }
+
+    /**
+     * Meminta indexer melengkapi index room-room ini dengan pesan dari store yang belum terindex.
+     */
+    public void catchUp(Collection<String> chatIds) {
+        for (String chatId : chatIds) {
+            queue.offer(new Task(chatId, null));
+        }
+    }
+
+    private void indexLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Task task = queue.poll(1, TimeUnit.SECONDS);
+                if (task != null) {
+                    process(task);
+                }
+                releaseExpiredGaps();
+                snapshotIfDue();
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Search indexing failed", e);
+            }
+        }
+    }
+
+    private void process(Task task) {
+        RoomIndex room = rooms.computeIfAbsent(task.chatId(), _ -> new RoomIndex());
+        Message msg = task.message();
+        // jika sudah ada pesan yang menunggu celah, store tidak perlu dibaca ulang untuk setiap pesan baru
+        if (msg == null || (msg.getSeq() > room.indexedUpTo() + 1 && !waiting.containsKey(task.chatId()))) {
+            loadFromStore(task.chatId(), room);
+        }
+        if (msg != null) {
+            offer(task.chatId(), room, msg, System.currentTimeMillis());
+        }
+    }
+
+    private void loadFromStore(String chatId, RoomIndex room) {
+        long after = room.indexedUpTo();
+        List<Message> batch;
+        do {
+            batch = store.findAfter(chatId, after, CATCH_UP_BATCH);
+            for (Message msg : batch) {
+                // pesan lama dari store tidak perlu menunggu celah di depannya lagi
+                offer(chatId, room, msg, Math.min(msg.getDate().getTime(), System.currentTimeMillis()));
+            }
+            if (!batch.isEmpty()) {
+                after = batch.getLast().getSeq();
+            }
+        } while (batch.size() == CATCH_UP_BATCH);
+    }
+
+    private void offer(String chatId, RoomIndex room, Message msg, long since) {
+        long seq = msg.getSeq();
+        if (seq <= room.indexedUpTo()) {
+            return;
+        }
+        TreeMap<Long, Parked> parked = waiting.get(chatId);
+        if (parked == null && seq == room.indexedUpTo() + 1) {
+            index(room, msg);
+            return;
+        }
+        waiting.computeIfAbsent(chatId, _ -> new TreeMap<>()).putIfAbsent(seq, new Parked(msg, since));
+        drain(chatId, room, System.currentTimeMillis());
+    }
+
+    /**
+     * Mengindex pesan yang ditahan selama seq-nya menyambung, atau celahnya sudah ditunggu terlalu lama.
+     */
+    private void drain(String chatId, RoomIndex room, long now) {
+        TreeMap<Long, Parked> parked = waiting.get(chatId);
+        if (parked == null) {
+            return;
+        }
+        while (!parked.isEmpty()) {
+            Map.Entry<Long, Parked> first = parked.firstEntry();
+            boolean contiguous = first.getKey() <= room.indexedUpTo() + 1;
+            if (!contiguous && now - first.getValue().since() < gapWaitMillis) {
+                break;
+            }
+            parked.pollFirstEntry();
+            index(room, first.getValue().message());
+        }
+        if (parked.isEmpty()) {
+            waiting.remove(chatId);
+        }
+    }
+
+    private void releaseExpiredGaps() {
+        if (waiting.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String chatId : List.copyOf(waiting.keySet())) {
+            TreeMap<Long, Parked> parked = waiting.get(chatId);
+            if (parked != null && now - parked.firstEntry().getValue().since() >= gapWaitMillis) {
+                RoomIndex room = rooms.get(chatId);
+                // kesempatan terakhir: pesan di celah mungkin sudah tersimpan tetapi tidak sempat dititipkan
+                loadFromStore(chatId, room);
+                drain(chatId, room, now);
+            }
+        }
+    }
+
+    private void index(RoomIndex room, Message msg) {
+        if (msg.getSeq() <= room.indexedUpTo()) {
+            return;
+        }
+        room.add(msg.getSeq(), msg.getDate().getTime(), Tokenizer.terms(msg.getContent()));
+        unsavedChanges++;
+    }
+
+    /**
+     * Mencari pesan yang memuat semua kata di {@code query} pada room-room yang boleh diakses user.
+     *
+     * @param page nomor halaman, mulai dari 0
+     */
+    public SearchResult search(Collection<String> chatIds, String query, int page, int pageSize) {
+        List<SearchHit> hits = findHits(chatIds, query, page * pageSize, pageSize + 1);
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+        return new SearchResult(query, page, hasMore, loadMessages(hits));
+    }
+
+    /**
+     * Hit pencarian urut dari yang paling baru, mulai dari posisi {@code offset}.
+     */
+    public List<SearchHit> findHits(Collection<String> chatIds, String query, int offset, int limit) {
+        Set<String> terms = Tokenizer.terms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // simpan hanya offset + limit hit terbaru di min-heap
+        int wanted = offset + limit;
+        PriorityQueue<SearchHit> newest = new PriorityQueue<>(OLDEST_FIRST);
+        for (String chatId : chatIds) {
+            RoomIndex room = rooms.get(chatId);
+            if (room == null) continue;
+
+            long[][] matches = room.match(terms);
+            long[] seqs = matches[0];
+            long[] timestamps = matches[1];
+            for (int i = seqs.length - 1; i >= 0; i--) {
+                SearchHit hit = new SearchHit(chatId, seqs[i], timestamps[i]);
+                if (newest.size() == wanted && OLDEST_FIRST.compare(hit, newest.peek()) <= 0) break;
+                newest.add(hit);
+                if (newest.size() > wanted) {
+                    newest.poll();
+                }
+            }
+        }
+
+        List<SearchHit> ordered = new ArrayList<>(newest);
+        ordered.sort(OLDEST_FIRST.reversed());
+        return ordered.size() <= offset ? List.of() : ordered.subList(offset, ordered.size());
+    }
+
+    private List<Message> loadMessages(List<SearchHit> hits) {
+        Map<String, List<Long>> seqsByRoom = new LinkedHashMap<>();
+        for (SearchHit hit : hits) {
+            seqsByRoom.computeIfAbsent(hit.chatId(), _ -> new ArrayList<>()).add(hit.seq());
+        }
+
+        Map<String, Message> found = new HashMap<>();
+        for (Map.Entry<String, List<Long>> room : seqsByRoom.entrySet()) {
+            for (Message msg : store.findBySeq(room.getKey(), room.getValue())) {
+                found.put(room.getKey() + "#" + msg.getSeq(), msg);
+            }
+        }
+
+        List<Message> result = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            // pesan yang sudah dihapus retensi tidak ikut ditampilkan
+            Message msg = found.get(hit.chatId() + "#" + hit.seq());
+            if (msg != null) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+
+    private void snapshotIfDue() {
+        if (directory == null || unsavedChanges == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (unsavedChanges >= SNAPSHOT_EVERY || now - lastSnapshot >= SNAPSHOT_INTERVAL_MS) {
+            saveSnapshot();
+            lastSnapshot = now;
+        }
+    }
+
+    private void saveSnapshot() {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(SNAPSHOT_FILE);
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(rooms.size());
+                for (Map.Entry<String, RoomIndex> room : rooms.entrySet()) {
+                    out.writeUTF(room.getKey());
+                    room.getValue().writeTo(out);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            unsavedChanges = 0;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save search index snapshot", e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warning("Unknown search index snapshot format, rebuilding from store");
+                return;
+            }
+            int roomCount = in.readInt();
+            for (int i = 0; i < roomCount; i++) {
+                rooms.put(in.readUTF(), RoomIndex.readFrom(in));
+            }
+            LOGGER.info(() -> "Search index loaded: " + rooms.size() + " rooms");
+        } catch (IOException e) {
+            rooms.clear();
+            LOGGER.log(Level.WARNING, "Corrupt search index snapshot, rebuilding from store", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            indexer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        if (directory != null && unsavedChanges > 0) {
+            saveSnapshot();
+        }
+    }
+}
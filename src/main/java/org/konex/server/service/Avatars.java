@@ -0,0 +1,43 @@
+package org.konex.server.service;
+
+import org.konex.common.model.User;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Foto profil tidak ikut dikirim bersama pesan; yang dibawa hanya hash-nya.
+ */
+public final class Avatars {
+
+    private Avatars() {
+        // Utility class
+    }
+
+    /**
+     * Hash foto profil, atau null jika user tidak punya foto.
+     */
+    public static String hash(byte[] image) {
+        if (image == null || image.length == 0) {
+            return null;
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Salinan ringan user untuk dikirim ke client lain: nama, nomor HP, dan hash foto profil saja.
+     */
+    public static User reference(User user) {
+        User ref = new User();
+        ref.setUserId(user.getUserId());
+        ref.setName(user.getName());
+        ref.setPhoneNumber(user.getPhoneNumber());
+        ref.setAvatarHash(user.getAvatarHash() != null ? user.getAvatarHash() : hash(user.getProfileImage()));
+        return ref;
+    }
+}
@@ -1,18 +1,24 @@
 package org.konex.server.service;
 
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.UpdateOptions;
-import org.bson.Document;
+import io.github.cdimascio.dotenv.Dotenv;
 import org.konex.common.constants.Constants;
 import org.konex.common.interfaces.ChatRoom;
+import org.konex.common.model.Message;
 import org.konex.common.model.User;
-import org.konex.server.database.DatabaseManager;
 import org.konex.server.entity.GroupChat;
+import org.konex.server.entity.MessageRingBuffer;
 import org.konex.server.entity.PrivateChat;
-
+import org.konex.server.store.GroupRecord;
+import org.konex.server.store.PrivateChatRecord;
+import org.konex.server.store.RoomStore;
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.UserStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
@@ -20,11 +26,24 @@ import java.util.logging.Logger;
 public final class ChatRoomService {
     private static final Logger LOGGER = Logger.getLogger(ChatRoomService.class.getName());
     private static ChatRoomService instance;
+    private static final int MEMBER_LOAD_PAGE = 5000;
 
     // Map untuk menyimpan Room. Key: ChatID, Value: ChatRoom Object
     private final Map<String, ChatRoom> activeRooms = new ConcurrentHashMap<>();
+    // Key: nomor HP, Value: ID grup dan private chat yang diikuti. Global room tidak dicatat karena semua user ikut.
+    private final Map<String, Set<String>> roomsByUser = new ConcurrentHashMap<>();
+    private final MembershipWriter membershipWriter = new MembershipWriter(this::roomStore);
+
+    private final int groupHistoryCapacity;
+    private final int privateHistoryCapacity;
 
     private ChatRoomService() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        groupHistoryCapacity = Integer.parseInt(dotenv.get("GROUP_HISTORY_CAPACITY",
+                String.valueOf(Constants.DEFAULT_GROUP_HISTORY_CAPACITY)));
+        privateHistoryCapacity = Integer.parseInt(dotenv.get("PRIVATE_HISTORY_CAPACITY",
+                String.valueOf(Constants.DEFAULT_PRIVATE_HISTORY_CAPACITY)));
+
         createGlobalRoom();
         loadGroupsFromDB();
         loadPrivateChatsFromDB();
@@ -41,21 +60,18 @@ public final class ChatRoomService {
         User systemUser = new User();
         systemUser.setPhoneNumber("0000");
         systemUser.setName("System");
-        GroupChat globalChat = new GroupChat("global_room", "Global Chat", systemUser);
+        GroupChat globalChat = new GroupChat("global_room", "Global Chat", systemUser, groupHistoryCapacity);
         activeRooms.put(globalChat.getId(), globalChat);
     }
 
     private void loadGroupsFromDB() {
         try {
-            MongoCollection<Document> collection = DatabaseManager.getInstance().getCollection(Constants.COLLECTION_GROUPS);
-
-            for (Document doc : collection.find()) {
-                String groupId = doc.getString("_id");
-                if ("global_room".equals(groupId)) continue;
+            for (GroupRecord doc : roomStore().findAllGroups()) {
+                String groupId = doc.id();
+                if (Constants.GLOBAL_ROOM_CHAT_ID.equals(groupId)) continue;
 
-                String groupName = doc.getString("name");
-                String adminPhone = doc.getString("adminPhone");
-                List<String> memberPhones = doc.getList("members", String.class);
+                String groupName = doc.name();
+                String adminPhone = doc.adminPhone();
 
                 User admin = findUserByPhone(adminPhone);
                 if (admin == null) {
@@ -64,39 +80,46 @@ public final class ChatRoomService {
                     admin.setName("Unknown");
                 }
 
-                GroupChat group = new GroupChat(groupId, groupName, admin);
+                GroupChat group = new GroupChat(groupId, groupName, admin, groupHistoryCapacity);
 
-                if (memberPhones != null) {
-                    for (String phone : memberPhones) {
-                        User member = findUserByPhone(phone);
-                        if (member != null) {
-                            group.inviteMember(member);
-                        }
-                    }
-                }
+                loadMembers(group);
 
                 activeRooms.put(groupId, group);
-                LOGGER.info(() -> String.format("Group loaded from DB: %s", groupName));
+                group.getMemberPhones().forEach(phone -> indexRoom(phone, groupId));
+                LOGGER.info(() -> String.format("Group loaded from DB: %s (%d members)",
+                        groupName, group.getMemberCount()));
             }
         } catch (Exception e) {
             LOGGER.warning(() -> String.format("Failed to load groups: %s", e.getMessage()));
         }
     }
 
+    /**
+     * Memuat nomor anggota per halaman; detail user baru diambil saat dibutuhkan.
+     */
+    private void loadMembers(GroupChat group) {
+        List<String> page;
+        String after = null;
+        do {
+            page = roomStore().findMembers(group.getId(), after, MEMBER_LOAD_PAGE);
+            page.forEach(group::addMemberPhone);
+            if (!page.isEmpty()) {
+                after = page.getLast();
+            }
+        } while (page.size() == MEMBER_LOAD_PAGE);
+    }
+
     private void loadPrivateChatsFromDB() {
         try {
-            MongoCollection<Document> collection = DatabaseManager.getInstance().getCollection(Constants.COLLECTION_GROUPS);
-            for (Document doc : collection.find(Filters.eq("type", "PRIVATE"))) {
-                String id = doc.getString("_id");
-                String p1 = doc.getString("user1_phone");
-                String p2 = doc.getString("user2_phone");
-
-                User u1 = findUserByPhone(p1);
-                User u2 = findUserByPhone(p2);
+            for (PrivateChatRecord doc : roomStore().findAllPrivateChats()) {
+                User u1 = findUserByPhone(doc.firstPhone());
+                User u2 = findUserByPhone(doc.secondPhone());
 
                 if (u1 != null && u2 != null) {
-                    PrivateChat pc = new PrivateChat(id, u1, u2);
-                    activeRooms.put(id, pc);
+                    PrivateChat pc = new PrivateChat(doc.id(), u1, u2, privateHistoryCapacity);
+                    activeRooms.put(doc.id(), pc);
+                    indexRoom(doc.firstPhone(), doc.id());
+                    indexRoom(doc.secondPhone(), doc.id());
                 }
             }
         } catch (Exception _) {
@@ -106,23 +129,13 @@ public final class ChatRoomService {
 
     public void saveGroup(GroupChat group) {
         try {
-            List<String> memberPhones = group.getMembers().stream()
-                    .map(User::getPhoneNumber)
-                    .toList();
-
-            Document doc = new Document()
-                    .append("_id", group.getId())
-                    .append("name", group.getName())
-                    .append("adminPhone", group.getAdmin().getPhoneNumber())
-                    .append("members", memberPhones);
-
-            DatabaseManager.getInstance().getCollection(Constants.COLLECTION_GROUPS).updateOne(
-                    Filters.eq("_id", group.getId()),
-                    new Document("$set", doc),
-                    new UpdateOptions().upsert(true)
-            );
+            List<String> memberPhones = List.copyOf(group.getMemberPhones());
+
+            roomStore().saveGroup(new GroupRecord(group.getId(), group.getName(),
+                    group.getAdmin().getPhoneNumber(), memberPhones));
 
             activeRooms.put(group.getId(), group);
+            memberPhones.forEach(phone -> indexRoom(phone, group.getId()));
 
             LOGGER.info("Group saved to DB: " + group.getName());
         } catch (Exception e) {
@@ -130,17 +143,90 @@ public final class ChatRoomService {
         }
     }
 
+    /**
+     * Menambahkan user ke grup. Untuk grup selain global room, perubahannya disimpan sebagai delta.
+     */
+    public void addMember(GroupChat group, User user) {
+        group.inviteMember(user);
+        if (!Constants.GLOBAL_ROOM_CHAT_ID.equals(group.getId())) {
+            membershipWriter.added(group.getId(), user.getPhoneNumber());
+            indexRoom(user.getPhoneNumber(), group.getId());
+        }
+    }
+
+    /**
+     * Menyimpan pengeluaran anggota yang sudah dilakukan lewat {@link org.konex.server.entity.GroupProxy}.
+     */
+    public void memberRemoved(GroupChat group, String phone) {
+        if (!Constants.GLOBAL_ROOM_CHAT_ID.equals(group.getId())) {
+            membershipWriter.removed(group.getId(), phone);
+            Set<String> rooms = roomsByUser.get(phone);
+            if (rooms != null) {
+                rooms.remove(group.getId());
+            }
+        }
+    }
+
+    private void indexRoom(String phone, String chatId) {
+        if (phone != null) {
+            roomsByUser.computeIfAbsent(phone, _ -> ConcurrentHashMap.newKeySet()).add(chatId);
+        }
+    }
+
+    /**
+     * Room yang diikuti user: global room, grup tempat ia menjadi anggota, dan private chat miliknya.
+     */
+    public List<ChatRoom> getRoomsOf(String phone) {
+        List<ChatRoom> rooms = new ArrayList<>();
+        rooms.add(activeRooms.get(Constants.GLOBAL_ROOM_CHAT_ID));
+        for (String chatId : roomsByUser.getOrDefault(phone, Set.of())) {
+            ChatRoom room = activeRooms.get(chatId);
+            if (room != null) {
+                rooms.add(room);
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Menulis perubahan keanggotaan yang masih tertunda, dipanggil saat server berhenti.
+     */
+    public void flushMemberships() {
+        membershipWriter.flush();
+    }
+
+    /**
+     * Satu halaman anggota grup beserta nama mereka, tanpa password dan foto profil.
+     * Nomor yang belum terdaftar sebagai user tetap dikembalikan dengan nama kosong.
+     */
+    public List<User> getMemberPage(GroupChat group, String afterPhone, int limit) {
+        List<String> phones = group.getMemberPage(afterPhone, limit);
+        Map<String, User> found = new HashMap<>();
+        try {
+            for (User stored : userStore().findByPhones(phones)) {
+                found.put(stored.getPhoneNumber(), stored);
+            }
+        } catch (Exception e) {
+            LOGGER.warning(() -> String.format("Failed to resolve members: %s", e.getMessage()));
+        }
+
+        List<User> page = new ArrayList<>(phones.size());
+        for (String phone : phones) {
+            User stored = found.get(phone);
+            User member = new User();
+            member.setPhoneNumber(phone);
+            member.setName(stored == null ? null : stored.getName());
+            member.setAvatarHash(stored == null ? null : stored.getAvatarHash());
+            page.add(member);
+        }
+        return page;
+    }
+
     private User findUserByPhone(String phone) {
         try {
-            Document doc = DatabaseManager.getInstance().getCollection("users")
-                    .find(Filters.eq("phoneNumber", phone)).first();
-
-            if (doc != null) {
-                User u = new User();
-                u.setPhoneNumber(doc.getString("phoneNumber"));
-                u.setName(doc.getString("name"));
-                u.setProfileImage(doc.getString("profileImage"));
-                return u;
+            User stored = userStore().findByPhone(phone);
+            if (stored != null) {
+                return Avatars.reference(stored);
             }
         } catch (Exception _) {
             // Ignore
@@ -148,6 +234,14 @@ public final class ChatRoomService {
         return null;
     }
 
+    private RoomStore roomStore() {
+        return StoreProvider.getInstance().getRoomStore();
+    }
+
+    private UserStore userStore() {
+        return StoreProvider.getInstance().getUserStore();
+    }
+
     public java.util.Collection<ChatRoom> getAllRooms() {
         return activeRooms.values();
     }
@@ -156,9 +250,82 @@ public final class ChatRoomService {
         return activeRooms.get(id);
     }
 
+    /**
+     * Apakah user boleh membaca isi room: anggota grup, atau salah satu peserta private chat.
+     */
+    public boolean canAccess(ChatRoom room, User user) {
+        if (user == null) {
+            return false;
+        }
+        if (room instanceof GroupChat group) {
+            return group.isMember(user);
+        }
+        if (room instanceof PrivateChat pc) {
+            String phone = user.getPhoneNumber();
+            return phone != null && (phone.equals(pc.getFirstParticipant().getPhoneNumber())
+                    || phone.equals(pc.getSecondParticipant().getPhoneNumber()));
+        }
+        return false;
+    }
+
+    /**
+     * Riwayat terbaru sebuah room dari buffer di memori. Store hanya dibaca sekali, saat room pertama kali diminta.
+     */
+    public List<Message> getRecentHistory(ChatRoom room) {
+        MessageRingBuffer buffer;
+        if (room instanceof GroupChat group) {
+            buffer = group.getHistoryBuffer();
+        } else if (room instanceof PrivateChat pc) {
+            buffer = pc.getHistoryBuffer();
+        } else {
+            return List.of();
+        }
+
+        if (!buffer.isSeeded()) {
+            synchronized (buffer) {
+                if (!buffer.isSeeded()) {
+                    buffer.seed(StoreProvider.getInstance().getMessageStore()
+                            .findRecent(room.getId(), buffer.capacity()));
+                }
+            }
+        }
+        return buffer.snapshot();
+    }
+
+    /**
+     * Riwayat yang seq-nya lebih besar dari {@code afterSeq}, untuk client yang sudah menyimpan sisanya.
+     * <p>
+     * Jika pesan yang dimiliki client sudah lebih tua dari isi buffer, celahnya diambil dari store. Celah yang
+     * lebih panjang dari {@link Constants#CLIENT_HISTORY_WINDOW} hanya diisi bagian terbarunya: client menerima
+     * rentang utuh yang cukup panjang untuk menggeser semua pesan lama keluar dari cache-nya.
+     */
+    public List<Message> getHistoryAfter(ChatRoom room, long afterSeq) {
+        List<Message> recent = getRecentHistory(room);
+        if (afterSeq <= 0) {
+            return recent;
+        }
+        List<Message> newer = new ArrayList<>();
+        long oldestBuffered = recent.isEmpty() ? afterSeq + 1 : recent.getFirst().getSeq();
+        if (afterSeq + 1 < oldestBuffered) {
+            long from = Math.max(afterSeq, oldestBuffered - 1 - Constants.CLIENT_HISTORY_WINDOW);
+            for (Message msg : StoreProvider.getInstance().getMessageStore()
+                    .findAfter(room.getId(), from, (int) (oldestBuffered - 1 - from))) {
+                if (msg.getSeq() < oldestBuffered) {
+                    newer.add(msg);
+                }
+            }
+        }
+        for (Message msg : recent) {
+            if (msg.getSeq() > afterSeq) {
+                newer.add(msg);
+            }
+        }
+        return newer;
+    }
+
     public GroupChat createNewGroup(String name, User admin) {
         String newId = "group_" + System.currentTimeMillis();
-        GroupChat newGroup = new GroupChat(newId, name, admin);
+        GroupChat newGroup = new GroupChat(newId, name, admin, groupHistoryCapacity);
         saveGroup(newGroup);
         return newGroup;
     }
@@ -178,27 +345,21 @@ public final class ChatRoomService {
             return activeRooms.get(privateId);
         }
 
-        PrivateChat newChat = new PrivateChat(privateId, user1, user2);
+        PrivateChat newChat = new PrivateChat(privateId, user1, user2, privateHistoryCapacity);
 
         savePrivateChat(newChat);
         activeRooms.put(privateId, newChat);
+        indexRoom(p1, privateId);
+        indexRoom(p2, privateId);
 
         return newChat;
     }
 
-    public void savePrivateChat(org.konex.server.entity.PrivateChat chat) {
+    public void savePrivateChat(PrivateChat chat) {
         try {
-            Document doc = new Document()
-                    .append("_id", chat.getId())
-                    .append("type", "PRIVATE")
-                    .append("user1_phone", chat.getFirstParticipant().getPhoneNumber())
-                    .append("user2_phone", chat.getSecondParticipant().getPhoneNumber());
-
-            DatabaseManager.getInstance().getCollection(Constants.COLLECTION_GROUPS).updateOne(
-                    Filters.eq("_id", chat.getId()),
-                    new Document("$set", doc),
-                    new UpdateOptions().upsert(true)
-            );
+            roomStore().savePrivateChat(new PrivateChatRecord(chat.getId(),
+                    chat.getFirstParticipant().getPhoneNumber(),
+                    chat.getSecondParticipant().getPhoneNumber()));
 
             LOGGER.info("Private Chat saved: " + chat.getId());
         } catch (Exception e) {
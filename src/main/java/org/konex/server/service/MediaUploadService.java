@@ -0,0 +1,266 @@
+package org.konex.server.service;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.konex.common.model.MediaChunk;
+import org.konex.common.model.UploadStatus;
+import org.konex.server.store.MessageStore;
+import org.konex.server.store.StoreProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Menerima upload media per potongan dan menuliskannya langsung ke file sementara, sehingga memori yang dipakai
+ * per upload hanya sebesar satu potongan berapa pun ukuran file-nya.
+ * <p>
+ * Potongan harus datang berurutan. Jika offset tidak cocok (mis. setelah koneksi putus), server membalas dengan
+ * jumlah byte yang sudah diterima dan client melanjutkan dari sana. Setelah potongan terakhir, checksum SHA-256
+ * diverifikasi lalu file dipindahkan ke store. Media hasil upload hanya boleh dipakai sekali oleh pesan gambar
+ * milik pengunggahnya ({@link #claim}).
+ */
+@SuppressWarnings("java:S6548")
+public final class MediaUploadService implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MediaUploadService.class.getName());
+    private static final long IDLE_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
+    private static final Pattern UPLOAD_ID = Pattern.compile("[A-Za-z0-9-]{8,64}");
+    private static final String PART_SUFFIX = ".part";
+
+    private final Supplier<MessageStore> store;
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    // media yang sudah selesai diunggah tetapi belum dipakai pesan; key: pemilik + mediaId, value: waktu selesai
+    private final Map<String, Long> unclaimed = new ConcurrentHashMap<>();
+
+    private static final class Upload {
+        private final String owner;
+        private final Path file;
+        private final FileChannel channel;
+        private final MessageDigest digest;
+        private long received;
+        private long lastActivity;
+
+        private Upload(String owner, Path file, FileChannel channel, MessageDigest digest, long received) {
+            this.owner = owner;
+            this.file = file;
+            this.channel = channel;
+            this.digest = digest;
+            this.received = received;
+            this.lastActivity = System.currentTimeMillis();
+        }
+    }
+
+    public MediaUploadService(Supplier<MessageStore> store, Path directory, long maxBytes) {
+        this.store = store;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    private static final class InstanceHolder {
+        private static final MediaUploadService INSTANCE = createDefault();
+    }
+
+    public static MediaUploadService getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static MediaUploadService createDefault() {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        return new MediaUploadService(() -> StoreProvider.getInstance().getMessageStore(),
+                Paths.get(dotenv.get("UPLOAD_DIR", "data/uploads")),
+                Long.parseLong(dotenv.get("MAX_UPLOAD_MB", "50")) * 1024 * 1024);
+    }
+
+    /**
+     * Menulis satu potongan upload.
+     *
+     * @return status untuk dikirim balik ke client, atau null jika potongan diterima dan tidak perlu dibalas
+     */
+    public UploadStatus accept(String owner, MediaChunk chunk) {
+        String uploadId = chunk.getTransferId();
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            return UploadStatus.failed(uploadId, "ID upload tidak valid.");
+        }
+        if (chunk.getTotalSize() > maxBytes) {
+            return UploadStatus.failed(uploadId, "Ukuran file melebihi batas " + maxBytes / (1024 * 1024) + " MB.");
+        }
+
+        Upload upload;
+        try {
+            purgeIdle();
+            upload = uploads.computeIfAbsent(uploadId, id -> open(owner, id));
+        } catch (UncheckedIOException e) {
+            LOGGER.log(Level.WARNING, "Failed to open upload " + uploadId, e);
+            return UploadStatus.failed(uploadId, "Gagal menyimpan upload.");
+        }
+
+        synchronized (upload) {
+            if (!upload.owner.equals(owner)) {
+                return UploadStatus.failed(uploadId, "Upload ini milik user lain.");
+            }
+            upload.lastActivity = System.currentTimeMillis();
+
+            byte[] data = chunk.getData() == null ? new byte[0] : chunk.getData();
+            if (chunk.getOffset() != upload.received) {
+                return UploadStatus.resumeFrom(uploadId, upload.received);
+            }
+            if (upload.received + data.length > maxBytes) {
+                discard(uploadId, upload);
+                return UploadStatus.failed(uploadId, "Ukuran file melebihi batas " + maxBytes / (1024 * 1024) + " MB.");
+            }
+
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    upload.channel.write(buffer, upload.received + buffer.position());
+                }
+                upload.digest.update(data);
+                upload.received += data.length;
+
+                if (chunk.isLast()) {
+                    return complete(uploadId, upload, chunk.getSha256());
+                }
+                // potongan kosong dipakai client untuk menanyakan posisi upload
+                return data.length == 0 ? UploadStatus.resumeFrom(uploadId, upload.received) : null;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Upload " + uploadId + " failed", e);
+                discard(uploadId, upload);
+                return UploadStatus.failed(uploadId, "Gagal menyimpan upload.");
+            }
+        }
+    }
+
+    private UploadStatus complete(String uploadId, Upload upload, String expectedSha256) throws IOException {
+        uploads.remove(uploadId);
+        upload.channel.close();
+
+        String actual = HexFormat.of().formatHex(upload.digest.digest());
+        if (!actual.equalsIgnoreCase(expectedSha256)) {
+            Files.deleteIfExists(upload.file);
+            return UploadStatus.failed(uploadId, "Checksum file tidak cocok, silakan kirim ulang.");
+        }
+
+        String mediaId = store.get().saveMedia(upload.file);
+        Files.deleteIfExists(upload.file);
+        unclaimed.put(claimKey(upload.owner, mediaId), System.currentTimeMillis());
+        return UploadStatus.completed(uploadId, upload.received, mediaId);
+    }
+
+    private Upload open(String owner, String uploadId) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(uploadId + PART_SUFFIX);
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            // lanjutan upload yang terputus saat server restart: hitung ulang checksum bagian yang sudah ada
+            MessageDigest digest = newSha256();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+                position += read;
+            }
+            return new Upload(owner, file, channel, digest, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Menandai media hasil upload sebagai dipakai oleh pesan. Gagal jika media itu bukan upload milik
+     * {@code owner} atau sudah pernah dipakai.
+     */
+    public boolean claim(String owner, String mediaId) {
+        return unclaimed.remove(claimKey(owner, mediaId)) != null;
+    }
+
+    /**
+     * Mengembalikan media yang gagal disimpan bersama pesannya supaya kiriman ulang pesan bisa memakainya lagi.
+     */
+    public void unclaim(String owner, String mediaId) {
+        unclaimed.put(claimKey(owner, mediaId), System.currentTimeMillis());
+    }
+
+    private void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - IDLE_TIMEOUT_MS;
+        for (Map.Entry<String, Upload> entry : uploads.entrySet()) {
+            Upload upload = entry.getValue();
+            synchronized (upload) {
+                if (upload.lastActivity < cutoff) {
+                    discard(entry.getKey(), upload);
+                }
+            }
+        }
+
+        Iterator<Map.Entry<String, Long>> it = unclaimed.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() < cutoff) {
+                it.remove();
+                releaseQuietly(entry.getKey().substring(entry.getKey().indexOf(':') + 1));
+            }
+        }
+    }
+
+    private void discard(String uploadId, Upload upload) {
+        uploads.remove(uploadId, upload);
+        try {
+            upload.channel.close();
+            Files.deleteIfExists(upload.file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete upload " + uploadId, e);
+        }
+    }
+
+    private void releaseQuietly(String mediaId) {
+        try {
+            store.get().releaseMedia(mediaId);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to release unused media " + mediaId, e);
+        }
+    }
+
+    private static String claimKey(String owner, String mediaId) {
+        return owner + ":" + mediaId;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Upload upload : uploads.values()) {
+            try {
+                upload.channel.close();
+            } catch (IOException _) {
+                // file .part tetap ada untuk dilanjutkan setelah restart
+            }
+        }
+        uploads.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package org.konex.server.service;
+
+import org.konex.server.store.RoomStore;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mengumpulkan perubahan keanggotaan grup dan menuliskannya ke store sebagai delta per grup.
+ * Join/kick yang datang beruntun dalam satu jendela flush digabung menjadi satu kali tulis.
+ */
+final class MembershipWriter implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MembershipWriter.class.getName());
+    private static final long FLUSH_DELAY_MS = 200;
+
+    private final Supplier<RoomStore> store;
+    private final Map<String, Pending> pending = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "membership-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean flushScheduled;
+
+    private static final class Pending {
+        private final Set<String> added = new LinkedHashSet<>();
+        private final Set<String> removed = new LinkedHashSet<>();
+    }
+
+    MembershipWriter(Supplier<RoomStore> store) {
+        this.store = store;
+    }
+
+    synchronized void added(String groupId, String phone) {
+        Pending changes = pending.computeIfAbsent(groupId, _ -> new Pending());
+        changes.removed.remove(phone);
+        changes.added.add(phone);
+        scheduleFlush();
+    }
+
+    synchronized void removed(String groupId, String phone) {
+        Pending changes = pending.computeIfAbsent(groupId, _ -> new Pending());
+        changes.added.remove(phone);
+        changes.removed.add(phone);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Menulis semua perubahan yang tertunda. Dipanggil oleh scheduler, atau langsung saat server berhenti.
+     */
+    void flush() {
+        Map<String, Pending> batch;
+        synchronized (this) {
+            batch = new HashMap<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+
+        for (Map.Entry<String, Pending> entry : batch.entrySet()) {
+            String groupId = entry.getKey();
+            Pending changes = entry.getValue();
+            try {
+                if (!changes.removed.isEmpty()) {
+                    store.get().removeMembers(groupId, List.copyOf(changes.removed));
+                }
+                if (!changes.added.isEmpty()) {
+                    store.get().addMembers(groupId, List.copyOf(changes.added));
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to save membership changes of group " + groupId, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+}
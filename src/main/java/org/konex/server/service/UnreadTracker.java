@@ -0,0 +1,159 @@
+package org.konex.server.service;
+
+import org.konex.common.model.Message;
+import org.konex.server.store.MessageStore;
+import org.konex.server.store.ReadState;
+import org.konex.server.store.ReadStateStore;
+import org.konex.server.store.StoreProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Menghitung pesan belum dibaca per user per room tanpa membaca riwayat.
+ * <p>
+ * Setiap room punya satu penghitung seq terakhir yang dinaikkan saat pesan tersimpan, dan setiap user menyimpan
+ * seq terakhir yang sudah ia baca per room. Jumlah belum dibaca adalah selisih keduanya, jadi satu pesan di grup
+ * besar hanya mengubah satu penghitung, bukan satu per anggota. Perubahan status baca dikumpulkan lalu ditulis
+ * ke store per batch.
+ */
+@SuppressWarnings("java:S6548")
+public final class UnreadTracker implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(UnreadTracker.class.getName());
+    private static final long FLUSH_INTERVAL_MS = 2000;
+
+    private final Supplier<ReadStateStore> readStore;
+    private final Supplier<MessageStore> messageStore;
+    private final Map<String, AtomicLong> roomHeads = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> readSeqs = new ConcurrentHashMap<>();
+    private final Map<String, ReadState> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "read-state-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UnreadTracker(Supplier<ReadStateStore> readStore, Supplier<MessageStore> messageStore) {
+        this.readStore = readStore;
+        this.messageStore = messageStore;
+        scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class InstanceHolder {
+        private static final UnreadTracker INSTANCE = new UnreadTracker(
+                () -> StoreProvider.getInstance().getReadStateStore(),
+                () -> StoreProvider.getInstance().getMessageStore());
+    }
+
+    public static UnreadTracker getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Mencatat pesan yang baru tersimpan (sudah punya seq).
+     */
+    public void messageStored(Message msg) {
+        headOf(msg.getChatId()).accumulateAndGet(msg.getSeq(), Math::max);
+    }
+
+    /**
+     * Menandai semua pesan room ini sudah dibaca user.
+     */
+    public void markAllRead(String phone, String chatId) {
+        markRead(phone, chatId, headOf(chatId).get());
+    }
+
+    /**
+     * Menandai pesan sampai {@code seq} sudah dibaca user. Seq yang lebih kecil dari sebelumnya diabaikan.
+     */
+    public void markRead(String phone, String chatId, long seq) {
+        Map<String, Long> rooms = readSeqsOf(phone);
+        Long previous = rooms.get(chatId);
+        if (previous == null || seq > previous) {
+            rooms.merge(chatId, seq, Math::max);
+            dirty.put(key(phone, chatId), new ReadState(phone, chatId, seq));
+        }
+    }
+
+    /**
+     * Jumlah pesan belum dibaca user di room ini. Room yang belum pernah dibuka user mulai dihitung dari
+     * pesan berikutnya, bukan dari seluruh riwayat.
+     */
+    public int unreadCount(String phone, String chatId) {
+        long head = headOf(chatId).get();
+        Long read = readSeqsOf(phone).get(chatId);
+        if (read == null) {
+            markRead(phone, chatId, head);
+            return 0;
+        }
+        return Math.clamp(head - read, 0, Integer.MAX_VALUE);
+    }
+
+    public Map<String, Integer> unreadCounts(String phone, Collection<String> chatIds) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String chatId : chatIds) {
+            counts.put(chatId, unreadCount(phone, chatId));
+        }
+        return counts;
+    }
+
+    private AtomicLong headOf(String chatId) {
+        return roomHeads.computeIfAbsent(chatId, id -> new AtomicLong(messageStore.get().findLastSeq(id)));
+    }
+
+    private Map<String, Long> readSeqsOf(String phone) {
+        return readSeqs.computeIfAbsent(phone, p -> {
+            Map<String, Long> rooms = new ConcurrentHashMap<>();
+            for (ReadState state : readStore.get().findReadStates(p)) {
+                rooms.put(state.chatId(), state.lastReadSeq());
+            }
+            return rooms;
+        });
+    }
+
+    /**
+     * Menulis status baca yang berubah sejak flush terakhir. Dipanggil berkala, atau langsung saat server berhenti.
+     */
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<ReadState> batch = new ArrayList<>(dirty.size());
+        for (String key : dirty.keySet()) {
+            ReadState state = dirty.remove(key);
+            if (state != null) {
+                batch.add(state);
+            }
+        }
+        try {
+            readStore.get().saveReadStates(batch);
+        } catch (RuntimeException e) {
+            // kembalikan supaya dicoba lagi di flush berikutnya, kecuali sudah ada status yang lebih baru
+            for (ReadState state : batch) {
+                dirty.putIfAbsent(key(state.phoneNumber(), state.chatId()), state);
+            }
+            LOGGER.log(Level.WARNING, "Failed to save read states", e);
+        }
+    }
+
+    private static String key(String phone, String chatId) {
+        return phone + ":" + chatId;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,301 @@
+package org.konex.server.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.konex.common.model.Message;
+import org.konex.common.model.User;
+import org.konex.server.store.log.MessageLog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Backend on-disk tanpa database eksternal. Pesan disimpan di {@link MessageLog}; user dan room ditulis sebagai
+ * satu baris JSON (append-only journal) lalu diputar ulang ke memori saat server dinyalakan.
+ */
+public class EmbeddedStore extends InMemoryStore {
+    private static final Logger LOGGER = Logger.getLogger(EmbeddedStore.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int DEFAULT_SHARDS = 4;
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final MessageLog messageLog;
+    private final BufferedWriter userJournal;
+    private final BufferedWriter groupJournal;
+    private final BufferedWriter membershipJournal;
+    private final BufferedWriter privateChatJournal;
+    private final BufferedWriter readStateJournal;
+
+    public EmbeddedStore(Path directory) {
+        this(directory, DEFAULT_SHARDS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public EmbeddedStore(Path directory, int logShards, int logSegmentSize) {
+        try {
+            Files.createDirectories(directory);
+
+            Path users = directory.resolve("users.jsonl");
+            Path groups = directory.resolve("groups.jsonl");
+            Path memberships = directory.resolve("memberships.jsonl");
+            Path privateChats = directory.resolve("private_chats.jsonl");
+            Path readStates = directory.resolve("read_states.jsonl");
+
+            replay(users, User.class, super::save);
+            replay(groups, GroupRecord.class, super::saveGroup);
+            replay(memberships, MembershipChange.class, this::applyMembershipChange);
+            replay(privateChats, PrivateChatRecord.class, super::savePrivateChat);
+            replay(readStates, ReadState.class, state -> super.saveReadStates(List.of(state)));
+
+            this.messageLog = new MessageLog(directory.resolve("messages"), logShards, logSegmentSize);
+            importLegacyJournal(directory.resolve("messages.jsonl"));
+
+            this.userJournal = openJournal(users);
+            this.groupJournal = openJournal(groups);
+            this.membershipJournal = openJournal(memberships);
+            this.privateChatJournal = openJournal(privateChats);
+            this.readStateJournal = openJournal(readStates);
+
+            LOGGER.info(() -> "Embedded store opened: " + directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membuka embedded store: " + directory, e);
+        }
+    }
+
+    private static <T> void replay(Path file, Class<T> type, Consumer<T> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    sink.accept(MAPPER.readValue(line, type));
+                } catch (IOException _) {
+                    // baris terakhir bisa terpotong jika server mati saat menulis
+                    LOGGER.warning(() -> "Skipping corrupt journal entry in " + file.getFileName());
+                }
+            }
+        }
+    }
+
+    private void importLegacyJournal(Path legacy) throws IOException {
+        if (!Files.exists(legacy)) {
+            return;
+        }
+        List<CompletableFuture<Long>> pending = new ArrayList<>();
+        replay(legacy, MessageRecord.class, entry -> pending.add(messageLog.append(entry)));
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        Files.move(legacy, legacy.resolveSibling("messages.jsonl.imported"));
+        LOGGER.info(() -> "Imported " + pending.size() + " messages from legacy journal");
+    }
+
+    private static BufferedWriter openJournal(Path file) throws IOException {
+        return Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void append(BufferedWriter journal, Object entry) {
+        appendAll(journal, List.of(entry));
+    }
+
+    /**
+     * Menulis beberapa entry sekaligus dengan satu kali flush.
+     */
+    private static void appendAll(BufferedWriter journal, Collection<?> entries) {
+        try {
+            List<String> lines = new ArrayList<>(entries.size());
+            for (Object entry : entries) {
+                lines.add(MAPPER.writeValueAsString(entry));
+            }
+            synchronized (journal) {
+                for (String line : lines) {
+                    journal.write(line);
+                    journal.newLine();
+                }
+                journal.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal menulis journal", e);
+        }
+    }
+
+    @Override
+    public void save(Message msg) {
+        long seq = messageLog.append(MessageRecord.from(msg)).join();
+        msg.setSeq(seq);
+    }
+
+    @Override
+    public List<Message> findByChatId(String chatId) {
+        return toMessages(messageLog.readAll(chatId));
+    }
+
+    @Override
+    public List<Message> findRecent(String chatId, int limit) {
+        return toMessages(messageLog.readLatest(chatId, limit));
+    }
+
+    @Override
+    public String saveMedia(Path file) {
+        return MediaPayloads.save(file);
+    }
+
+    @Override
+    public long findMediaSize(String mediaId) {
+        return MediaPayloads.size(mediaId);
+    }
+
+    @Override
+    public byte[] readMedia(String mediaId, long offset, int maxLength) {
+        return MediaPayloads.read(mediaId, offset, maxLength);
+    }
+
+    @Override
+    public void releaseMedia(String mediaId) {
+        MediaPayloads.release(mediaId);
+    }
+
+    @Override
+    public long findLastSeq(String chatId) {
+        return messageLog.lastSeq(chatId);
+    }
+
+    @Override
+    public List<Message> findAfter(String chatId, long afterSeq, int limit) {
+        return toMessages(messageLog.readRange(chatId, afterSeq + 1, afterSeq + limit));
+    }
+
+    @Override
+    public List<Message> findBySeq(String chatId, Collection<Long> seqs) {
+        List<MessageRecord> entries = new ArrayList<>(seqs.size());
+        for (long seq : seqs) {
+            entries.addAll(messageLog.readRange(chatId, seq, seq));
+        }
+        return toMessages(entries);
+    }
+
+    @Override
+    public List<MessageRecord> deleteExpired(String chatId, Date olderThan, int keepLatest, int limit) {
+        long keepFromSeq = keepLatest > 0 ? messageLog.lastSeq(chatId) - keepLatest : 0;
+        List<MessageRecord> expired = new ArrayList<>();
+        for (MessageRecord entry : messageLog.readOldest(chatId, limit)) {
+            if (!isExpired(entry.timestamp(), entry.seq(), olderThan, keepFromSeq)) break;
+            expired.add(entry);
+        }
+        if (expired.isEmpty()) {
+            return expired;
+        }
+
+        try {
+            messageLog.truncateBefore(chatId, expired.getLast().seq() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal menghapus riwayat " + chatId, e);
+        }
+        // media baru dilepas setelah penanda retensi tersimpan; jika server mati di tengah, media hanya bocor
+        for (MessageRecord entry : expired) {
+            MediaPayloads.release(entry);
+        }
+        return expired;
+    }
+
+    @Override
+    public int stripMedia(String chatId, Date olderThan, int limit) {
+        List<MessageRecord> old = new ArrayList<>();
+        for (MessageRecord entry : messageLog.readMediaPending(chatId, limit)) {
+            if (entry.timestamp() >= olderThan.getTime()) break;
+            old.add(entry);
+        }
+        if (old.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            messageLog.stripMediaUpTo(chatId, old.getLast().seq());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membuang media " + chatId, e);
+        }
+        for (MessageRecord entry : old) {
+            MediaPayloads.release(entry);
+        }
+        return old.size();
+    }
+
+    private List<Message> toMessages(List<MessageRecord> entries) {
+        Map<String, User> senders = new HashMap<>();
+        List<Message> result = new ArrayList<>(entries.size());
+        for (MessageRecord entry : entries) {
+            User sender = senders.computeIfAbsent(entry.senderPhone(), _ -> buildSender(entry));
+            result.add(entry.toMessage(sender));
+        }
+        return result;
+    }
+
+    private User buildSender(MessageRecord entry) {
+        User sender = new User();
+        sender.setPhoneNumber(entry.senderPhone());
+
+        User stored = super.findByPhone(entry.senderPhone());
+        if (stored != null) {
+            sender.setName(stored.getName());
+            sender.setAvatarHash(stored.getAvatarHash());
+        } else {
+            sender.setName(entry.senderName());
+        }
+        return sender;
+    }
+
+    @Override
+    public void save(User user) {
+        append(userJournal, user);
+        super.save(user);
+    }
+
+    @Override
+    public void saveGroup(GroupRecord group) {
+        append(groupJournal, group);
+        super.saveGroup(group);
+    }
+
+    @Override
+    public void addMembers(String groupId, Collection<String> phones) {
+        append(membershipJournal, new MembershipChange(groupId, List.copyOf(phones), List.of()));
+        super.addMembers(groupId, phones);
+    }
+
+    @Override
+    public void removeMembers(String groupId, Collection<String> phones) {
+        append(membershipJournal, new MembershipChange(groupId, List.of(), List.copyOf(phones)));
+        super.removeMembers(groupId, phones);
+    }
+
+    private void applyMembershipChange(MembershipChange change) {
+        super.addMembers(change.groupId(), change.added());
+        super.removeMembers(change.groupId(), change.removed());
+    }
+
+    @Override
+    public void savePrivateChat(PrivateChatRecord chat) {
+        append(privateChatJournal, chat);
+        super.savePrivateChat(chat);
+    }
+
+    @Override
+    public void saveReadStates(Collection<ReadState> states) {
+        appendAll(readStateJournal, states);
+        super.saveReadStates(states);
+    }
+}
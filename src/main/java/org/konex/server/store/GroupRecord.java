@@ -0,0 +1,6 @@
+package org.konex.server.store;
+
+import java.util.List;
+
+public record GroupRecord(String id, String name, String adminPhone, List<String> memberPhones) {
+}
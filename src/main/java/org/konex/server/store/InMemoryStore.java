@@ -0,0 +1,386 @@
+package org.konex.server.store;
+
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.User;
+import org.konex.server.media.Thumbnails;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backend tanpa database eksternal. Data hilang saat server berhenti; dipakai untuk pengujian dan load test.
+ */
+public class InMemoryStore implements StorageBackend {
+    private final Map<String, ChatHistory> messages = new ConcurrentHashMap<>();
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<String, GroupRecord> groups = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> memberships = new ConcurrentHashMap<>();
+    private final Map<String, PrivateChatRecord> privateChats = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> readStates = new ConcurrentHashMap<>();
+    // gambar asli; pesan yang disimpan hanya membawa thumbnail
+    private final Map<String, StoredMedia> media = new ConcurrentHashMap<>();
+
+    private static final class ChatHistory {
+        private final List<Message> messages = new ArrayList<>();
+        private long lastSeq;
+    }
+
+    /**
+     * Gambar dideduplikasi berdasarkan hash isi, jadi satu payload bisa dipakai beberapa pesan dan upload.
+     * Sama seperti {@code MediaStore}, payload baru dihapus saat referensi terakhirnya dilepas.
+     */
+    private static final class StoredMedia {
+        private final byte[] data;
+        private int references = 1;
+
+        private StoredMedia(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    @Override
+    public void save(Message msg) {
+        if (msg instanceof ImageMessage imgMsg && (imgMsg.getImageData() != null || imgMsg.getMediaId() != null)) {
+            storeMedia(imgMsg);
+        }
+        ChatHistory history = messages.computeIfAbsent(msg.getChatId(), _ -> new ChatHistory());
+        synchronized (history) {
+            msg.setSeq(++history.lastSeq);
+            history.messages.add(msg);
+        }
+    }
+
+    private void storeMedia(ImageMessage imgMsg) {
+        byte[] original;
+        if (imgMsg.getImageData() == null) {
+            // sudah diunggah bertahap lewat saveMedia
+            // referensi milik upload itu dipakai oleh pesan ini
+            StoredMedia stored = media.get(imgMsg.getMediaId());
+            if (stored == null) {
+                throw new IllegalStateException("Media tidak ditemukan: " + imgMsg.getMediaId());
+            }
+            original = stored.data;
+            imgMsg.setImageData(original);
+        } else {
+            original = imgMsg.getImageData();
+            imgMsg.setMediaId(retainMedia(original));
+        }
+
+        byte[] thumbnail = Thumbnails.create(original);
+        if (thumbnail != null) {
+            imgMsg.setImageData(thumbnail);
+        }
+    }
+
+    @Override
+    public String saveMedia(Path file) {
+        // backend memori memang menyimpan semuanya di heap
+        try {
+            return retainMedia(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gagal membaca media " + file, e);
+        }
+    }
+
+    private String retainMedia(byte[] data) {
+        String mediaId = HexFormat.of().formatHex(sha256(data));
+        media.compute(mediaId, (_, stored) -> {
+            if (stored == null) {
+                return new StoredMedia(data);
+            }
+            stored.references++;
+            return stored;
+        });
+        return mediaId;
+    }
+
+    @Override
+    public long findMediaSize(String mediaId) {
+        StoredMedia stored = mediaId == null ? null : media.get(mediaId);
+        return stored == null ? -1 : stored.data.length;
+    }
+
+    @Override
+    public byte[] readMedia(String mediaId, long offset, int maxLength) {
+        StoredMedia stored = mediaId == null ? null : media.get(mediaId);
+        if (stored == null) {
+            return null;
+        }
+        byte[] data = stored.data;
+        int from = (int) Math.min(offset, data.length);
+        return Arrays.copyOfRange(data, from, (int) Math.min(data.length, (long) from + maxLength));
+    }
+
+    @Override
+    public void releaseMedia(String mediaId) {
+        if (mediaId != null) {
+            media.computeIfPresent(mediaId, (_, stored) -> --stored.references > 0 ? stored : null);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public List<Message> findByChatId(String chatId) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            return List.copyOf(history.messages);
+        }
+    }
+
+    @Override
+    public List<Message> findRecent(String chatId, int limit) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            List<Message> list = history.messages;
+            return List.copyOf(list.subList(Math.max(0, list.size() - limit), list.size()));
+        }
+    }
+
+    @Override
+    public long findLastSeq(String chatId) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.lastSeq;
+        }
+    }
+
+    @Override
+    public List<Message> findAfter(String chatId, long afterSeq, int limit) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            int from = indexOfSeq(history.messages, afterSeq + 1);
+            return List.copyOf(history.messages.subList(from, Math.min(history.messages.size(), from + limit)));
+        }
+    }
+
+    @Override
+    public List<Message> findBySeq(String chatId, Collection<Long> seqs) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return List.of();
+        }
+        List<Message> result = new ArrayList<>(seqs.size());
+        synchronized (history) {
+            for (long seq : seqs) {
+                int index = indexOfSeq(history.messages, seq);
+                if (index < history.messages.size() && history.messages.get(index).getSeq() == seq) {
+                    result.add(history.messages.get(index));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Posisi pesan pertama dengan seq >= {@code seq}; list selalu urut seq karena hanya ditambah di akhir.
+     */
+    private static int indexOfSeq(List<Message> list, long seq) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list.get(mid).getSeq() < seq) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public List<MessageRecord> deleteExpired(String chatId, Date olderThan, int keepLatest, int limit) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return List.of();
+        }
+        List<MessageRecord> deleted = new ArrayList<>();
+        synchronized (history) {
+            long keepFromSeq = keepLatest > 0 ? history.lastSeq - keepLatest : 0;
+            // cari batasnya dulu, lalu buang sekaligus; removeFirst berulang menggeser seluruh list setiap kali
+            List<Message> expired = history.messages;
+            int cut = 0;
+            while (cut < expired.size() && cut < limit) {
+                Message oldest = expired.get(cut);
+                if (!isExpired(oldest.getDate().getTime(), oldest.getSeq(), olderThan, keepFromSeq)) break;
+                cut++;
+            }
+            List<Message> removed = expired.subList(0, cut);
+            for (Message oldest : removed) {
+                if (oldest instanceof ImageMessage imgMsg) {
+                    releaseMedia(imgMsg.getMediaId());
+                }
+                deleted.add(new MessageRecord(oldest.getChatId(), oldest.getType(),
+                        oldest.getSender().getPhoneNumber(), oldest.getSender().getName(),
+                        oldest.getContent(), null, oldest.getDate().getTime(), oldest.getSeq(),
+                        oldest.getMessageId(), null));
+            }
+            removed.clear();
+        }
+        return deleted;
+    }
+
+    @Override
+    public int stripMedia(String chatId, Date olderThan, int limit) {
+        ChatHistory history = messages.get(chatId);
+        if (history == null) {
+            return 0;
+        }
+        int stripped = 0;
+        synchronized (history) {
+            ListIterator<Message> it = history.messages.listIterator();
+            while (it.hasNext()) {
+                Message msg = it.next();
+                if (stripped >= limit || !msg.getDate().before(olderThan)) break;
+                if (msg instanceof ImageMessage imgMsg && imgMsg.getImageData() != null) {
+                    // objek yang sama juga dipegang buffer riwayat room, jadi yang disimpan diganti salinan
+                    it.set(strippedCopy(imgMsg));
+                    releaseMedia(imgMsg.getMediaId());
+                    stripped++;
+                }
+            }
+        }
+        return stripped;
+    }
+
+    private static ImageMessage strippedCopy(ImageMessage imgMsg) {
+        ImageMessage copy = new ImageMessage(imgMsg.getChatId(), imgMsg.getSender(), imgMsg.getContent(), null);
+        copy.setDate(imgMsg.getDate());
+        copy.setSeq(imgMsg.getSeq());
+        copy.setMessageId(imgMsg.getMessageId());
+        return copy;
+    }
+
+    /**
+     * Pesan kedaluwarsa jika lebih lama dari batas umur, atau seq-nya tidak lebih dari {@code keepFromSeq}.
+     */
+    protected static boolean isExpired(long timestamp, long seq, Date olderThan, long keepFromSeq) {
+        return (olderThan != null && timestamp < olderThan.getTime()) || seq <= keepFromSeq;
+    }
+
+    @Override
+    public User findByPhone(String phone) {
+        User user = users.get(phone);
+        return user == null ? null : copyOf(user);
+    }
+
+    @Override
+    public List<User> findByPhones(Collection<String> phones) {
+        List<User> result = new ArrayList<>(phones.size());
+        for (String phone : phones) {
+            User user = users.get(phone);
+            if (user != null) {
+                result.add(copyOf(user));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void save(User user) {
+        users.put(user.getPhoneNumber(), copyOf(user));
+    }
+
+    @Override
+    public List<GroupRecord> findAllGroups() {
+        return List.copyOf(groups.values());
+    }
+
+    @Override
+    public List<String> findMembers(String groupId, String afterPhone, int limit) {
+        TreeSet<String> sorted = new TreeSet<>(memberships.getOrDefault(groupId, Set.of()));
+        Set<String> tail = afterPhone == null ? sorted : sorted.tailSet(afterPhone, false);
+        return tail.stream().limit(limit).toList();
+    }
+
+    @Override
+    public List<PrivateChatRecord> findAllPrivateChats() {
+        return List.copyOf(privateChats.values());
+    }
+
+    @Override
+    public void saveGroup(GroupRecord group) {
+        groups.put(group.id(), new GroupRecord(group.id(), group.name(), group.adminPhone(), List.of()));
+        membersOf(group.id()).addAll(group.memberPhones());
+    }
+
+    @Override
+    public void addMembers(String groupId, Collection<String> phones) {
+        membersOf(groupId).addAll(phones);
+    }
+
+    private Set<String> membersOf(String groupId) {
+        return memberships.computeIfAbsent(groupId, _ -> ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    public void removeMembers(String groupId, Collection<String> phones) {
+        Set<String> members = memberships.get(groupId);
+        if (members != null) {
+            members.removeAll(phones);
+        }
+    }
+
+    @Override
+    public void savePrivateChat(PrivateChatRecord chat) {
+        privateChats.put(chat.id(), chat);
+    }
+
+    @Override
+    public List<ReadState> findReadStates(String phone) {
+        List<ReadState> result = new ArrayList<>();
+        readStates.getOrDefault(phone, Map.of())
+                .forEach((chatId, seq) -> result.add(new ReadState(phone, chatId, seq)));
+        return result;
+    }
+
+    @Override
+    public void saveReadStates(Collection<ReadState> states) {
+        for (ReadState state : states) {
+            readStates.computeIfAbsent(state.phoneNumber(), _ -> new ConcurrentHashMap<>())
+                    .merge(state.chatId(), state.lastReadSeq(), Math::max);
+        }
+    }
+
+    protected static User copyOf(User user) {
+        User copy = new User(user.getUserId(), user.getName(), user.getPhoneNumber(),
+                user.getProfileImage(), user.getPassword());
+        copy.setAvatarHash(user.getAvatarHash());
+        return copy;
+    }
+}
@@ -0,0 +1,169 @@
+package org.konex.server.store;
+
+import org.konex.common.model.ImageMessage;
+import org.konex.server.media.MediaStore;
+import org.konex.server.media.Thumbnails;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+final class MediaPayloads {
+    // gambar yang tidak bisa dibuatkan thumbnail tetap dikirim utuh jika tidak lebih dari ini; yang lebih besar
+    // dikirim tanpa isi dan client mengunduhnya lewat REQ_MEDIA saat diklik
+    private static final int INLINE_LIMIT = 512 * 1024;
+
+    private MediaPayloads() {
+        // Utility class
+    }
+
+    /**
+     * ID gambar asli dan thumbnail-nya di media store.
+     */
+    record StoredImage(String mediaId, String thumbnailId) {
+        static final StoredImage NONE = new StoredImage(null, null);
+    }
+
+    /**
+     * Menyimpan gambar asli beserta thumbnail-nya, lalu mengganti isi pesan dengan thumbnail supaya yang
+     * disebarkan ke anggota room hanya versi kecilnya.
+     */
+    static StoredImage store(ImageMessage imgMsg) {
+        if (imgMsg.getImageData() == null && imgMsg.getMediaId() != null) {
+            return adopt(imgMsg);
+        }
+        try {
+            byte[] imageBytes = imgMsg.getImageData();
+            MediaStore media = MediaStore.getInstance();
+            String mediaId = media.put(imageBytes);
+
+            byte[] thumbnail = Thumbnails.create(imageBytes);
+            String thumbnailId = thumbnail == null ? null : media.put(thumbnail);
+
+            imgMsg.setMediaId(mediaId);
+            if (thumbnail != null) {
+                imgMsg.setImageData(thumbnail);
+            } else if (imageBytes.length > INLINE_LIMIT) {
+                imgMsg.setImageData(null);
+            }
+            return new StoredImage(mediaId, thumbnailId);
+        } catch (IOException e) {
+            throw new IllegalStateException("Gagal menyimpan media: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gambar yang sudah diunggah bertahap lewat {@link #save(Path)}: referensi milik upload itu dipakai oleh
+     * pesan ini, lalu thumbnail dibuat dengan membaca langsung dari media store.
+     */
+    private static StoredImage adopt(ImageMessage imgMsg) {
+        String mediaId = imgMsg.getMediaId();
+        MediaStore media = MediaStore.getInstance();
+        long size = media.length(mediaId);
+        if (size < 0) {
+            throw new IllegalStateException("Media tidak ditemukan: " + mediaId);
+        }
+        try {
+            byte[] thumbnail = createThumbnail(mediaId, size);
+            String thumbnailId = thumbnail == null ? null : media.put(thumbnail);
+            imgMsg.setImageData(thumbnail != null ? thumbnail : inlineOriginal(mediaId, size));
+            return new StoredImage(mediaId, thumbnailId);
+        } catch (IOException e) {
+            throw new IllegalStateException("Gagal menyimpan media: " + e.getMessage(), e);
+        }
+    }
+
+    static String save(Path file) {
+        try {
+            return MediaStore.getInstance().put(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Gagal menyimpan media: " + e.getMessage(), e);
+        }
+    }
+
+    static long size(String mediaId) {
+        return mediaId == null ? -1 : MediaStore.getInstance().length(mediaId);
+    }
+
+    static byte[] read(String mediaId, long offset, int maxLength) {
+        if (mediaId == null) {
+            return null;
+        }
+        try {
+            return MediaStore.getInstance().read(mediaId, offset, maxLength);
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    /**
+     * Thumbnail untuk riwayat. Pesan lama yang belum punya thumbnail dibuatkan saat dibaca (tanpa disimpan).
+     * Gambar asli hanya ikut dikirim jika tidak lebih dari {@link #INLINE_LIMIT}.
+     */
+    static byte[] loadPreview(String mediaId, String thumbnailId) {
+        if (thumbnailId != null) {
+            return loadOriginal(thumbnailId);
+        }
+        long size = size(mediaId);
+        if (size < 0) {
+            return null;
+        }
+        try {
+            byte[] thumbnail = createThumbnail(mediaId, size);
+            return thumbnail != null ? thumbnail : inlineOriginal(mediaId, size);
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    /**
+     * Seperti {@link #loadPreview(String, String)}, untuk dokumen lama yang masih menyimpan gambar inline.
+     */
+    static byte[] previewOf(byte[] original) {
+        if (original == null) {
+            return null;
+        }
+        byte[] thumbnail = Thumbnails.create(original);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+        return original.length <= INLINE_LIMIT ? original : null;
+    }
+
+    private static byte[] createThumbnail(String mediaId, long size) throws IOException {
+        try (InputStream in = MediaStore.getInstance().openStream(mediaId)) {
+            return Thumbnails.create(in, size);
+        }
+    }
+
+    private static byte[] inlineOriginal(String mediaId, long size) {
+        return size <= INLINE_LIMIT ? loadOriginal(mediaId) : null;
+    }
+
+    static byte[] loadOriginal(String mediaId) {
+        if (mediaId == null) {
+            return null;
+        }
+        try {
+            return MediaStore.getInstance().read(mediaId);
+        } catch (IOException _) {
+            return null;
+        }
+    }
+
+    static void release(String mediaId) {
+        if (mediaId == null) {
+            return;
+        }
+        try {
+            MediaStore.getInstance().delete(mediaId);
+        } catch (IOException e) {
+            throw new IllegalStateException("Gagal melepas media: " + e.getMessage(), e);
+        }
+    }
+
+    static void release(MessageRecord entry) {
+        release(entry.mediaId());
+        release(entry.thumbnailId());
+    }
+}
@@ -0,0 +1,9 @@
+package org.konex.server.store;
+
+import java.util.List;
+
+/**
+ * Satu perubahan keanggotaan grup di journal embedded store.
+ */
+public record MembershipChange(String groupId, List<String> added, List<String> removed) {
+}
@@ -0,0 +1,43 @@
+package org.konex.server.store;
+
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.TextMessage;
+import org.konex.common.model.User;
+
+import java.util.Date;
+
+/**
+ * Bentuk datar sebuah pesan di penyimpanan on-disk. Gambar dan thumbnail-nya disimpan di media store dan hanya
+ * direferensikan ID-nya; {@code thumbnailId} null jika gambar asli sudah cukup kecil.
+ */
+public record MessageRecord(String chatId, String type, String senderPhone, String senderName,
+                            String content, String mediaId, long timestamp, long seq, String messageId,
+                            String thumbnailId) {
+
+    public static MessageRecord from(Message msg) {
+        MediaPayloads.StoredImage image = msg instanceof ImageMessage imgMsg
+                ? MediaPayloads.store(imgMsg)
+                : MediaPayloads.StoredImage.NONE;
+        return new MessageRecord(msg.getChatId(), msg.getType(),
+                msg.getSender().getPhoneNumber(), msg.getSender().getName(),
+                msg.getContent(), image.mediaId(), msg.getDate().getTime(), msg.getSeq(), msg.getMessageId(),
+                image.thumbnailId());
+    }
+
+    public Message toMessage(User sender) {
+        Message msg;
+        if ("IMAGE".equals(type)) {
+            ImageMessage imgMsg = new ImageMessage(chatId, sender, content,
+                    MediaPayloads.loadPreview(mediaId, thumbnailId));
+            imgMsg.setMediaId(mediaId);
+            msg = imgMsg;
+        } else {
+            msg = new TextMessage(chatId, sender, content);
+        }
+        msg.setDate(new Date(timestamp));
+        msg.setSeq(seq);
+        msg.setMessageId(messageId);
+        return msg;
+    }
+}
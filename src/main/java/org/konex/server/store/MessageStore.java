@@ -0,0 +1,80 @@
+package org.konex.server.store;
+
+import org.konex.common.model.Message;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface MessageStore {
+    /**
+     * Menyimpan satu pesan chat.
+     */
+    void save(Message msg);
+
+    /**
+     * Mengambil riwayat pesan sebuah room, urut dari yang paling lama.
+     */
+    List<Message> findByChatId(String chatId);
+
+    /**
+     * Mengambil maksimal {@code limit} pesan terbaru sebuah room, urut dari yang paling lama.
+     */
+    List<Message> findRecent(String chatId, int limit);
+
+    /**
+     * Menyimpan media hasil upload bertahap dari file sementara tanpa memuatnya utuh ke memori.
+     * Media ini kemudian dipakai oleh pesan gambar yang menyebut {@code mediaId}-nya.
+     *
+     * @return ID media (SHA-256 isi file, heksadesimal)
+     */
+    String saveMedia(Path file);
+
+    /**
+     * Ukuran asli media dalam byte, atau -1 jika sudah tidak ada.
+     */
+    long findMediaSize(String mediaId);
+
+    /**
+     * Sebagian isi asli media mulai dari {@code offset}, maksimal {@code maxLength} byte, atau null jika sudah
+     * tidak ada.
+     */
+    byte[] readMedia(String mediaId, long offset, int maxLength);
+
+    /**
+     * Melepas media hasil upload yang tidak pernah dipakai pesan mana pun.
+     */
+    void releaseMedia(String mediaId);
+
+    /**
+     * Seq pesan terakhir yang pernah disimpan di room ini, atau 0 jika belum ada.
+     */
+    long findLastSeq(String chatId);
+
+    /**
+     * Mengambil maksimal {@code limit} pesan dengan seq lebih besar dari {@code afterSeq}, urut naik.
+     */
+    List<Message> findAfter(String chatId, long afterSeq, int limit);
+
+    /**
+     * Mengambil pesan-pesan dengan seq tertentu. Seq yang tidak ada (mis. sudah dihapus retensi) dilewati.
+     */
+    List<Message> findBySeq(String chatId, Collection<Long> seqs);
+
+    /**
+     * Menghapus maksimal {@code limit} pesan paling lama sebuah room yang sudah kedaluwarsa: lebih lama dari
+     * {@code olderThan} (abaikan jika null) atau di luar {@code keepLatest} pesan terbaru (abaikan jika 0).
+     * Media milik pesan yang terhapus ikut dilepas.
+     *
+     * @return pesan yang dihapus, urut dari yang paling lama (untuk diarsipkan)
+     */
+    List<MessageRecord> deleteExpired(String chatId, Date olderThan, int keepLatest, int limit);
+
+    /**
+     * Membuang gambar dari maksimal {@code limit} pesan yang lebih lama dari {@code olderThan}; caption tetap disimpan.
+     *
+     * @return jumlah pesan yang diproses; kurang dari {@code limit} berarti tidak ada lagi yang tersisa
+     */
+    int stripMedia(String chatId, Date olderThan, int limit);
+}
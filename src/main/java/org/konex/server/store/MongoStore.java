@@ -0,0 +1,571 @@
+package org.konex.server.store;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.conversions.Bson;
+import org.konex.common.constants.Constants;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.TextMessage;
+import org.konex.common.model.User;
+import org.konex.server.database.DatabaseManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+public class MongoStore implements StorageBackend {
+    private static final Logger LOGGER = Logger.getLogger(MongoStore.class.getName());
+    private static final int MIGRATION_BATCH = 1000;
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_CHAT_ID = "chatId";
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    private static final String FIELD_SENDER_PHONE = "senderPhone";
+    private static final String FIELD_SENDER_NAME = "senderName";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_CAPTION = "caption";
+    private static final String FIELD_BASE64_DATA = "base64Data";
+    private static final String FIELD_MEDIA_ID = "mediaId";
+    private static final String FIELD_THUMBNAIL_ID = "thumbnailId";
+    private static final String FIELD_SEQ = "seq";
+    private static final String FIELD_MESSAGE_ID = "messageId";
+    private static final String FIELD_ROOM_ID = "roomId";
+    private static final String FIELD_MEMBERS = "members";
+    private static final String FIELD_LAST_READ_SEQ = "lastReadSeq";
+    private static final String TYPE_PRIVATE = "PRIVATE";
+
+    // seq terakhir per room; server ini satu-satunya penulis koleksi messages
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    public MongoStore() {
+        DatabaseManager db = DatabaseManager.getInstance();
+        db.getCollection(Constants.COLLECTION_MESSAGES)
+                .createIndex(Indexes.ascending(FIELD_CHAT_ID, FIELD_TIMESTAMP));
+        db.getCollection(Constants.COLLECTION_MESSAGES)
+                .createIndex(Indexes.ascending(FIELD_CHAT_ID, FIELD_SEQ));
+        db.getCollection(Constants.COLLECTION_USERS)
+                .createIndex(Indexes.ascending(Constants.FIELD_PHONE_NUMBER));
+        db.getCollection(Constants.COLLECTION_MEMBERSHIPS)
+                .createIndex(Indexes.ascending(FIELD_ROOM_ID, Constants.FIELD_PHONE_NUMBER),
+                        new IndexOptions().unique(true));
+        db.getCollection(Constants.COLLECTION_READ_STATES)
+                .createIndex(Indexes.ascending(Constants.FIELD_PHONE_NUMBER, FIELD_ROOM_ID),
+                        new IndexOptions().unique(true));
+        assignMissingSeqs();
+    }
+
+    /**
+     * Migrasi satu kali untuk pesan yang tersimpan sebelum ada seq: diberi seq per room berurutan timestamp.
+     * Tanpa ini pesan lama dianggap seq 0 sehingga tidak ikut catch-up index, REQ_MEDIA, retensi, maupun sync client.
+     * Jika room sudah punya pesan ber-seq, pesan lama melanjutkan dari seq terbesar supaya seq yang sudah dipegang
+     * client tidak berubah.
+     */
+    private void assignMissingSeqs() {
+        MongoCollection<Document> messages = collection(Constants.COLLECTION_MESSAGES);
+        Bson missingSeq = Filters.exists(FIELD_SEQ, false);
+        for (String chatId : messages.distinct(FIELD_CHAT_ID, missingSeq, String.class)) {
+            // ID dikumpulkan dulu: dokumen yang sudah diberi seq keluar dari filter kursor yang sedang dibaca
+            List<Object> ids = new ArrayList<>();
+            for (Document doc : messages.find(Filters.and(Filters.eq(FIELD_CHAT_ID, chatId), missingSeq))
+                    .projection(Projections.include(FIELD_ID))
+                    .sort(Sorts.ascending(FIELD_TIMESTAMP, FIELD_ID))) {
+                ids.add(doc.get(FIELD_ID));
+            }
+
+            long seq = loadLastSeq(chatId).get();
+            List<WriteModel<Document>> updates = new ArrayList<>();
+            for (Object id : ids) {
+                updates.add(new UpdateOneModel<>(Filters.eq(FIELD_ID, id), Updates.set(FIELD_SEQ, ++seq)));
+                if (updates.size() == MIGRATION_BATCH) {
+                    messages.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+                    updates.clear();
+                }
+            }
+            if (!updates.isEmpty()) {
+                messages.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+            }
+            LOGGER.info(() -> String.format("Assigned seq to %d legacy messages in %s", ids.size(), chatId));
+        }
+    }
+
+    private MongoCollection<Document> collection(String name) {
+        return DatabaseManager.getInstance().getCollection(name);
+    }
+
+    @Override
+    public void save(Message msg) {
+        long seq = sequences.computeIfAbsent(msg.getChatId(), this::loadLastSeq).incrementAndGet();
+        msg.setSeq(seq);
+
+        Document doc = new Document()
+                .append(FIELD_CHAT_ID, msg.getChatId())
+                .append(FIELD_SEQ, seq)
+                .append(FIELD_MESSAGE_ID, msg.getMessageId())
+                .append(FIELD_SENDER_PHONE, msg.getSender().getPhoneNumber())
+                .append(FIELD_SENDER_NAME, msg.getSender().getName())
+                .append(FIELD_TIMESTAMP, msg.getDate())
+                .append(FIELD_TYPE, msg.getType());
+
+        if (msg instanceof TextMessage) {
+            doc.append(FIELD_CONTENT, msg.getContent());
+        } else if (msg instanceof ImageMessage imgMsg) {
+            doc.append(FIELD_CAPTION, msg.getContent());
+            MediaPayloads.StoredImage image = MediaPayloads.store(imgMsg);
+            doc.append(FIELD_MEDIA_ID, image.mediaId());
+            if (image.thumbnailId() != null) {
+                doc.append(FIELD_THUMBNAIL_ID, image.thumbnailId());
+            }
+        }
+
+        collection(Constants.COLLECTION_MESSAGES).insertOne(doc);
+    }
+
+    @Override
+    public String saveMedia(Path file) {
+        return MediaPayloads.save(file);
+    }
+
+    @Override
+    public long findMediaSize(String mediaId) {
+        return MediaPayloads.size(mediaId);
+    }
+
+    @Override
+    public byte[] readMedia(String mediaId, long offset, int maxLength) {
+        return MediaPayloads.read(mediaId, offset, maxLength);
+    }
+
+    @Override
+    public void releaseMedia(String mediaId) {
+        MediaPayloads.release(mediaId);
+    }
+
+    @Override
+    public long findLastSeq(String chatId) {
+        return sequences.computeIfAbsent(chatId, this::loadLastSeq).get();
+    }
+
+    private AtomicLong loadLastSeq(String chatId) {
+        Document last = collection(Constants.COLLECTION_MESSAGES)
+                .find(Filters.eq(FIELD_CHAT_ID, chatId))
+                .sort(Sorts.descending(FIELD_SEQ))
+                .limit(1)
+                .first();
+        Number seq = last == null ? null : last.get(FIELD_SEQ, Number.class);
+        return new AtomicLong(seq == null ? 0 : seq.longValue());
+    }
+
+    @Override
+    public List<Message> findByChatId(String chatId) {
+        List<Message> result = new ArrayList<>();
+        Map<String, User> senders = new HashMap<>();
+
+        for (Document doc : collection(Constants.COLLECTION_MESSAGES)
+                .find(Filters.eq(FIELD_CHAT_ID, chatId))
+                .sort(Sorts.ascending(FIELD_TIMESTAMP))) {
+            Message msg = documentToMessage(doc, senders);
+            if (msg != null) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Message> findRecent(String chatId, int limit) {
+        List<Message> result = new ArrayList<>();
+        Map<String, User> senders = new HashMap<>();
+
+        for (Document doc : collection(Constants.COLLECTION_MESSAGES)
+                .find(Filters.eq(FIELD_CHAT_ID, chatId))
+                .sort(Sorts.descending(FIELD_TIMESTAMP))
+                .limit(limit)) {
+            Message msg = documentToMessage(doc, senders);
+            if (msg != null) {
+                result.add(msg);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public List<Message> findAfter(String chatId, long afterSeq, int limit) {
+        return findMessages(Filters.and(Filters.eq(FIELD_CHAT_ID, chatId), Filters.gt(FIELD_SEQ, afterSeq)), limit);
+    }
+
+    @Override
+    public List<Message> findBySeq(String chatId, Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return List.of();
+        }
+        return findMessages(Filters.and(Filters.eq(FIELD_CHAT_ID, chatId), Filters.in(FIELD_SEQ, seqs)), seqs.size());
+    }
+
+    private List<Message> findMessages(Bson filter, int limit) {
+        List<Message> result = new ArrayList<>();
+        Map<String, User> senders = new HashMap<>();
+
+        for (Document doc : collection(Constants.COLLECTION_MESSAGES)
+                .find(filter)
+                .sort(Sorts.ascending(FIELD_SEQ))
+                .limit(limit)) {
+            Message msg = documentToMessage(doc, senders);
+            if (msg != null) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<MessageRecord> deleteExpired(String chatId, Date olderThan, int keepLatest, int limit) {
+        List<Bson> expiry = new ArrayList<>();
+        if (olderThan != null) {
+            expiry.add(Filters.lt(FIELD_TIMESTAMP, olderThan));
+        }
+        if (keepLatest > 0) {
+            long keepFromSeq = sequences.computeIfAbsent(chatId, this::loadLastSeq).get() - keepLatest;
+            expiry.add(Filters.lte(FIELD_SEQ, keepFromSeq));
+        }
+        if (expiry.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> ids = new ArrayList<>();
+        List<MessageRecord> expired = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_MESSAGES)
+                .find(Filters.and(Filters.eq(FIELD_CHAT_ID, chatId), Filters.or(expiry)))
+                .sort(Sorts.ascending(FIELD_TIMESTAMP))
+                .limit(limit)) {
+            ids.add(doc.get(FIELD_ID));
+            expired.add(documentToRecord(doc));
+        }
+        if (ids.isEmpty()) {
+            return expired;
+        }
+
+        collection(Constants.COLLECTION_MESSAGES).deleteMany(Filters.in(FIELD_ID, ids));
+        for (MessageRecord entry : expired) {
+            MediaPayloads.release(entry);
+        }
+        return expired;
+    }
+
+    @Override
+    public int stripMedia(String chatId, Date olderThan, int limit) {
+        List<Object> ids = new ArrayList<>();
+        List<MessageRecord> media = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_MESSAGES)
+                .find(Filters.and(
+                        Filters.eq(FIELD_CHAT_ID, chatId),
+                        Filters.lt(FIELD_TIMESTAMP, olderThan),
+                        Filters.or(Filters.exists(FIELD_MEDIA_ID), Filters.exists(FIELD_BASE64_DATA))))
+                .projection(Projections.include(FIELD_CHAT_ID, FIELD_MEDIA_ID, FIELD_THUMBNAIL_ID))
+                .limit(limit)) {
+            ids.add(doc.get(FIELD_ID));
+            media.add(documentToRecord(doc));
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        collection(Constants.COLLECTION_MESSAGES).updateMany(Filters.in(FIELD_ID, ids),
+                Updates.combine(Updates.unset(FIELD_MEDIA_ID), Updates.unset(FIELD_THUMBNAIL_ID),
+                        Updates.unset(FIELD_BASE64_DATA)));
+        for (MessageRecord entry : media) {
+            MediaPayloads.release(entry);
+        }
+        return ids.size();
+    }
+
+    private static MessageRecord documentToRecord(Document doc) {
+        String type = doc.getString(FIELD_TYPE);
+        Date date = doc.getDate(FIELD_TIMESTAMP);
+        Number seq = doc.get(FIELD_SEQ, Number.class);
+        return new MessageRecord(doc.getString(FIELD_CHAT_ID), type,
+                doc.getString(FIELD_SENDER_PHONE), doc.getString(FIELD_SENDER_NAME),
+                doc.getString("IMAGE".equals(type) ? FIELD_CAPTION : FIELD_CONTENT),
+                doc.getString(FIELD_MEDIA_ID),
+                date == null ? 0 : date.getTime(), seq == null ? 0 : seq.longValue(),
+                doc.getString(FIELD_MESSAGE_ID), doc.getString(FIELD_THUMBNAIL_ID));
+    }
+
+    private Message documentToMessage(Document doc, Map<String, User> senders) {
+        try {
+            String type = doc.getString(FIELD_TYPE);
+            String chatId = doc.getString(FIELD_CHAT_ID);
+            String senderPhone = doc.getString(FIELD_SENDER_PHONE);
+            String senderName = doc.getString(FIELD_SENDER_NAME);
+            Date date = doc.getDate(FIELD_TIMESTAMP);
+
+            User sender = senders.computeIfAbsent(senderPhone, phone -> buildSender(phone, senderName));
+
+            Message msg = createMessageByType(type, chatId, sender, doc);
+            if (msg != null) {
+                msg.setDate(date);
+                Number seq = doc.get(FIELD_SEQ, Number.class);
+                msg.setSeq(seq == null ? 0 : seq.longValue());
+                msg.setMessageId(doc.getString(FIELD_MESSAGE_ID));
+            }
+            return msg;
+        } catch (Exception _) {
+            return null;
+        }
+    }
+
+    private User buildSender(String senderPhone, String senderName) {
+        User sender = new User();
+        sender.setPhoneNumber(senderPhone);
+
+        User stored = findByPhone(senderPhone);
+        if (stored != null) {
+            sender.setName(stored.getName());
+            sender.setAvatarHash(stored.getAvatarHash());
+        } else {
+            sender.setName(senderName);
+        }
+        return sender;
+    }
+
+    private Message createMessageByType(String type, String chatId, User sender, Document doc) {
+        if ("TEXT".equals(type)) {
+            return new TextMessage(chatId, sender, doc.getString(FIELD_CONTENT));
+        } else if ("IMAGE".equals(type)) {
+            String mediaId = doc.getString(FIELD_MEDIA_ID);
+            // dokumen lama masih menyimpan gambar inline; yang dikirim tetap thumbnail-nya saja
+            byte[] image = mediaId == null
+                    ? MediaPayloads.previewOf(binary(doc, FIELD_BASE64_DATA))
+                    : MediaPayloads.loadPreview(mediaId, doc.getString(FIELD_THUMBNAIL_ID));
+            ImageMessage imgMsg = new ImageMessage(chatId, sender, doc.getString(FIELD_CAPTION), image);
+            imgMsg.setMediaId(mediaId);
+            return imgMsg;
+        }
+        return null;
+    }
+
+    @Override
+    public User findByPhone(String phone) {
+        Document doc = collection(Constants.COLLECTION_USERS)
+                .find(Filters.eq(Constants.FIELD_PHONE_NUMBER, phone))
+                .first();
+        return doc == null ? null : documentToUser(doc);
+    }
+
+    private static User documentToUser(Document doc) {
+        User user = new User();
+        user.setPhoneNumber(doc.getString(Constants.FIELD_PHONE_NUMBER));
+        user.setName(doc.getString(Constants.FIELD_NAME));
+        user.setProfileImage(binary(doc, Constants.FIELD_PROFILE_IMAGE));
+        user.setAvatarHash(doc.getString(Constants.FIELD_AVATAR_HASH));
+        user.setPassword(doc.getString(Constants.FIELD_PASSWORD));
+        return user;
+    }
+
+    /**
+     * Field biner yang disimpan sebagai BSON {@link Binary}. Dokumen lama masih menyimpannya sebagai teks Base64
+     * dan akan tertulis ulang sebagai biner saat disimpan berikutnya.
+     */
+    private static byte[] binary(Document doc, String field) {
+        Object value = doc.get(field);
+        if (value instanceof Binary binary) {
+            return binary.getData();
+        }
+        if (value instanceof String base64 && !base64.isEmpty()) {
+            try {
+                return Base64.getDecoder().decode(base64);
+            } catch (IllegalArgumentException _) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<User> findByPhones(Collection<String> phones) {
+        List<User> users = new ArrayList<>(phones.size());
+        if (phones.isEmpty()) {
+            return users;
+        }
+        for (Document doc : collection(Constants.COLLECTION_USERS)
+                .find(Filters.in(Constants.FIELD_PHONE_NUMBER, phones))) {
+            users.add(documentToUser(doc));
+        }
+        return users;
+    }
+
+    @Override
+    public void save(User user) {
+        Document doc = new Document()
+                .append(Constants.FIELD_PHONE_NUMBER, user.getPhoneNumber())
+                .append(Constants.FIELD_NAME, user.getName())
+                .append(Constants.FIELD_PASSWORD, user.getPassword())
+                .append(Constants.FIELD_PROFILE_IMAGE,
+                        user.getProfileImage() == null ? null : new Binary(user.getProfileImage()))
+                .append(Constants.FIELD_AVATAR_HASH, user.getAvatarHash());
+
+        collection(Constants.COLLECTION_USERS).updateOne(
+                Filters.eq(Constants.FIELD_PHONE_NUMBER, user.getPhoneNumber()),
+                new Document("$set", doc),
+                new UpdateOptions().upsert(true)
+        );
+    }
+
+    @Override
+    public List<GroupRecord> findAllGroups() {
+        List<GroupRecord> groups = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_GROUPS)
+                .find(Filters.ne(FIELD_TYPE, TYPE_PRIVATE))
+                .projection(Projections.include(FIELD_ID, Constants.FIELD_NAME, "adminPhone", FIELD_MEMBERS))) {
+            String groupId = doc.getString(FIELD_ID);
+            if (Constants.GLOBAL_ROOM_CHAT_ID.equals(groupId)) continue;
+
+            migrateEmbeddedMembers(doc);
+            groups.add(new GroupRecord(groupId, doc.getString(Constants.FIELD_NAME), doc.getString("adminPhone"),
+                    List.of()));
+        }
+        return groups;
+    }
+
+    @Override
+    public List<String> findMembers(String groupId, String afterPhone, int limit) {
+        Bson filter = afterPhone == null
+                ? Filters.eq(FIELD_ROOM_ID, groupId)
+                : Filters.and(Filters.eq(FIELD_ROOM_ID, groupId), Filters.gt(Constants.FIELD_PHONE_NUMBER, afterPhone));
+
+        List<String> phones = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_MEMBERSHIPS)
+                .find(filter)
+                .projection(Projections.include(Constants.FIELD_PHONE_NUMBER))
+                .sort(Sorts.ascending(Constants.FIELD_PHONE_NUMBER))
+                .limit(limit)) {
+            phones.add(doc.getString(Constants.FIELD_PHONE_NUMBER));
+        }
+        return phones;
+    }
+
+    /**
+     * Grup lama menyimpan anggota sebagai array di dokumen grup; pindahkan sekali ke koleksi memberships.
+     */
+    private void migrateEmbeddedMembers(Document group) {
+        List<String> legacyMembers = group.getList(FIELD_MEMBERS, String.class);
+        if (legacyMembers == null) {
+            return;
+        }
+        String groupId = group.getString(FIELD_ID);
+        addMembers(groupId, legacyMembers);
+        collection(Constants.COLLECTION_GROUPS).updateOne(Filters.eq(FIELD_ID, groupId), Updates.unset(FIELD_MEMBERS));
+    }
+
+    @Override
+    public List<PrivateChatRecord> findAllPrivateChats() {
+        List<PrivateChatRecord> chats = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_GROUPS).find(Filters.eq(FIELD_TYPE, TYPE_PRIVATE))) {
+            chats.add(new PrivateChatRecord(doc.getString(FIELD_ID),
+                    doc.getString("user1_phone"), doc.getString("user2_phone")));
+        }
+        return chats;
+    }
+
+    @Override
+    public void saveGroup(GroupRecord group) {
+        Document doc = new Document()
+                .append(FIELD_ID, group.id())
+                .append(Constants.FIELD_NAME, group.name())
+                .append("adminPhone", group.adminPhone());
+
+        upsertRoom(group.id(), doc);
+        addMembers(group.id(), group.memberPhones());
+    }
+
+    @Override
+    public void addMembers(String groupId, Collection<String> phones) {
+        if (phones.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> upserts = new ArrayList<>(phones.size());
+        for (String phone : phones) {
+            Bson key = Filters.and(Filters.eq(FIELD_ROOM_ID, groupId), Filters.eq(Constants.FIELD_PHONE_NUMBER, phone));
+            upserts.add(new UpdateOneModel<>(key,
+                    Updates.combine(Updates.setOnInsert(FIELD_ROOM_ID, groupId),
+                            Updates.setOnInsert(Constants.FIELD_PHONE_NUMBER, phone)),
+                    new UpdateOptions().upsert(true)));
+        }
+        collection(Constants.COLLECTION_MEMBERSHIPS).bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+    }
+
+    @Override
+    public void removeMembers(String groupId, Collection<String> phones) {
+        if (phones.isEmpty()) {
+            return;
+        }
+        collection(Constants.COLLECTION_MEMBERSHIPS).deleteMany(Filters.and(
+                Filters.eq(FIELD_ROOM_ID, groupId), Filters.in(Constants.FIELD_PHONE_NUMBER, phones)));
+    }
+
+    @Override
+    public void savePrivateChat(PrivateChatRecord chat) {
+        Document doc = new Document()
+                .append(FIELD_ID, chat.id())
+                .append(FIELD_TYPE, TYPE_PRIVATE)
+                .append("user1_phone", chat.firstPhone())
+                .append("user2_phone", chat.secondPhone());
+
+        upsertRoom(chat.id(), doc);
+    }
+
+    @Override
+    public List<ReadState> findReadStates(String phone) {
+        List<ReadState> result = new ArrayList<>();
+        for (Document doc : collection(Constants.COLLECTION_READ_STATES)
+                .find(Filters.eq(Constants.FIELD_PHONE_NUMBER, phone))) {
+            Number seq = doc.get(FIELD_LAST_READ_SEQ, Number.class);
+            result.add(new ReadState(phone, doc.getString(FIELD_ROOM_ID), seq == null ? 0 : seq.longValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void saveReadStates(Collection<ReadState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> upserts = new ArrayList<>(states.size());
+        for (ReadState state : states) {
+            Bson key = Filters.and(Filters.eq(Constants.FIELD_PHONE_NUMBER, state.phoneNumber()),
+                    Filters.eq(FIELD_ROOM_ID, state.chatId()));
+            upserts.add(new UpdateOneModel<>(key, Updates.max(FIELD_LAST_READ_SEQ, state.lastReadSeq()),
+                    new UpdateOptions().upsert(true)));
+        }
+        collection(Constants.COLLECTION_READ_STATES).bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+    }
+
+    private void upsertRoom(String id, Document doc) {
+        collection(Constants.COLLECTION_GROUPS).updateOne(
+                Filters.eq(FIELD_ID, id),
+                new Document("$set", doc),
+                new UpdateOptions().upsert(true)
+        );
+    }
+}
@@ -0,0 +1,4 @@
+package org.konex.server.store;
+
+public record PrivateChatRecord(String id, String firstPhone, String secondPhone) {
+}
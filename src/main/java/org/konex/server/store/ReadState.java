@@ -0,0 +1,7 @@
+package org.konex.server.store;
+
+/**
+ * Seq pesan terakhir yang sudah dibaca seorang user di sebuah room.
+ */
+public record ReadState(String phoneNumber, String chatId, long lastReadSeq) {
+}
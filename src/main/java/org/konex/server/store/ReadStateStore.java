@@ -0,0 +1,16 @@
+package org.konex.server.store;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReadStateStore {
+    /**
+     * Mengambil status baca seorang user di semua room yang pernah ia buka.
+     */
+    List<ReadState> findReadStates(String phone);
+
+    /**
+     * Menyimpan sekumpulan status baca sekaligus. Seq yang lebih kecil dari yang sudah tersimpan diabaikan.
+     */
+    void saveReadStates(Collection<ReadState> states);
+}
@@ -0,0 +1,40 @@
+package org.konex.server.store;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RoomStore {
+    /**
+     * Mengambil semua grup yang tersimpan (tidak termasuk global room), tanpa daftar anggota.
+     * Anggota dibaca per halaman lewat {@link #findMembers}.
+     */
+    List<GroupRecord> findAllGroups();
+
+    /**
+     * Maksimal {@code limit} nomor anggota grup setelah {@code afterPhone} (null untuk halaman pertama),
+     * urut berdasarkan nomor HP.
+     */
+    List<String> findMembers(String groupId, String afterPhone, int limit);
+
+    /**
+     * Mengambil semua private chat yang tersimpan.
+     */
+    List<PrivateChatRecord> findAllPrivateChats();
+
+    /**
+     * Menyimpan data grup dan menambahkan {@code memberPhones} sebagai anggota. Anggota yang sudah ada tidak dihapus.
+     */
+    void saveGroup(GroupRecord group);
+
+    /**
+     * Menambahkan anggota grup tanpa menulis ulang daftar anggota lainnya.
+     */
+    void addMembers(String groupId, Collection<String> phones);
+
+    /**
+     * Menghapus anggota grup tanpa menulis ulang daftar anggota lainnya.
+     */
+    void removeMembers(String groupId, Collection<String> phones);
+
+    void savePrivateChat(PrivateChatRecord chat);
+}
@@ -0,0 +1,7 @@
+package org.konex.server.store;
+
+/**
+ * Satu implementasi penyimpanan lengkap (pesan, user, room, status baca).
+ */
+public interface StorageBackend extends MessageStore, UserStore, RoomStore, ReadStateStore {
+}
@@ -0,0 +1,73 @@
+package org.konex.server.store;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+@SuppressWarnings("java:S6548")
+public final class StoreProvider {
+    private static final Logger LOGGER = Logger.getLogger(StoreProvider.class.getName());
+    private static StoreProvider instance;
+
+    private final StoreType type;
+    private final StorageBackend backend;
+
+    private StoreProvider(StoreType type) {
+        this.type = type;
+        this.backend = createBackend(type);
+        LOGGER.info(() -> "Storage backend: " + type);
+    }
+
+    public static synchronized StoreProvider getInstance() {
+        if (instance == null) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+            instance = new StoreProvider(StoreType.fromString(dotenv.get("STORE_BACKEND")));
+        }
+        return instance;
+    }
+
+    /**
+     * Memilih backend secara eksplisit (mis. untuk load test / benchmark) sebelum store pertama kali dipakai.
+     */
+    public static synchronized StoreProvider init(StoreType type) {
+        if (instance != null) {
+            throw new IllegalStateException("Storage already initialized with " + instance.type);
+        }
+        instance = new StoreProvider(type);
+        return instance;
+    }
+
+    private static StorageBackend createBackend(StoreType type) {
+        return switch (type) {
+            case MONGO -> new MongoStore();
+            case MEMORY -> new InMemoryStore();
+            case EMBEDDED -> {
+                Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+                yield new EmbeddedStore(Paths.get(dotenv.get("STORE_DIR", "data/store")),
+                        Integer.parseInt(dotenv.get("MESSAGE_LOG_SHARDS", "4")),
+                        Integer.parseInt(dotenv.get("MESSAGE_LOG_SEGMENT_MB", "64")) * 1024 * 1024);
+            }
+        };
+    }
+
+    public StoreType getType() {
+        return type;
+    }
+
+    public MessageStore getMessageStore() {
+        return backend;
+    }
+
+    public UserStore getUserStore() {
+        return backend;
+    }
+
+    public RoomStore getRoomStore() {
+        return backend;
+    }
+
+    public ReadStateStore getReadStateStore() {
+        return backend;
+    }
+}
@@ -0,0 +1,14 @@
+package org.konex.server.store;
+
+public enum StoreType {
+    MONGO,
+    MEMORY,
+    EMBEDDED;
+
+    public static StoreType fromString(String value) {
+        if (value == null || value.isBlank()) {
+            return MONGO;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+}
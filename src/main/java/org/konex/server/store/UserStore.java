@@ -0,0 +1,24 @@
+package org.konex.server.store;
+
+import org.konex.common.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserStore {
+    /**
+     * Mencari user berdasarkan nomor HP. Mengembalikan null jika tidak ada.
+     * Objek yang dikembalikan masih membawa password tersimpan.
+     */
+    User findByPhone(String phone);
+
+    /**
+     * Mencari banyak user sekaligus. Nomor yang tidak terdaftar dilewati; urutan hasil tidak dijamin.
+     */
+    List<User> findByPhones(Collection<String> phones);
+
+    /**
+     * Menyimpan atau memperbarui data user (upsert berdasarkan nomor HP).
+     */
+    void save(User user);
+}
@@ -0,0 +1,550 @@
+package org.konex.server.store.log;
+
+import org.konex.server.store.MessageRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Satu shard log pesan: deretan segment berukuran tetap yang dipetakan ke memori.
+ * Semua penulisan dilakukan oleh satu thread writer yang mengumpulkan beberapa append sekaligus dan
+ * memanggil {@code force} sekali per batch (group commit).
+ * <p>
+ * Setiap record menyimpan lokasi record sebelumnya dari room yang sama, sehingga pembacaan riwayat
+ * cukup menelusuri rantai room tersebut tanpa menyentuh pesan room lain.
+ * <p>
+ * Retensi dicatat sebagai penanda per room (seq pertama yang masih berlaku dan batas seq yang gambarnya sudah
+ * dibuang) di file {@value #MARKS_FILE}. Segment yang seluruh isinya sudah di bawah penanda dihapus dari disk.
+ */
+final class LogShard implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(LogShard.class.getName());
+
+    private static final int RECORD_HEADER = Integer.BYTES * 2; // panjang body + CRC
+    private static final int SPARSE_INTERVAL = 32;
+    private static final int MAX_BATCH = 1024;
+    private static final long NO_LOCATION = -1;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String MARKS_FILE = "retention.dat";
+
+    private final int shardId;
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Integer, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, ChatIndex> chats = new ConcurrentHashMap<>();
+    // seq tertinggi tiap room di setiap segment, untuk menentukan segment yang boleh dihapus
+    private final Map<Integer, Map<String, Long>> segmentChats = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private volatile int activeSegment;
+    private MappedByteBuffer active;
+    private int writePosition;
+
+    private record PendingAppend(MessageRecord entry, CompletableFuture<Long> result) {
+    }
+
+    LogShard(int shardId, Path directory, int segmentSize) throws IOException {
+        this.shardId = shardId;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        recover();
+
+        this.writer = new Thread(this::writeLoop, "message-log-writer-" + shardId);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        loadMarks();
+
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Integer.parseInt(n.substring(0, n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(ids::add);
+        }
+
+        if (ids.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+
+        for (int id : ids) {
+            openSegment(id);
+            writePosition = scanSegment(id, active);
+        }
+    }
+
+    private void openSegment(int id) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(id).toFile(), "rw")) {
+            if (file.length() < segmentSize) {
+                file.setLength(segmentSize);
+            }
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            segments.put(id, buffer);
+            activeSegment = id;
+            active = buffer;
+            writePosition = 0;
+        }
+    }
+
+    private int scanSegment(int id, MappedByteBuffer buffer) {
+        int pos = 0;
+        while (pos + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + RECORD_HEADER + length > buffer.capacity()) break;
+
+            ByteBuffer body = buffer.slice(pos + RECORD_HEADER, length);
+            if (crc(body.duplicate()) != buffer.getInt(pos + Integer.BYTES)) {
+                int tornAt = pos;
+                LOGGER.warning(() -> "Message log shard " + shardId + " segment " + id + " torn at " + tornAt);
+                for (int i = pos; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.force();
+                break;
+            }
+
+            RecordHeader header = RecordHeader.read(body);
+            chats.computeIfAbsent(header.chatId(), _ -> new ChatIndex())
+                    .add(header.seq(), location(id, pos));
+            trackSegment(id, header.chatId(), header.seq());
+            pos += RECORD_HEADER + length;
+        }
+        return pos;
+    }
+
+    CompletableFuture<Long> append(MessageRecord entry) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Message log is closed"));
+            return result;
+        }
+        queue.add(new PendingAppend(entry, result));
+        return result;
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                commit(batch);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        int firstSegment = activeSegment;
+        int firstPosition = writePosition;
+        long[] seqs = new long[batch.size()];
+
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                seqs[i] = write(batch.get(i).entry());
+            } catch (RuntimeException | IOException e) {
+                seqs[i] = NO_LOCATION;
+                batch.get(i).result().completeExceptionally(e);
+            }
+        }
+
+        // satu kali fsync untuk seluruh batch
+        for (Map.Entry<Integer, MappedByteBuffer> segment : segments.tailMap(firstSegment, true).entrySet()) {
+            int from = segment.getKey() == firstSegment ? firstPosition : 0;
+            int to = segment.getKey() == activeSegment ? writePosition : segment.getValue().capacity();
+            if (to > from) {
+                segment.getValue().force(from, to - from);
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (seqs[i] != NO_LOCATION) {
+                batch.get(i).result().complete(seqs[i]);
+            }
+        }
+    }
+
+    private long write(MessageRecord entry) throws IOException {
+        ChatIndex chat = chats.computeIfAbsent(entry.chatId(), _ -> new ChatIndex());
+        long seq = chat.lastSeq() + 1;
+
+        ByteBuffer body = encode(entry, seq, chat.tail());
+        int recordSize = RECORD_HEADER + body.remaining();
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Message too large for log segment: " + recordSize + " bytes");
+        }
+        if (writePosition + recordSize > segmentSize) {
+            openSegment(activeSegment + 1);
+        }
+
+        int position = writePosition;
+        active.putInt(position, body.remaining());
+        active.putInt(position + Integer.BYTES, crc(body.duplicate()));
+        active.put(position + RECORD_HEADER, body, 0, body.remaining());
+        writePosition += recordSize;
+
+        chat.add(seq, location(activeSegment, position));
+        trackSegment(activeSegment, entry.chatId(), seq);
+        return seq;
+    }
+
+    private void trackSegment(int segment, String chatId, long seq) {
+        segmentChats.computeIfAbsent(segment, _ -> new ConcurrentHashMap<>()).merge(chatId, seq, Math::max);
+    }
+
+    long lastSeq(String chatId) {
+        ChatIndex chat = chats.get(chatId);
+        return chat == null ? 0 : chat.lastSeq();
+    }
+
+    /**
+     * Membaca record room {@code chatId} dengan seq di rentang [fromSeq, toSeq], urut naik.
+     */
+    List<MessageRecord> read(String chatId, long fromSeq, long toSeq) {
+        ChatIndex chat = chats.get(chatId);
+        if (chat == null) {
+            return List.of();
+        }
+        long from = Math.max(fromSeq, chat.firstSeq());
+        long mediaSeq = chat.mediaSeq();
+        if (toSeq < from) {
+            return List.of();
+        }
+
+        List<MessageRecord> result = new ArrayList<>();
+        long location = chat.seek(toSeq);
+        while (location != NO_LOCATION) {
+            ByteBuffer body = bodyAt(location);
+            if (body == null) break; // segment sudah dihapus oleh retensi
+            RecordHeader header = RecordHeader.read(body);
+            if (header.seq() < from) break;
+            if (header.seq() <= toSeq) {
+                result.add(decode(header, body, mediaSeq));
+            }
+            // jangan mengikuti rantai ke record yang sudah kedaluwarsa, segment-nya mungkin sudah tidak ada
+            if (header.seq() == from) break;
+            location = header.prev();
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    long firstSeq(String chatId) {
+        ChatIndex chat = chats.get(chatId);
+        return chat == null ? 1 : chat.firstSeq();
+    }
+
+    long mediaSeq(String chatId) {
+        ChatIndex chat = chats.get(chatId);
+        return chat == null ? 0 : chat.mediaSeq();
+    }
+
+    /**
+     * Menandai semua pesan room dengan seq di bawah {@code seq} sebagai terhapus, lalu membuang segment yang
+     * isinya sudah kedaluwarsa seluruhnya.
+     */
+    synchronized void truncateBefore(String chatId, long seq) throws IOException {
+        ChatIndex chat = chats.get(chatId);
+        if (chat == null || !chat.raiseFirstSeq(seq)) {
+            return;
+        }
+        saveMarks();
+        reclaimSegments();
+    }
+
+    /**
+     * Menandai gambar semua pesan room sampai {@code seq} sebagai sudah dibuang.
+     */
+    synchronized void stripMediaUpTo(String chatId, long seq) throws IOException {
+        ChatIndex chat = chats.get(chatId);
+        if (chat != null && chat.raiseMediaSeq(seq)) {
+            saveMarks();
+        }
+    }
+
+    private void reclaimSegments() {
+        for (Map.Entry<Integer, Map<String, Long>> segment : segmentChats.entrySet()) {
+            int id = segment.getKey();
+            if (id == activeSegment || !isExpired(segment.getValue())) continue;
+
+            segments.remove(id);
+            segmentChats.remove(id);
+            try {
+                Files.deleteIfExists(segmentPath(id));
+                LOGGER.info(() -> "Message log shard " + shardId + " reclaimed segment " + id);
+            } catch (IOException e) {
+                // penanda sudah tersimpan, jadi segment ini cukup diabaikan saat dibuka ulang
+                LOGGER.log(Level.WARNING, "Failed to delete expired segment " + id, e);
+            }
+        }
+    }
+
+    private boolean isExpired(Map<String, Long> maxSeqPerChat) {
+        for (Map.Entry<String, Long> entry : maxSeqPerChat.entrySet()) {
+            if (entry.getValue() >= firstSeq(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void loadMarks() throws IOException {
+        Path file = directory.resolve(MARKS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String chatId = in.readUTF();
+                ChatIndex chat = chats.computeIfAbsent(chatId, _ -> new ChatIndex());
+                chat.raiseFirstSeq(in.readLong());
+                chat.raiseMediaSeq(in.readLong());
+            }
+        }
+    }
+
+    private void saveMarks() throws IOException {
+        List<Map.Entry<String, ChatIndex>> marked = chats.entrySet().stream()
+                .filter(e -> e.getValue().firstSeq() > 1 || e.getValue().mediaSeq() > 0)
+                .toList();
+
+        Path file = directory.resolve(MARKS_FILE);
+        Path temp = directory.resolve(MARKS_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            out.writeInt(marked.size());
+            for (Map.Entry<String, ChatIndex> entry : marked) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().firstSeq());
+                out.writeLong(entry.getValue().mediaSeq());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(id + SEGMENT_SUFFIX);
+    }
+
+    private ByteBuffer bodyAt(long location) {
+        MappedByteBuffer segment = segments.get((int) (location >>> 32));
+        if (segment == null) {
+            return null;
+        }
+        int position = (int) location;
+        int length = segment.getInt(position);
+        return segment.slice(position + RECORD_HEADER, length);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        }
+        PendingAppend leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result().completeExceptionally(new IllegalStateException("Message log is closed"));
+        }
+        for (MappedByteBuffer buffer : segments.values()) {
+            try {
+                buffer.force();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to flush message log segment", e);
+            }
+        }
+    }
+
+    private static long location(int segment, int position) {
+        return ((long) segment << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static int crc(ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer encode(MessageRecord entry, long seq, long prev) {
+        byte[][] strings = {
+                utf8(entry.chatId()), utf8(entry.type()), utf8(entry.senderPhone()),
+                utf8(entry.senderName()), utf8(entry.content()), utf8(entry.mediaId()),
+                utf8(entry.messageId()), utf8(entry.thumbnailId())
+        };
+        int size = Long.BYTES * 3;
+        for (byte[] s : strings) {
+            size += Integer.BYTES + (s == null ? 0 : s.length);
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(size)
+                .putLong(prev)
+                .putLong(seq)
+                .putLong(entry.timestamp());
+        for (byte[] s : strings) {
+            putString(body, s);
+        }
+        return body.flip();
+    }
+
+    private static MessageRecord decode(RecordHeader header, ByteBuffer body, long mediaSeq) {
+        String type = getString(body);
+        String senderPhone = getString(body);
+        String senderName = getString(body);
+        String content = getString(body);
+        String mediaId = getString(body);
+        // record lama belum membawa messageId dan thumbnailId
+        String messageId = body.hasRemaining() ? getString(body) : null;
+        String thumbnailId = body.hasRemaining() ? getString(body) : null;
+        boolean mediaStripped = header.seq() <= mediaSeq;
+        return new MessageRecord(header.chatId(), type, senderPhone, senderName, content,
+                mediaStripped ? null : mediaId, header.timestamp(), header.seq(), messageId,
+                mediaStripped ? null : thumbnailId);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record RecordHeader(long prev, long seq, long timestamp, String chatId) {
+        static RecordHeader read(ByteBuffer body) {
+            long prev = body.getLong();
+            long seq = body.getLong();
+            long timestamp = body.getLong();
+            return new RecordHeader(prev, seq, timestamp, getString(body));
+        }
+    }
+
+    /**
+     * Index jarang per room: seq terakhir, lokasi record terakhir, penanda retensi, dan satu titik lompat setiap
+     * {@value #SPARSE_INTERVAL} pesan.
+     */
+    private static final class ChatIndex {
+        private long lastSeq;
+        private long tail = NO_LOCATION;
+        private long firstSeq = 1;
+        private long mediaSeq;
+        private long[] sparseSeq = new long[4];
+        private long[] sparseLocation = new long[4];
+        private int sparseSize;
+
+        synchronized long lastSeq() {
+            return lastSeq;
+        }
+
+        synchronized long tail() {
+            return tail;
+        }
+
+        synchronized long firstSeq() {
+            return firstSeq;
+        }
+
+        synchronized long mediaSeq() {
+            return mediaSeq;
+        }
+
+        synchronized boolean raiseFirstSeq(long seq) {
+            if (seq <= firstSeq) {
+                return false;
+            }
+            firstSeq = seq;
+            // seq baru tidak boleh jatuh di bawah pesan yang sudah dihapus
+            lastSeq = Math.max(lastSeq, seq - 1);
+            return true;
+        }
+
+        synchronized boolean raiseMediaSeq(long seq) {
+            if (seq <= mediaSeq) {
+                return false;
+            }
+            mediaSeq = seq;
+            return true;
+        }
+
+        synchronized void add(long seq, long location) {
+            if (seq > lastSeq) {
+                lastSeq = seq;
+                tail = location;
+            }
+            if (seq % SPARSE_INTERVAL == 0) {
+                if (sparseSize == sparseSeq.length) {
+                    sparseSeq = Arrays.copyOf(sparseSeq, sparseSize * 2);
+                    sparseLocation = Arrays.copyOf(sparseLocation, sparseSize * 2);
+                }
+                sparseSeq[sparseSize] = seq;
+                sparseLocation[sparseSize] = location;
+                sparseSize++;
+            }
+        }
+
+        /**
+         * Lokasi awal penelusuran mundur untuk membaca sampai {@code seq}: titik lompat terkecil yang
+         * seq-nya >= {@code seq}, atau ekor rantai jika tidak ada.
+         */
+        synchronized long seek(long seq) {
+            int index = Arrays.binarySearch(sparseSeq, 0, sparseSize, seq);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < sparseSize ? sparseLocation[index] : tail;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.konex.server.store.log;
+
+import org.konex.server.store.MessageRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Log pesan append-only yang dibagi ke beberapa shard berdasarkan chatId.
+ * Seq per room diberikan oleh log saat append dan selalu naik berurutan mulai dari 1.
+ */
+public final class MessageLog implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MessageLog.class.getName());
+    private static final String SHARD_PREFIX = "shard-";
+
+    private final LogShard[] shards;
+
+    public MessageLog(Path directory, int shardCount, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+
+        // jumlah shard yang sudah ada di disk harus dipertahankan agar chatId tetap jatuh ke shard yang sama
+        int existing = countExistingShards(directory);
+        int count = existing > 0 ? existing : shardCount;
+        if (existing > 0 && existing != shardCount) {
+            LOGGER.warning(() -> "Message log already has " + existing + " shards, ignoring configured " + shardCount);
+        }
+
+        this.shards = new LogShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new LogShard(i, directory.resolve(SHARD_PREFIX + i), segmentSize);
+        }
+    }
+
+    private static int countExistingShards(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(p -> p.getFileName().toString().startsWith(SHARD_PREFIX)).count();
+        }
+    }
+
+    private LogShard shardFor(String chatId) {
+        return shards[Math.floorMod(chatId.hashCode(), shards.length)];
+    }
+
+    /**
+     * Menambahkan pesan ke log. Future selesai dengan seq pesan setelah batch-nya tersimpan ke disk.
+     */
+    public CompletableFuture<Long> append(MessageRecord entry) {
+        return shardFor(entry.chatId()).append(entry);
+    }
+
+    public long lastSeq(String chatId) {
+        return shardFor(chatId).lastSeq(chatId);
+    }
+
+    public List<MessageRecord> readRange(String chatId, long fromSeq, long toSeq) {
+        return shardFor(chatId).read(chatId, fromSeq, toSeq);
+    }
+
+    public List<MessageRecord> readLatest(String chatId, int limit) {
+        long last = lastSeq(chatId);
+        return readRange(chatId, Math.max(1, last - limit + 1), last);
+    }
+
+    public List<MessageRecord> readAll(String chatId) {
+        return readRange(chatId, 1, lastSeq(chatId));
+    }
+
+    /**
+     * Maksimal {@code limit} pesan paling lama yang masih berlaku, urut naik.
+     */
+    public List<MessageRecord> readOldest(String chatId, int limit) {
+        long first = shardFor(chatId).firstSeq(chatId);
+        return readRange(chatId, first, first + limit - 1);
+    }
+
+    /**
+     * Maksimal {@code limit} pesan paling lama yang gambarnya belum dibuang, urut naik.
+     */
+    public List<MessageRecord> readMediaPending(String chatId, int limit) {
+        LogShard shard = shardFor(chatId);
+        long first = Math.max(shard.firstSeq(chatId), shard.mediaSeq(chatId) + 1);
+        return readRange(chatId, first, first + limit - 1);
+    }
+
+    /**
+     * Menghapus semua pesan room dengan seq di bawah {@code seq}.
+     */
+    public void truncateBefore(String chatId, long seq) throws IOException {
+        shardFor(chatId).truncateBefore(chatId, seq);
+    }
+
+    /**
+     * Membuang referensi gambar semua pesan room sampai {@code seq}; teks dan caption tetap tersimpan.
+     */
+    public void stripMediaUpTo(String chatId, long seq) throws IOException {
+        shardFor(chatId).stripMediaUpTo(chatId, seq);
+    }
+
+    @Override
+    public void close() {
+        for (LogShard shard : shards) {
+            shard.close();
+        }
+    }
+}
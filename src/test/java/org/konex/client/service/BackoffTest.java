@@ -0,0 +1,37 @@
+package org.konex.client.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackoffTest {
+
+    @Test
+    @DisplayName("Jeda naik dua kali lipat sampai batas maksimum, dengan jitter di separuh atas")
+    void testDelayGrowsWithJitterUpToCap() {
+        Backoff backoff = new Backoff(100, 1000, new SplittableRandom(42));
+        long[] ceilings = {100, 200, 400, 800, 1000, 1000, 1000};
+        for (long ceiling : ceilings) {
+            long delay = backoff.nextDelayMillis();
+            assertTrue(delay >= ceiling / 2 && delay <= ceiling, "delay " + delay + " di luar batas " + ceiling);
+        }
+        assertEquals(ceilings.length, backoff.attempts());
+
+        backoff.reset();
+        assertTrue(backoff.nextDelayMillis() <= 100);
+    }
+
+    @Test
+    @DisplayName("Client yang putus bersamaan tidak mendapat jeda yang sama")
+    void testJitterSpreadsClients() {
+        long first = new Backoff(1000, 30_000, new SplittableRandom(1)).nextDelayMillis();
+        boolean differs = false;
+        for (int seed = 2; seed < 10 && !differs; seed++) {
+            differs = new Backoff(1000, 30_000, new SplittableRandom(seed)).nextDelayMillis() != first;
+        }
+        assertTrue(differs);
+    }
+}
@@ -0,0 +1,76 @@
+package org.konex.client.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalMessageCacheTest {
+
+    private final User sender = new UserBuilder().setName("Budi").setPhone("081").build();
+
+    @TempDir
+    Path tempDir;
+
+    private Message message(long seq) {
+        Message msg = MessageFactory.createMessage("group_1", sender, "pesan " + seq);
+        msg.setSeq(seq);
+        return msg;
+    }
+
+    private List<Message> messages(long from, long to) {
+        List<Message> result = new ArrayList<>();
+        for (long seq = from; seq <= to; seq++) {
+            result.add(message(seq));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Riwayat room tersimpan di disk dan dimuat lagi pada sesi berikutnya")
+    void testPersistsAcrossSessions() throws Exception {
+        try (LocalMessageCache cache = new LocalMessageCache(tempDir, 5)) {
+            cache.open("group_1").get();
+            cache.merge("group_1", messages(1, 4));
+            cache.merge("group_1", messages(5, 8));
+        }
+
+        try (LocalMessageCache cache = new LocalMessageCache(tempDir, 5)) {
+            List<Message> loaded = cache.open("group_1").get();
+            assertEquals(List.of(4L, 5L, 6L, 7L, 8L), loaded.stream().map(Message::getSeq).toList());
+            assertEquals(8, cache.lastSeq("group_1"));
+            assertEquals("pesan 8", loaded.getLast().getContent());
+            assertTrue(cache.open("group_2").get().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Pesan yang sudah ada di cache tidak dikembalikan lagi oleh merge")
+    void testMergeSkipsCachedMessages() throws Exception {
+        try (LocalMessageCache cache = new LocalMessageCache(tempDir, 10)) {
+            List<Message> first = messages(1, 3);
+            cache.open("group_1").get();
+            assertEquals(3, cache.merge("group_1", first).size());
+
+            List<Message> again = new ArrayList<>(first);
+            again.add(message(4));
+            Message notification = MessageFactory.createMessage("group_1", sender, "JOINED");
+
+            again.add(notification);
+            List<Message> fresh = cache.merge("group_1", again);
+            assertEquals(2, fresh.size());
+            assertEquals(4, fresh.getFirst().getSeq());
+            assertSame(notification, fresh.get(1));
+            assertEquals(4, cache.snapshot("group_1").size());
+        }
+    }
+}
@@ -34,10 +34,10 @@ class MessageFactoryTest {
         User sender = new User("u2", "Andi", "08111", null, "pass");
         String chatId = "private_room";
         String caption = "Liburan";
-        String base64Dummy = "data:image/png;base64,iVBORw0KGgoAAAANSUhEUgAA...";
+        byte[] imageDummy = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
 
         // Act
-        Message result = MessageFactory.createMessage(chatId, sender, caption, base64Dummy);
+        Message result = MessageFactory.createMessage(chatId, sender, caption, imageDummy);
 
         // Assert
         assertNotNull(result);
@@ -47,6 +47,6 @@ class MessageFactoryTest {
 
         // Cek data spesifik ImageMessage
         ImageMessage imgMsg = (ImageMessage) result;
-        assertEquals(base64Dummy, imgMsg.getBase64Data(), "Data Base64 gambar harus tersimpan");
+        assertArrayEquals(imageDummy, imgMsg.getImageData(), "Data gambar harus tersimpan");
     }
 }
\ No newline at end of file
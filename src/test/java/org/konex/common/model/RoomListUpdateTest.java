@@ -0,0 +1,27 @@
+package org.konex.common.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomListUpdateTest {
+
+    @Test
+    @DisplayName("Delta menaikkan versi satu langkah dari versi dasarnya")
+    void testDeltaAdvancesVersion() {
+        RoomListUpdate snapshot = RoomListUpdate.snapshot(3, Map.of("global_room", "Global Chat"));
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(3, snapshot.getVersion());
+
+        RoomListUpdate delta = RoomListUpdate.delta(snapshot.getVersion(), Map.of("group_1", "Alumni"), List.of());
+        assertFalse(delta.isSnapshot());
+        assertEquals(3, delta.getBaseVersion());
+        assertEquals(4, delta.getVersion());
+        assertEquals("Alumni", delta.getUpserts().get("group_1"));
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+}
@@ -14,7 +14,7 @@ class UserBuilderTest {
         String expectedName = "Budi Santoso";
         String expectedPhone = "08123456789";
         String expectedPassword = "rahasia123";
-        String expectedImage = "base64stringdummy";
+        byte[] expectedImage = {1, 2, 3, 4};
 
         // 2. Act
         User user = new UserBuilder()
@@ -29,7 +29,7 @@ class UserBuilderTest {
         assertEquals(expectedName, user.getName(), "Nama user harus sesuai");
         assertEquals(expectedPhone, user.getPhoneNumber(), "Nomor HP harus sesuai");
         assertEquals(expectedPassword, user.getPassword(), "Password harus sesuai");
-        assertEquals(expectedImage, user.getProfileImage(), "Profile image harus sesuai");
+        assertArrayEquals(expectedImage, user.getProfileImage(), "Profile image harus sesuai");
     }
 
     @Test
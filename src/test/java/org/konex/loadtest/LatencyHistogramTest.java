@@ -0,0 +1,46 @@
+package org.konex.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Bucket bersambung tanpa celah dan setiap nilai jatuh di bucket yang memuatnya")
+    void testBucketsAreContiguous() {
+        for (int i = 1; i < 500; i++) {
+            assertEquals(LatencyHistogram.upperBoundOf(i - 1) + 1, lowerBoundOf(i), "celah sebelum bucket " + i);
+        }
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456, 60_000_000}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Persentil meleset paling banyak sekitar 6% dari nilai sebenarnya")
+    void testPercentileAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000, histogram.maxMicros());
+        assertEquals(50_000.5, histogram.meanMicros(), 0.001);
+        assertEquals(50_000, histogram.percentileMicros(0.50), 50_000 * 0.07);
+        assertEquals(99_000, histogram.percentileMicros(0.99), 99_000 * 0.07);
+        assertEquals(100_000, histogram.percentileMicros(1.0));
+    }
+
+    private static long lowerBoundOf(int index) {
+        for (long value = LatencyHistogram.upperBoundOf(index); ; value--) {
+            if (value == 0 || LatencyHistogram.indexOf(value - 1) != index) {
+                return value;
+            }
+        }
+    }
+}
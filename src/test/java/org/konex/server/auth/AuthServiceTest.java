@@ -0,0 +1,109 @@
+package org.konex.server.auth;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.model.User;
+import org.konex.server.store.InMemoryStore;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthServiceTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    private static User request(String phone) {
+        return new User(null, "Budi", phone, null, null);
+    }
+
+    @Test
+    @DisplayName("Registrasi menyimpan hash bersalt dan login memverifikasinya")
+    void testRegisterAndLogin() {
+        InMemoryStore store = new InMemoryStore();
+        try (AuthService auth = new AuthService(() -> store, hasher, 2, 8, 5000, 0)) {
+            AuthResult registered = auth.authenticate(request("081"), "rahasia");
+            assertTrue(registered.success());
+            assertNull(registered.user().getPassword(), "Password tidak boleh dikirim balik ke client");
+
+            String stored = store.findByPhone("081").getPassword();
+            assertTrue(PasswordHasher.isHashed(stored));
+            assertNotEquals(hasher.hash("rahasia"), stored, "Salt harus acak");
+
+            assertTrue(auth.authenticate(request("081"), "rahasia").success());
+            assertFalse(auth.authenticate(request("081"), "salah").success());
+        }
+    }
+
+    @Test
+    @DisplayName("Password plaintext lama tetap bisa login lalu di-hash ulang")
+    void testLegacyPasswordUpgraded() {
+        InMemoryStore store = new InMemoryStore();
+        store.save(new User(null, "Budi", "081", null, "lama123"));
+
+        try (AuthService auth = new AuthService(() -> store, hasher, 2, 8, 5000, 60_000)) {
+            assertTrue(auth.authenticate(request("081"), "lama123").success());
+            String upgraded = store.findByPhone("081").getPassword();
+            assertTrue(PasswordHasher.isHashed(upgraded));
+            assertTrue(hasher.verify("lama123", upgraded));
+            assertFalse(hasher.needsRehash(upgraded));
+            assertTrue(new PasswordHasher(2000).needsRehash(upgraded));
+        }
+    }
+
+    @Test
+    @DisplayName("User hasil login hanya membawa hash foto profil, bukan fotonya")
+    void testLoginReturnsAvatarHashOnly() {
+        InMemoryStore store = new InMemoryStore();
+        store.save(new User(null, "Budi", "081", new byte[]{1, 2, 3}, "lama123"));
+
+        try (AuthService auth = new AuthService(() -> store, hasher, 2, 8, 5000, 0)) {
+            User user = auth.authenticate(request("081"), "lama123").user();
+            assertNull(user.getProfileImage());
+            assertEquals(64, user.getAvatarHash().length());
+            assertEquals(user.getAvatarHash(), store.findByPhone("081").getAvatarHash(),
+                    "Hash foto user lama disimpan saat login");
+
+            User changed = new User(null, "Budi", "081", new byte[]{4, 5, 6}, null);
+            String newHash = auth.authenticate(changed, "lama123").user().getAvatarHash();
+            assertNotEquals(user.getAvatarHash(), newHash, "Foto baru harus menghasilkan hash baru");
+        }
+    }
+
+    @Test
+    @DisplayName("Permintaan yang tidak muat di antrean langsung ditolak")
+    void testQueueFullRejectsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        InMemoryStore store = new InMemoryStore() {
+            @Override
+            public User findByPhone(String phone) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findByPhone(phone);
+            }
+        };
+
+        try (AuthService auth = new AuthService(() -> store, hasher, 1, 1, 5000, 0)) {
+            Thread first = Thread.ofVirtual().start(() -> auth.authenticate(request("081"), "a"));
+            blocked.await(); // satu-satunya thread auth sedang sibuk
+            Thread second = Thread.ofVirtual().start(() -> auth.authenticate(request("082"), "b"));
+            while (auth.queuedRequests() == 0) {
+                Thread.onSpinWait();
+            }
+
+            AuthResult rejected = auth.authenticate(request("083"), "c");
+            assertFalse(rejected.success());
+            assertTrue(rejected.busy());
+            assertTrue(rejected.message().contains("sibuk"));
+
+            release.countDown();
+            first.join();
+            second.join();
+        }
+    }
+}
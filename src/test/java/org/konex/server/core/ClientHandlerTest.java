@@ -0,0 +1,164 @@
+package org.konex.server.core;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.constants.Constants;
+import org.konex.common.interfaces.ChatRoom;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.Response;
+import org.konex.common.model.RoomListUpdate;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+import org.konex.server.entity.GroupChat;
+import org.konex.server.service.ChatRoomService;
+import org.konex.server.store.StoreProvider;
+import org.konex.server.store.StoreType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientHandlerTest {
+    private static final String PASSWORD = "rahasia";
+
+    /**
+     * Socket tanpa koneksi: input hanya berisi header stream objek, semua respons ditampung di memori.
+     */
+    private static final class FakeSocket extends Socket {
+        private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+        @Override
+        public InputStream getInputStream() {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(header)) {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new ByteArrayInputStream(header.toByteArray());
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return sent;
+        }
+
+        List<Response<?>> responses() throws IOException, ClassNotFoundException {
+            List<Response<?>> result = new ArrayList<>();
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(sent.toByteArray()))) {
+                while (true) {
+                    result.add((Response<?>) in.readObject());
+                }
+            } catch (EOFException _) {
+                return result;
+            }
+        }
+    }
+
+    private record Session(ClientHandler handler, FakeSocket socket, User user) {
+    }
+
+    @BeforeAll
+    static void useMemoryStore() {
+        try {
+            StoreProvider.init(StoreType.MEMORY);
+        } catch (IllegalStateException e) {
+            if (StoreProvider.getInstance().getType() != StoreType.MEMORY) {
+                throw e;
+            }
+        }
+    }
+
+    private static Session login(String phone) throws IOException {
+        User user = new UserBuilder().setName("User " + phone).setPhone(phone).build();
+        FakeSocket socket = new FakeSocket();
+        ClientHandler handler = new ClientHandler(socket);
+        handler.open();
+        handler.dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, user, "AUTH_REQUEST:" + PASSWORD));
+        return new Session(handler, socket, user);
+    }
+
+    private static GroupChat createGroup(Session owner, String name) {
+        owner.handler().dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, owner.user(),
+                "CREATE_GROUP:" + name));
+        for (ChatRoom room : ChatRoomService.getInstance().getRoomsOf(owner.user().getPhoneNumber())) {
+            if (room instanceof GroupChat group && name.equals(group.getName())) {
+                return group;
+            }
+        }
+        throw new AssertionError("Grup tidak dibuat: " + name);
+    }
+
+    @Test
+    @DisplayName("Pengirim palsu di dalam pesan tidak memberi hak anggota grup")
+    void testSpoofedSenderIsRejected() throws Exception {
+        Session owner = login("0811000001");
+        Session intruder = login("0811000002");
+        GroupChat group = createGroup(owner, "Rahasia");
+
+        // penyusup mengaku sebagai pemilik grup
+        intruder.handler().dispatch(MessageFactory.createMessage(group.getId(), owner.user(),
+                "/invite " + intruder.user().getPhoneNumber()));
+        intruder.handler().dispatch(MessageFactory.createMessage(group.getId(), owner.user(), "halo"));
+
+        assertFalse(group.isMember(intruder.user().getPhoneNumber()));
+        assertTrue(group.getHistory().isEmpty());
+
+        List<Response<?>> responses = intruder.socket().responses();
+        assertTrue(responses.stream().anyMatch(r -> !r.isSuccess()
+                && "Anda bukan anggota grup ini.".equals(r.getMessage())));
+    }
+
+    @Test
+    @DisplayName("Pesan sebelum login ditolak")
+    void testMessageBeforeLoginIsRejected() throws Exception {
+        FakeSocket socket = new FakeSocket();
+        ClientHandler handler = new ClientHandler(socket);
+        handler.open();
+        User user = new UserBuilder().setName("Tamu").setPhone("0811000003").build();
+
+        handler.dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, user, "CREATE_GROUP:Tamu"));
+
+        assertTrue(ChatRoomService.getInstance().getRoomsOf(user.getPhoneNumber()).stream()
+                .noneMatch(room -> room instanceof GroupChat group && "Tamu".equals(group.getName())));
+        assertEquals(Constants.CMD_ERROR, socket.responses().getFirst().getCommand());
+    }
+
+    @Test
+    @DisplayName("JOINED pertama setelah login ulang membawa daftar room yang berubah selama offline")
+    void testRejoinAfterReconnectSendsSnapshot() throws Exception {
+        Session first = login("0811000004");
+        first.handler().dispatch(MessageFactory.createMessage(Constants.SYSTEM_SENDER, first.user(), "REQ_ROOMS"));
+
+        // user lain mengundangnya saat koneksinya putus, jadi tidak ada delta yang sampai
+        Session owner = login("0811000005");
+        GroupChat group = createGroup(owner, "Selama Offline");
+        ChatRoomService.getInstance().addMember(group, first.user());
+
+        Session second = login(first.user().getPhoneNumber());
+        second.handler().dispatch(MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, second.user(),
+                "JOINED:0"));
+        second.handler().dispatch(MessageFactory.createMessage(Constants.GLOBAL_ROOM_CHAT_ID, second.user(),
+                "JOINED:0"));
+
+        List<RoomListUpdate> updates = second.socket().responses().stream()
+                .filter(r -> Constants.CMD_ROOMLIST.equals(r.getCommand()))
+                .map(r -> (RoomListUpdate) r.getData())
+                .toList();
+        assertEquals(1, updates.size());
+        assertTrue(updates.getFirst().isSnapshot());
+        assertTrue(updates.getFirst().getUpserts().containsKey(group.getId()));
+    }
+}
@@ -0,0 +1,44 @@
+package org.konex.server.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageDeduplicatorTest {
+
+    @Test
+    @DisplayName("Kiriman ulang dengan messageId yang sama dikenali dan mendapat seq yang sama")
+    void testDuplicateIsRejected() {
+        MessageDeduplicator dedup = new MessageDeduplicator(60_000, 100);
+
+        assertTrue(dedup.tryReserve("g1", "m1", 0));
+        assertFalse(dedup.tryReserve("g1", "m1", 10));
+        assertEquals(MessageDeduplicator.IN_FLIGHT, dedup.seqOf("g1", "m1"));
+
+        dedup.complete("g1", "m1", 42);
+        assertFalse(dedup.tryReserve("g1", "m1", 20));
+        assertEquals(42, dedup.seqOf("g1", "m1"));
+
+        // ID yang sama di room lain bukan duplikat
+        assertTrue(dedup.tryReserve("g2", "m1", 30));
+    }
+
+    @Test
+    @DisplayName("ID dilupakan setelah jendela habis, kapasitas penuh, atau penyimpanan gagal")
+    void testEntriesAreBounded() {
+        MessageDeduplicator dedup = new MessageDeduplicator(1000, 2);
+
+        assertTrue(dedup.tryReserve("g1", "a", 0));
+        assertTrue(dedup.tryReserve("g1", "b", 0));
+        assertTrue(dedup.tryReserve("g1", "c", 0));
+        assertEquals(2, dedup.size());
+        assertTrue(dedup.tryReserve("g1", "a", 0), "Entry tertua harus tergusur saat kapasitas penuh");
+
+        assertTrue(dedup.tryReserve("g1", "d", 5000), "Entry yang melewati jendela waktu harus dibuang");
+        assertEquals(1, dedup.size());
+
+        dedup.release("g1", "d");
+        assertTrue(dedup.tryReserve("g1", "d", 5000));
+    }
+}
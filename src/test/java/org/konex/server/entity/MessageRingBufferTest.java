@@ -0,0 +1,56 @@
+package org.konex.server.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageRingBufferTest {
+
+    private final User sender = new UserBuilder().setName("Budi").setPhone("081").build();
+
+    private Message message(long seq) {
+        Message msg = MessageFactory.createMessage("g1", sender, "pesan " + seq);
+        msg.setSeq(seq);
+        return msg;
+    }
+
+    @Test
+    @DisplayName("Buffer hanya menyimpan pesan terbaru sesuai kapasitas")
+    void testCapacityIsBounded() {
+        MessageRingBuffer buffer = new MessageRingBuffer(3);
+        for (long seq = 1; seq <= 10; seq++) {
+            buffer.add(message(seq));
+        }
+
+        List<Message> snapshot = buffer.snapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals(List.of(8L, 9L, 10L), snapshot.stream().map(Message::getSeq).toList());
+    }
+
+    @Test
+    @DisplayName("Seed dari store tidak menggandakan pesan live yang sudah tersimpan")
+    void testSeedMergesWithLiveMessages() {
+        MessageRingBuffer buffer = new MessageRingBuffer(10);
+        buffer.add(message(4));
+        buffer.add(message(5));
+
+        List<Message> fromStore = new ArrayList<>();
+        for (long seq = 1; seq <= 4; seq++) {
+            fromStore.add(message(seq));
+        }
+        buffer.seed(fromStore);
+        buffer.add(message(3));
+        buffer.add(message(6));
+
+        assertTrue(buffer.isSeeded());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), buffer.snapshot().stream().map(Message::getSeq).toList());
+    }
+}
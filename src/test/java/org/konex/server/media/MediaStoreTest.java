@@ -0,0 +1,104 @@
+package org.konex.server.media;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Blob yang disimpan bisa dibaca kembali lewat map dan transferTo")
+    void testPutAndRead() throws IOException {
+        byte[] image = "fake-image-bytes".getBytes();
+
+        try (MediaStore store = new MediaStore(dir, 1024)) {
+            String id = store.put(image);
+
+            assertTrue(store.contains(id));
+            assertArrayEquals(image, store.read(id));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long sent = store.transferTo(id, Channels.newChannel(out));
+            assertEquals(image.length, sent);
+            assertArrayEquals(image, out.toByteArray());
+
+            assertEquals(id, store.put(image), "Konten sama harus menghasilkan ID yang sama");
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("File upload disimpan tanpa dimuat utuh dan bisa dibaca per potongan")
+    void testPutFileAndRangedRead() throws IOException {
+        byte[] data = new byte[5000];
+        new Random(3).nextBytes(data);
+        Path file = Files.write(dir.resolve("upload.part"), data);
+
+        try (MediaStore store = new MediaStore(dir.resolve("media"), 1024 * 1024)) {
+            String id = store.put(file);
+
+            assertEquals(id, store.put(data), "File dan byte[] dengan isi sama harus menghasilkan ID yang sama");
+            assertEquals(data.length, store.length(id));
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 3000), store.read(id, 1000, 2000));
+            assertArrayEquals(Arrays.copyOfRange(data, 4500, 5000), store.read(id, 4500, 2000));
+            try (InputStream in = store.openStream(id)) {
+                assertArrayEquals(data, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Index dibangun ulang dari segment saat store dibuka kembali")
+    void testReopenRebuildsIndex() throws IOException {
+        String kept;
+        String deleted;
+        try (MediaStore store = new MediaStore(dir, 1024)) {
+            kept = store.put("keep".getBytes());
+            deleted = store.put("drop".getBytes());
+            assertTrue(store.delete(deleted));
+        }
+
+        try (MediaStore reopened = new MediaStore(dir, 1024)) {
+            assertArrayEquals("keep".getBytes(), reopened.read(kept));
+            assertNull(reopened.read(deleted), "Media yang dihapus tidak boleh muncul lagi");
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction membuang media terhapus tanpa merusak media yang masih hidup")
+    void testCompaction() throws IOException {
+        byte[] big = new byte[300];
+        String live;
+        try (MediaStore store = new MediaStore(dir, 512)) {
+            big[0] = 1;
+            live = store.put(big.clone());
+            for (int i = 2; i < 6; i++) {
+                big[0] = (byte) i;
+                store.delete(store.put(big.clone()));
+            }
+
+            assertTrue(store.needsCompaction());
+            assertTrue(store.compact() > 0);
+            assertEquals(1, store.read(live)[0]);
+        }
+
+        try (MediaStore reopened = new MediaStore(dir, 512)) {
+            assertEquals(1, reopened.size());
+            assertEquals(1, reopened.read(live)[0]);
+        }
+    }
+}
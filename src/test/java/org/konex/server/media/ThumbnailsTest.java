@@ -0,0 +1,66 @@
+package org.konex.server.media;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.server.store.InMemoryStore;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailsTest {
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        // derau acak supaya ukurannya mendekati foto asli, bukan gambar datar yang mudah dikompres
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("Gambar besar diperkecil dengan rasio tetap, gambar kecil dan data rusak dilewati")
+    void testCreate() throws IOException {
+        byte[] original = png(1600, 1200);
+        byte[] thumbnail = Thumbnails.create(original);
+
+        assertNotNull(thumbnail);
+        assertTrue(thumbnail.length * 10 < original.length, "Thumbnail harus jauh lebih kecil dari aslinya");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail));
+        assertEquals(Thumbnails.MAX_DIMENSION, decoded.getWidth());
+        assertEquals(300, decoded.getHeight());
+
+        assertNull(Thumbnails.create(png(200, 100)));
+        assertNull(Thumbnails.create(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    @DisplayName("Pesan gambar yang disimpan hanya membawa thumbnail, aslinya diambil lewat mediaId")
+    void testStoreKeepsOriginalSeparately() throws IOException {
+        byte[] original = png(1600, 1200);
+        InMemoryStore store = new InMemoryStore();
+        Message msg = MessageFactory.createMessage("g1", new User(null, "Budi", "081", null, null),
+                "liburan", original);
+        store.save(msg);
+
+        ImageMessage saved = (ImageMessage) store.findByChatId("g1").getFirst();
+        assertNotNull(saved.getMediaId());
+        assertTrue(saved.getImageData().length < original.length);
+        assertArrayEquals(original, store.readMedia(saved.getMediaId(), 0, Integer.MAX_VALUE));
+    }
+}
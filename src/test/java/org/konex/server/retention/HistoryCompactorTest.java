@@ -0,0 +1,95 @@
+package org.konex.server.retention;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.server.store.InMemoryStore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryCompactorTest {
+
+    @TempDir
+    Path dir;
+
+    private final User sender = new User(null, "Budi", "081", null, null);
+
+    private Message message(Instant at, String text) {
+        Message msg = MessageFactory.createMessage("room-a", sender, text);
+        msg.setDate(Date.from(at));
+        return msg;
+    }
+
+    @Test
+    @DisplayName("Format kebijakan retensi dibaca dengan benar")
+    void testParsePolicy() {
+        RetentionPolicy policy = RetentionPolicy.parse("days=30, messages=5000,mediaDays=7");
+        assertEquals(Duration.ofDays(30), policy.maxAge());
+        assertEquals(5000, policy.maxMessages());
+        assertEquals(Duration.ofDays(7), policy.mediaMaxAge());
+
+        assertTrue(RetentionPolicy.parse("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.parse("weeks=2"));
+    }
+
+    @Test
+    @DisplayName("Pesan kedaluwarsa dihapus per batch, diarsipkan, dan gambar lama dibuang")
+    void testCompactRoom() throws Exception {
+        Instant now = Instant.parse("2025-06-01T12:00:00Z");
+        InMemoryStore store = new InMemoryStore();
+        for (int i = 0; i < 10; i++) {
+            store.save(message(now.minus(Duration.ofDays(40 - i)), "old" + i));
+        }
+        ImageMessage photo = (ImageMessage) MessageFactory.createMessage("room-a", sender, "foto", "halo".getBytes());
+        photo.setDate(Date.from(now.minus(Duration.ofDays(10))));
+        store.save(photo);
+        for (int i = 0; i < 5; i++) {
+            store.save(message(now.minus(Duration.ofHours(i)), "new" + i));
+        }
+
+        HistoryCompactor compactor = new HistoryCompactor(store, RetentionPolicy.NONE, RetentionPolicy.NONE,
+                RetentionPolicy.NONE, 3, 0, new HistoryArchiver(dir, ZoneOffset.UTC), false);
+
+        long removed = compactor.compact("room-a", RetentionPolicy.parse("days=30,mediaDays=7"), now);
+
+        assertEquals(10, removed);
+        List<Message> remaining = store.findByChatId("room-a");
+        assertEquals(6, remaining.size());
+        assertEquals("foto", remaining.getFirst().getContent());
+        assertNull(((ImageMessage) remaining.getFirst()).getImageData(), "Gambar lama harus dibuang");
+
+        long archived = 0;
+        try (var files = Files.walk(dir)) {
+            for (Path file : files.filter(p -> p.toString().endsWith(".jsonl.gz")).toList()) {
+                archived += countLines(file);
+            }
+        }
+        assertEquals(10, archived);
+
+        assertEquals(3, compactor.compact("room-a", RetentionPolicy.parse("messages=3"), now));
+        assertEquals(3, store.findByChatId("room-a").size());
+    }
+
+    private static long countLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            return reader.lines().count();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.konex.server.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.SearchResult;
+import org.konex.common.model.User;
+import org.konex.server.store.InMemoryStore;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private final User sender = new User(null, "Budi", "081", null, null);
+
+    /**
+     * Store yang seq-nya sudah dibagikan tetapi sebagian pesannya belum selesai ditulis.
+     */
+    private static final class SlowStore extends InMemoryStore {
+        private final Set<Long> unwritten = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public List<Message> findAfter(String chatId, long afterSeq, int limit) {
+            return super.findAfter(chatId, afterSeq, limit).stream()
+                    .filter(msg -> !unwritten.contains(msg.getSeq()))
+                    .toList();
+        }
+
+        @Override
+        public List<Message> findBySeq(String chatId, Collection<Long> seqs) {
+            return super.findBySeq(chatId, seqs).stream()
+                    .filter(msg -> !unwritten.contains(msg.getSeq()))
+                    .toList();
+        }
+    }
+
+    private Message save(InMemoryStore store, String chatId, String text) {
+        Message msg = MessageFactory.createMessage(chatId, sender, text);
+        store.save(msg);
+        return msg;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Index tidak selesai tepat waktu");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Pencarian hanya mencakup room yang diminta dan hasilnya dipaginasi dari yang terbaru")
+    void testSearchScopedAndPaged() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        try (SearchIndex index = new SearchIndex(store, null)) {
+            for (int i = 1; i <= 25; i++) {
+                index.submit(save(store, "room-a", "Rapat proyek ke-" + i));
+            }
+            index.submit(save(store, "room-b", "rapat rahasia proyek"));
+            index.submit(save(store, "room-a", "makan siang"));
+
+            await(() -> index.findHits(List.of("room-a"), "makan", 0, 1).size() == 1);
+
+            SearchResult first = index.search(List.of("room-a"), "PROYEK rapat", 0, 10);
+            assertEquals(10, first.getMessages().size());
+            assertTrue(first.hasMore());
+            assertEquals("Rapat proyek ke-25", first.getMessages().getFirst().getContent());
+
+            SearchResult last = index.search(List.of("room-a"), "proyek rapat", 2, 10);
+            assertEquals(5, last.getMessages().size());
+            assertFalse(last.hasMore());
+
+            assertTrue(index.findHits(List.of("room-a"), "rahasia", 0, 10).isEmpty(),
+                    "Pesan room lain tidak boleh ikut");
+            assertEquals(1, index.findHits(List.of("room-a", "room-b"), "rahasia", 0, 10).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Index disimpan ke disk dan pesan yang terlewat dikejar dari store")
+    void testPersistAndCatchUp() throws Exception {
+        InMemoryStore store = new InMemoryStore();
+        try (SearchIndex index = new SearchIndex(store, dir)) {
+            index.submit(save(store, "room-a", "halo dunia"));
+            await(() -> !index.findHits(List.of("room-a"), "dunia", 0, 1).isEmpty());
+        }
+
+        // pesan ini tersimpan saat index tidak berjalan
+        save(store, "room-a", "pesan terlewat");
+
+        try (SearchIndex reopened = new SearchIndex(store, dir)) {
+            assertEquals(1, reopened.findHits(List.of("room-a"), "dunia", 0, 10).size());
+
+            reopened.submit(save(store, "room-a", "pesan terbaru"));
+            await(() -> reopened.findHits(List.of("room-a"), "pesan", 0, 10).size() == 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Pesan yang tiba sebelum seq sebelumnya tetap terindex setelah celahnya terisi")
+    void testOutOfOrderSubmit() throws Exception {
+        SlowStore store = new SlowStore();
+        try (SearchIndex index = new SearchIndex(store, null)) {
+            Message image = save(store, "room-a", "foto liburan");
+            Message text = save(store, "room-a", "teks susulan");
+            store.unwritten.add(image.getSeq());
+
+            index.submit(text);
+            // beri indexer waktu memproses teks saat gambar belum tersimpan
+            Thread.sleep(200);
+            store.unwritten.remove(image.getSeq());
+            index.submit(image);
+
+            await(() -> index.findHits(List.of("room-a"), "susulan", 0, 1).size() == 1);
+            assertEquals(1, index.findHits(List.of("room-a"), "liburan", 0, 10).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Celah seq yang tidak pernah terisi tidak menahan index selamanya")
+    void testPermanentGapIsSkipped() throws Exception {
+        SlowStore store = new SlowStore();
+        try (SearchIndex index = new SearchIndex(store, null, 100)) {
+            Message lost = save(store, "room-a", "gagal disimpan");
+            store.unwritten.add(lost.getSeq());
+
+            index.submit(save(store, "room-a", "tetap dicari"));
+
+            await(() -> index.findHits(List.of("room-a"), "dicari", 0, 1).size() == 1);
+            assertTrue(index.findHits(List.of("room-a"), "gagal", 0, 10).isEmpty());
+        }
+    }
+}
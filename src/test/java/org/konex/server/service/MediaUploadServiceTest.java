@@ -0,0 +1,86 @@
+package org.konex.server.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.common.model.MediaChunk;
+import org.konex.common.model.UploadStatus;
+import org.konex.server.store.InMemoryStore;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaUploadServiceTest {
+
+    private static final String UPLOAD_ID = "3f2b8c1e-5d4a-4e7b-9c6d-1a2b3c4d5e6f";
+
+    @TempDir
+    Path tempDir;
+
+    private static String sha256(byte[] data) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    private static MediaChunk chunk(byte[] file, int from, int to, String sha256) {
+        return new MediaChunk(UPLOAD_ID, from, file.length, Arrays.copyOfRange(file, from, to), to == file.length, sha256);
+    }
+
+    @Test
+    @DisplayName("Upload yang terputus dilanjutkan dari posisi yang dilaporkan server")
+    void testResumeAndComplete() throws Exception {
+        byte[] file = new byte[10_000];
+        new Random(7).nextBytes(file);
+        InMemoryStore store = new InMemoryStore();
+        MediaUploadService service = new MediaUploadService(() -> store, tempDir, 1024 * 1024);
+
+        assertNull(service.accept("081", chunk(file, 0, 4000, null)));
+
+        // potongan yang melompat (mis. setelah reconnect) dijawab dengan jumlah byte yang sudah diterima
+        UploadStatus status = service.accept("081", chunk(file, 8000, 10_000, sha256(file)));
+        assertFalse(status.isCompleted());
+        assertNull(status.getError());
+        assertEquals(4000, status.getReceivedBytes());
+
+        // upload milik user lain ditolak
+        assertNotNull(service.accept("082", chunk(file, 4000, 8000, null)).getError());
+
+        assertNull(service.accept("081", chunk(file, 4000, 8000, null)));
+        status = service.accept("081", chunk(file, 8000, 10_000, sha256(file)));
+        assertTrue(status.isCompleted());
+        assertEquals(sha256(file), status.getMediaId());
+        assertArrayEquals(file, store.readMedia(status.getMediaId(), 0, Integer.MAX_VALUE));
+
+        // hasil upload hanya bisa dipakai sekali oleh pengunggahnya
+        assertFalse(service.claim("082", status.getMediaId()));
+        assertTrue(service.claim("081", status.getMediaId()));
+        assertFalse(service.claim("081", status.getMediaId()));
+        service.close();
+    }
+
+    @Test
+    @DisplayName("Checksum yang tidak cocok dan ID upload yang tidak valid ditolak")
+    void testRejectsCorruptUpload() throws Exception {
+        byte[] file = new byte[3000];
+        new Random(11).nextBytes(file);
+        InMemoryStore store = new InMemoryStore();
+        MediaUploadService service = new MediaUploadService(() -> store, tempDir, 2000);
+
+        assertNotNull(service.accept("081", chunk(file, 0, 3000, sha256(file))).getError());
+
+        service = new MediaUploadService(() -> store, tempDir, 1024 * 1024);
+        UploadStatus status = service.accept("081", chunk(file, 0, 3000, sha256(new byte[1])));
+        assertNotNull(status.getError());
+        assertEquals(-1, store.findMediaSize(sha256(file)));
+        assertFalse(tempDir.resolve(UPLOAD_ID + ".part").toFile().exists());
+
+        MediaChunk traversal = new MediaChunk("../../etc/passwd", 0, 1, new byte[1], true, null);
+        assertNotNull(service.accept("081", traversal).getError());
+        service.close();
+    }
+}
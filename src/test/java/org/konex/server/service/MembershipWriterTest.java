@@ -0,0 +1,66 @@
+package org.konex.server.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.server.store.InMemoryStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MembershipWriterTest {
+
+    /**
+     * Store memori yang mencatat setiap kali delta keanggotaan ditulis.
+     */
+    private static final class RecordingStore extends InMemoryStore {
+        private final List<String> writes = new ArrayList<>();
+
+        @Override
+        public void addMembers(String groupId, Collection<String> phones) {
+            writes.add("add " + groupId + " " + phones);
+            super.addMembers(groupId, phones);
+        }
+
+        @Override
+        public void removeMembers(String groupId, Collection<String> phones) {
+            writes.add("remove " + groupId + " " + phones);
+            super.removeMembers(groupId, phones);
+        }
+    }
+
+    @Test
+    @DisplayName("Join dan kick beruntun digabung menjadi satu delta per grup")
+    void testChangesAreCoalesced() {
+        RecordingStore store = new RecordingStore();
+        try (MembershipWriter writer = new MembershipWriter(() -> store)) {
+            writer.added("g1", "081");
+            writer.added("g1", "082");
+            writer.removed("g1", "081");
+            writer.removed("g1", "083");
+            writer.added("g2", "084");
+
+            writer.flush();
+
+            assertEquals(3, store.writes.size());
+            assertTrue(store.writes.contains("remove g1 [081, 083]"));
+            assertTrue(store.writes.contains("add g1 [082]"));
+            assertTrue(store.writes.contains("add g2 [084]"));
+        }
+    }
+
+    @Test
+    @DisplayName("Perubahan yang masih tertunda ikut ditulis saat writer ditutup")
+    void testCloseFlushesPending() {
+        RecordingStore store = new RecordingStore();
+        MembershipWriter writer = new MembershipWriter(() -> store);
+        writer.added("g1", "081");
+
+        writer.close();
+
+        assertEquals(List.of("add g1 [081]"), store.writes);
+        assertEquals(List.of("081"), store.findMembers("g1", null, 10));
+    }
+}
@@ -0,0 +1,68 @@
+package org.konex.server.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.server.store.InMemoryStore;
+import org.konex.server.store.ReadState;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnreadTrackerTest {
+
+    private final User sender = new User(null, "Budi", "081", null, null);
+
+    private void send(InMemoryStore store, UnreadTracker tracker, String chatId) {
+        Message msg = MessageFactory.createMessage(chatId, sender, "halo");
+        store.save(msg);
+        tracker.messageStored(msg);
+    }
+
+    @Test
+    @DisplayName("Jumlah belum dibaca dihitung dari pesan baru dan direset saat room dibaca")
+    void testUnreadCounting() {
+        InMemoryStore store = new InMemoryStore();
+        store.save(MessageFactory.createMessage("g1", sender, "riwayat lama"));
+
+        try (UnreadTracker tracker = new UnreadTracker(() -> store, () -> store)) {
+            // room yang belum pernah dibuka tidak menghitung riwayat lama
+            assertEquals(0, tracker.unreadCount("082", "g1"));
+
+            send(store, tracker, "g1");
+            send(store, tracker, "g1");
+            assertEquals(2, tracker.unreadCount("082", "g1"));
+
+            tracker.markRead("082", "g1", 2);
+            assertEquals(1, tracker.unreadCount("082", "g1"));
+
+            tracker.markAllRead("082", "g1");
+            assertEquals(0, tracker.unreadCount("082", "g1"));
+
+            tracker.markRead("082", "g1", 1);
+            assertEquals(0, tracker.unreadCount("082", "g1"), "Seq baca tidak boleh mundur");
+        }
+    }
+
+    @Test
+    @DisplayName("Status baca ditulis per batch dan dipakai lagi setelah restart")
+    void testReadStatePersisted() {
+        InMemoryStore store = new InMemoryStore();
+        try (UnreadTracker tracker = new UnreadTracker(() -> store, () -> store)) {
+            tracker.unreadCount("082", "g1");
+            send(store, tracker, "g1");
+            send(store, tracker, "g1");
+            send(store, tracker, "g1");
+            tracker.markRead("082", "g1", 1);
+        }
+
+        assertEquals(List.of(new ReadState("082", "g1", 1)), store.findReadStates("082"));
+
+        try (UnreadTracker restarted = new UnreadTracker(() -> store, () -> store)) {
+            assertEquals(2, restarted.unreadCount("082", "g1"));
+        }
+    }
+}
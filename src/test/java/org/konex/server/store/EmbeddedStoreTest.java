@@ -0,0 +1,78 @@
+package org.konex.server.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Data user, grup, dan pesan tetap ada setelah store dibuka ulang")
+    void testReplayAfterReopen() {
+        User budi = new UserBuilder().setName("Budi").setPhone("081").setPassword("rahasia").build();
+
+        EmbeddedStore store = new EmbeddedStore(dir);
+        store.save(budi);
+        store.saveGroup(new GroupRecord("g1", "Alumni", "081", List.of("081")));
+        store.save(MessageFactory.createMessage("g1", budi, "Halo"));
+        store.save(MessageFactory.createMessage("g1", budi, "Apa kabar?"));
+        store.save(MessageFactory.createMessage("g2", budi, "Room lain"));
+
+        EmbeddedStore reopened = new EmbeddedStore(dir);
+
+        User loaded = reopened.findByPhone("081");
+        assertNotNull(loaded);
+        assertEquals("Budi", loaded.getName());
+        assertEquals("rahasia", loaded.getPassword());
+
+        assertEquals(1, reopened.findAllGroups().size());
+        assertEquals("Alumni", reopened.findAllGroups().getFirst().name());
+
+        List<Message> history = reopened.findByChatId("g1");
+        assertEquals(2, history.size(), "Hanya pesan room g1 yang dikembalikan");
+        assertEquals("Halo", history.get(0).getContent());
+        assertEquals("Apa kabar?", history.get(1).getContent());
+        assertEquals("Budi", history.get(0).getSender().getName());
+    }
+
+    @Test
+    @DisplayName("Foto profil di journal lama yang masih berupa teks Base64 tetap terbaca sebagai byte")
+    void testLegacyBase64ProfileImage() throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("users.jsonl"),
+                "{\"name\":\"Budi\",\"phoneNumber\":\"081\",\"profileImage\":\"AQIDBA==\"}\n");
+
+        EmbeddedStore store = new EmbeddedStore(dir);
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, store.findByPhone("081").getProfileImage());
+    }
+
+    @Test
+    @DisplayName("Perubahan anggota disimpan sebagai delta dan diputar ulang saat store dibuka kembali")
+    void testMembershipDeltas() {
+        EmbeddedStore store = new EmbeddedStore(dir);
+        store.saveGroup(new GroupRecord("g1", "Alumni", "081", List.of("081")));
+        store.addMembers("g1", List.of("082", "083"));
+        store.removeMembers("g1", List.of("082"));
+
+        store.addMembers("g1", List.of("085", "084"));
+
+        EmbeddedStore reopened = new EmbeddedStore(dir);
+        assertEquals(List.of("081", "083"), reopened.findMembers("g1", null, 2));
+        assertEquals(List.of("084", "085"), reopened.findMembers("g1", "083", 10),
+                "Halaman berikutnya dimulai setelah cursor dan terurut");
+    }
+}
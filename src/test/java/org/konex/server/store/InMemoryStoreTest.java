@@ -0,0 +1,79 @@
+package org.konex.server.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.konex.common.model.ImageMessage;
+import org.konex.common.model.Message;
+import org.konex.common.model.MessageFactory;
+import org.konex.common.model.User;
+import org.konex.common.model.UserBuilder;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStoreTest {
+    private final User budi = new UserBuilder().setName("Budi").setPhone("081").build();
+
+    private ImageMessage image(byte[] data, long timestamp) {
+        ImageMessage msg = (ImageMessage) MessageFactory.createMessage("g1", budi, "foto", data);
+        msg.setDate(new Date(timestamp));
+        return msg;
+    }
+
+    @Test
+    @DisplayName("Gambar yang sama di dua pesan tetap ada setelah salah satu pesan kedaluwarsa")
+    void testSharedMediaSurvivesExpiry() {
+        InMemoryStore store = new InMemoryStore();
+        byte[] data = {1, 2, 3, 4};
+        ImageMessage first = image(data.clone(), 1000);
+        ImageMessage second = image(data.clone(), 5000);
+        store.save(first);
+        store.save(second);
+        String mediaId = first.getMediaId();
+        assertEquals(mediaId, second.getMediaId());
+
+        assertEquals(1, store.deleteExpired("g1", new Date(2000), 0, 100).size());
+        assertEquals(data.length, store.findMediaSize(mediaId), "Pesan kedua masih memakai gambar ini");
+
+        store.deleteExpired("g1", new Date(10_000), 0, 100);
+        assertEquals(-1, store.findMediaSize(mediaId));
+    }
+
+    @Test
+    @DisplayName("Membuang media tidak mengubah objek pesan yang juga dipegang buffer riwayat")
+    void testStripReplacesStoredCopy() {
+        InMemoryStore store = new InMemoryStore();
+        ImageMessage live = image(new byte[]{9, 8, 7}, 1000);
+        store.save(live);
+        String mediaId = live.getMediaId();
+
+        assertEquals(1, store.stripMedia("g1", new Date(2000), 100));
+
+        assertNotNull(live.getImageData());
+        assertEquals(mediaId, live.getMediaId());
+        ImageMessage stored = (ImageMessage) store.findByChatId("g1").getFirst();
+        assertNull(stored.getImageData());
+        assertNull(stored.getMediaId());
+        assertEquals(live.getSeq(), stored.getSeq());
+        assertEquals(-1, store.findMediaSize(mediaId));
+    }
+
+    @Test
+    @DisplayName("Retensi berhenti di pesan pertama yang belum kedaluwarsa dan menghormati limit")
+    void testDeleteExpiredBatch() {
+        InMemoryStore store = new InMemoryStore();
+        for (int i = 0; i < 10; i++) {
+            Message msg = MessageFactory.createMessage("g1", budi, "pesan " + i);
+            msg.setDate(new Date(i * 1000L));
+            store.save(msg);
+        }
+
+        assertEquals(3, store.deleteExpired("g1", new Date(6000), 0, 3).size());
+        assertEquals(3, store.deleteExpired("g1", new Date(6000), 0, 100).size());
+        List<Message> left = store.findByChatId("g1");
+        assertEquals(4, left.size());
+        assertEquals("pesan 6", left.getFirst().getContent());
+    }
+}
@@ -0,0 +1,107 @@
+package org.konex.server.store.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.konex.server.store.MessageRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static MessageRecord text(String chatId, String content) {
+        return new MessageRecord(chatId, "TEXT", "081", "Budi", content, null, System.currentTimeMillis(), 0, null, null);
+    }
+
+    @Test
+    @DisplayName("Seq per room berurutan dan pembacaan hanya mengembalikan pesan room tersebut")
+    void testAppendAndReadPerRoom() throws IOException {
+        try (MessageLog log = new MessageLog(dir, 2, 4096)) {
+            List<CompletableFuture<Long>> pending = new ArrayList<>();
+            for (int i = 1; i <= 100; i++) {
+                pending.add(log.append(text("room-a", "a" + i)));
+                pending.add(log.append(text("room-b", "b" + i)));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+
+            assertEquals(100, log.lastSeq("room-a"));
+            assertEquals(100, log.lastSeq("room-b"));
+
+            List<MessageRecord> range = log.readRange("room-a", 40, 45);
+            assertEquals(6, range.size());
+            assertEquals("a40", range.getFirst().content());
+            assertEquals(45, range.getLast().seq());
+
+            List<MessageRecord> latest = log.readLatest("room-b", 3);
+            assertEquals(List.of("b98", "b99", "b100"), latest.stream().map(MessageRecord::content).toList());
+
+            assertTrue(log.readAll("room-c").isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Append paralel dari banyak thread tidak kehilangan pesan dan bertahan setelah restart")
+    void testConcurrentAppendAndReopen() throws Exception {
+        int threads = 8;
+        int perThread = 250;
+        try (MessageLog log = new MessageLog(dir, 4, 64 * 1024)) {
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.append(text("global_room", "msg")).join();
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+
+        try (MessageLog reopened = new MessageLog(dir, 4, 64 * 1024)) {
+            List<MessageRecord> all = reopened.readAll("global_room");
+            assertEquals(threads * perThread, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(i + 1L, all.get(i).seq(), "Seq harus kontinu tanpa celah");
+            }
+            assertEquals(threads * perThread + 1L, reopened.append(text("global_room", "next")).join());
+        }
+    }
+
+    @Test
+    @DisplayName("Pesan di bawah penanda retensi tidak terbaca lagi dan segment lamanya dihapus")
+    void testTruncateReclaimsSegments() throws IOException {
+        try (MessageLog log = new MessageLog(dir, 1, 1024)) {
+            for (int i = 1; i <= 60; i++) {
+                log.append(text("room-a", "a" + i)).join();
+            }
+            assertTrue(Files.exists(dir.resolve("shard-0").resolve("1.log")));
+
+            log.truncateBefore("room-a", 51);
+            log.stripMediaUpTo("room-a", 55);
+
+            assertEquals(10, log.readAll("room-a").size());
+            assertEquals("a51", log.readOldest("room-a", 1).getFirst().content());
+            assertEquals(56, log.readMediaPending("room-a", 1).getFirst().seq());
+            assertFalse(Files.exists(dir.resolve("shard-0").resolve("1.log")), "Segment kedaluwarsa harus dihapus");
+        }
+
+        try (MessageLog reopened = new MessageLog(dir, 1, 1024)) {
+            assertEquals(10, reopened.readAll("room-a").size());
+            assertEquals(56, reopened.readMediaPending("room-a", 1).getFirst().seq());
+            assertEquals(61, reopened.append(text("room-a", "next")).join());
+        }
+    }
+}